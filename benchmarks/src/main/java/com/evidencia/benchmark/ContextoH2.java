@@ -0,0 +1,156 @@
+package com.evidencia.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.evidencia.config.AppConfig;
+import com.evidencia.config.ReplicasLectura;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.IndiceCodigos;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Contexto de Spring equivalente a AppConfig pero sobre una base de datos H2
+ * en memoria en modo MySQL. Se usa en los benchmarks que necesitan el camino
+ * completo Service → Repository → Hibernate → JDBC.
+ *
+ * Las opciones de verificador.properties se pueden sobrescribir con
+ * propiedades del sistema antes de crear el contexto (por ejemplo
+ * verificador.indice.habilitado=false para medir siempre la base de datos).
+ *
+ * Con verificador.h2.replica=true se crea una segunda base H2 como réplica de
+ * lectura, con el mismo enrutamiento que AppConfig (las transacciones de solo
+ * lectura van a la réplica). No hay replicación: iniciar() carga los mismos
+ * productos en las dos, pero lo que se escriba después solo llega a la
+ * primaria.
+ */
+@Configuration
+@ComponentScan(basePackages = {
+    "com.evidencia.service",
+    "com.evidencia.repository"
+})
+@EnableTransactionManagement
+@PropertySource("classpath:verificador.properties")
+public class ContextoH2 {
+
+    @Value("${verificador.cache-segundo-nivel.habilitada:false}")
+    private boolean cacheSegundoNivel;
+
+    @Value("${verificador.h2.replica:false}")
+    private boolean replica;
+
+    /**
+     * Crea el contexto y carga la tabla productos con códigos PROD000000...
+     *
+     * @param cantidad Número de productos
+     * @return Contexto iniciado (cerrarlo al terminar)
+     */
+    public static AnnotationConfigApplicationContext iniciar(int cantidad) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(ContextoH2.class);
+        context.refresh();
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        List<Object[]> filas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            filas.add(new Object[]{RepositorioEnMemoria.codigo(i), "Producto de prueba " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO productos (codigo, nombre) VALUES (?, ?)", filas);
+
+        ReplicasLectura replicas = context.getBean(ReplicasLectura.class);
+        if (replicas.isHabilitada()) {
+            JdbcTemplate jdbcReplica = new JdbcTemplate(replicas);
+            jdbcReplica.execute("DROP TABLE IF EXISTS productos");
+            jdbcReplica.execute("CREATE TABLE productos ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " codigo VARCHAR(50) NOT NULL UNIQUE,"
+                    + " nombre VARCHAR(100) NOT NULL,"
+                    + " fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            jdbcReplica.batchUpdate("INSERT INTO productos (codigo, nombre) VALUES (?, ?)", filas);
+        }
+
+        // El índice y el filtro se cargaron al arrancar, con la tabla vacía
+        context.getBean(IndiceCodigos.class).recargar();
+        context.getBean(FiltroBloomCodigos.class).reconstruir();
+        return context;
+    }
+
+    @Bean
+    public HikariDataSource dataSourcePrimaria() {
+        return pool("verificador", "HikariPool-Benchmark");
+    }
+
+    @Bean
+    public ReplicasLectura replicasLectura() {
+        List<HikariDataSource> replicas = replica
+                ? List.of(pool("verificador_replica", "HikariPool-Benchmark-Replica"))
+                : List.of();
+        return new ReplicasLectura(replicas, dataSourcePrimaria(), ReplicasLectura.Estrategia.ROUND_ROBIN, 5000);
+    }
+
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource(ReplicasLectura replicasLectura) {
+        if (!replicasLectura.isHabilitada()) {
+            return dataSourcePrimaria();
+        }
+        return AppConfig.enrutarLecturas(dataSourcePrimaria(), replicasLectura);
+    }
+
+    private static HikariDataSource pool(String baseDeDatos, String nombre) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + baseDeDatos + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(10);
+        config.setPoolName(nombre);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.evidencia.model");
+        em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.show_sql", "false");
+        properties.setProperty("hibernate.jdbc.batch_size", "20");
+        properties.putAll(AppConfig.propiedadesCacheSegundoNivel(cacheSegundoNivel));
+        em.setJpaProperties(properties);
+        return em;
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
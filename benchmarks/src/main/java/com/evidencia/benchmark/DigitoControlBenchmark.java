@@ -0,0 +1,126 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.service.AlgoritmoDigitoControl;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.IndiceCodigos;
+import com.evidencia.service.ProductoService;
+import com.evidencia.service.ReglasDigitoControl;
+import com.evidencia.service.SnapshotCodigos;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el dígito de control: cada algoritmo sobre un código válido, la
+ * validación por lotes de ReglasDigitoControl, y el rechazo completo en
+ * ProductoService.verificarCodigo frente a un código bien formado que sí
+ * llega al repositorio (en memoria, con índice y Bloom desactivados).
+ *
+ * Con -prof gc, gc.alloc.rate.norm debe ser 0 en esValido y validarLote.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class DigitoControlBenchmark {
+
+    private static final int CODIGOS = 1024;
+
+    @Param({"LUHN", "MOD11_2", "MOD37_2", "GS1"})
+    public AlgoritmoDigitoControl algoritmo;
+
+    private String[] validos;
+    private String[] invalidos;
+    private boolean[] resultados;
+    private ReglasDigitoControl reglas;
+    private ProductoService service;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        boolean alfanumerico = algoritmo == AlgoritmoDigitoControl.MOD37_2;
+        int longitud = algoritmo == AlgoritmoDigitoControl.GS1 ? 12 : 15;
+
+        validos = new String[CODIGOS];
+        invalidos = new String[CODIGOS];
+        for (int i = 0; i < CODIGOS; i++) {
+            StringBuilder datos = new StringBuilder();
+            for (int j = 0; j < longitud; j++) {
+                int v = random.nextInt(alfanumerico ? 36 : 10);
+                datos.append(Character.toUpperCase(Character.forDigit(v, 36)));
+            }
+            validos[i] = conControl(datos.toString());
+            char ultimo = validos[i].charAt(longitud);
+            invalidos[i] = datos.toString() + (ultimo == '0' ? '1' : '0');
+        }
+        resultados = new boolean[CODIGOS];
+
+        reglas = new ReglasDigitoControl("*=" + algoritmo.name());
+        RepositorioEnMemoria repositorio = new RepositorioEnMemoria(0);
+        service = new ProductoService(repositorio, new IndiceCodigos(repositorio, false, false),
+                new FiltroBloomCodigos(repositorio, false, 0.01, 10000), reglas,
+                new SnapshotCodigos(repositorio, "", false));
+    }
+
+    /**
+     * Añade el carácter de control que hace válido el código.
+     */
+    private String conControl(String datos) {
+        for (char c : "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray()) {
+            if (algoritmo.esValido(datos + c)) {
+                return datos + c;
+            }
+        }
+        // MOD 11-2 con control 10 ('X') o MOD 37-2 con control 36 ('*')
+        return conControl(datos.substring(1) + '1');
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CODIGOS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public boolean esValido(Posicion posicion) {
+        return algoritmo.esValido(validos[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public int validarLote() {
+        return reglas.validar(invalidos, resultados);
+    }
+
+    @Benchmark
+    public Optional<Producto> verificarCodigoRechazado(Posicion posicion) {
+        return service.verificarCodigo(invalidos[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public Optional<Producto> verificarCodigoValidoInexistente(Posicion posicion) {
+        return service.verificarCodigo(validos[posicion.avanzar()]);
+    }
+}
@@ -0,0 +1,104 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.repository.ProductoRepository;
+import com.evidencia.service.ProductoService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Altas por segundo con varios escritores a la vez (H2 en memoria, modo
+ * MySQL), todas de códigos nuevos:
+ *
+ * - existeYGuarda: el camino anterior de guardarProducto, existsByCodigo y
+ *   después save (persist), cada uno en su transacción
+ * - guardarProducto: un único INSERT que confía en la restricción UNIQUE
+ * - guardarOActualizar: INSERT ... ON DUPLICATE KEY UPDATE
+ * - guardarProductos: lotes de 100 con INSERT multi-fila (por producto)
+ *
+ * H2 en memoria no tiene red, así que la diferencia entre un viaje y varios
+ * es mucho menor que contra MySQL; sirve para comparar el trabajo de
+ * aplicación, transacción e Hibernate de cada camino.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dlogback.configurationFile=logback-benchmark.xml"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class InsercionBenchmark {
+
+    private static final int LOTE = 100;
+
+    private final AtomicLong siguiente = new AtomicLong();
+
+    private AnnotationConfigApplicationContext context;
+    private ProductoService service;
+    private ProductoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        context = ContextoH2.iniciar(10_000);
+        service = context.getBean(ProductoService.class);
+        repositorio = context.getBean(ProductoRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        context.close();
+    }
+
+    private Producto nuevo() {
+        long n = siguiente.incrementAndGet();
+        return new Producto("INS" + n, "Producto insertado " + n);
+    }
+
+    @Benchmark
+    public Producto existeYGuarda() {
+        Producto producto = nuevo();
+        if (repositorio.existsByCodigo(producto.getCodigo())) {
+            throw new IllegalStateException("Código repetido: " + producto.getCodigo());
+        }
+        return repositorio.save(producto);
+    }
+
+    @Benchmark
+    public Producto guardarProducto() {
+        return service.guardarProducto(nuevo());
+    }
+
+    @Benchmark
+    public boolean guardarOActualizar() {
+        return service.guardarOActualizarProducto(nuevo());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int guardarProductos() {
+        List<Producto> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            lote.add(nuevo());
+        }
+        return service.guardarProductos(lote);
+    }
+}
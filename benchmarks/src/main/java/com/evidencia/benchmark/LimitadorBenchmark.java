@@ -0,0 +1,87 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.service.LimitadorPeticiones;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coste por petición de LimitePeticionesFilter: LimitadorPeticiones.intentar
+ * con la clave del cliente, que es todo lo que el filtro hace además de leer
+ * la dirección remota.
+ *
+ * - clientes: direcciones distintas que se reparten las peticiones. Con más
+ *   clientes que maxClientes, cada petición de un cliente olvidado da de alta
+ *   su cubeta y provoca desalojos
+ * - tasa: peticiones/s por cliente. Con 1000000 casi todas se admiten; con 1
+ *   casi todas se rechazan tras la ráfaga
+ *
+ * Se ejecuta con 4 hilos para que haya contención sobre las mismas cubetas
+ * (con clientes=1, todas); se puede cambiar con -t.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dlogback.configurationFile=logback-benchmark.xml"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class LimitadorBenchmark {
+
+    private static final int CLAVES = 1 << 20;
+
+    @Param({"1", "10000", "1000000"})
+    public int clientes;
+
+    @Param({"1000000", "1"})
+    public double tasa;
+
+    private LimitadorPeticiones limitador;
+    private String[] claves;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        limitador = new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP, tasa, 100, 100_000);
+        claves = new String[Math.min(clientes, CLAVES)];
+        for (int i = 0; i < claves.length; i++) {
+            claves[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void informar() {
+        System.out.printf("%nadmitidas %d, rechazadas %d, clientes %d, desalojados %d%n",
+                limitador.getAdmitidas(), limitador.getRechazadas(), limitador.getClientes(),
+                limitador.getDesalojados());
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar(int tamano) {
+            // Recorrido con paso primo para no ir en orden
+            siguiente = (int) ((siguiente + 7919L) % tamano);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public long intentar(Posicion posicion) {
+        return limitador.intentar(claves[posicion.avanzar(claves.length)]);
+    }
+}
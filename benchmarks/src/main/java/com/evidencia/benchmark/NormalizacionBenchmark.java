@@ -0,0 +1,36 @@
+package com.evidencia.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la normalización de códigos que hace ProductoService
+ * (trim().toUpperCase()) con entradas ya normalizadas y con entradas que
+ * obligan a copiar la cadena.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class NormalizacionBenchmark {
+
+    @Param({"PROD000123", " prod000123 ", "prod000123"})
+    public String codigo;
+
+    @Benchmark
+    public String normalizar() {
+        return codigo.trim().toUpperCase();
+    }
+}
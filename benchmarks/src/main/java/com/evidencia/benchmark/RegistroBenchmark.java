@@ -0,0 +1,144 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.IndiceCodigos;
+import com.evidencia.service.ProductoService;
+import com.evidencia.service.RegistroAccesos;
+import com.evidencia.service.ReglasDigitoControl;
+import com.evidencia.service.SnapshotCodigos;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+
+/**
+ * Compara el coste del logging por petición con la configuración de
+ * desarrollo (logback.xml: DEBUG, appenders síncronos) y la de producción
+ * (logback-produccion.xml: INFO, appenders asíncronos con descarte y una
+ * línea de acceso muestreada).
+ *
+ * Cada operación reproduce lo que registra una petición a /verificarCodigo:
+ * la línea del servlet, ProductoService.verificarCodigo (sobre
+ * RepositorioEnMemoria) y la línea de RegistroAccesos. Corre con 8 hilos
+ * para que se note la contención en los appenders. Los archivos de log van a
+ * un directorio temporal y la consola a un archivo (como catalina.out).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@Threads(8)
+@State(Scope.Benchmark)
+public class RegistroBenchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    private static final Logger loggerServlet = LoggerFactory.getLogger("com.evidencia.servlets.CodigoServlet");
+
+    @Param({"logback.xml", "logback-produccion.xml"})
+    public String configuracion;
+
+    @Param({"1.0", "0.01"})
+    public double muestreo;
+
+    private ProductoService service;
+    private RegistroAccesos registroAccesos;
+    private String[] codigos;
+
+    private Path directorio;
+    private PrintStream salidaOriginal;
+    private PrintStream consola;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, JoranException {
+        directorio = Files.createTempDirectory("registro-benchmark");
+        System.setProperty("LOG_DIR", directorio.toString());
+        salidaOriginal = System.out;
+        consola = new PrintStream(new FileOutputStream(directorio.resolve("catalina.out").toFile()), false, "UTF-8");
+        System.setOut(consola);
+
+        LoggerContext contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+        contexto.reset();
+        JoranConfigurator configurador = new JoranConfigurator();
+        configurador.setContext(contexto);
+        configurador.doConfigure(RegistroBenchmark.class.getClassLoader().getResource(configuracion));
+
+        RepositorioEnMemoria repositorio = new RepositorioEnMemoria(10000);
+        IndiceCodigos indiceCodigos = new IndiceCodigos(repositorio, true, false);
+        FiltroBloomCodigos filtroBloom = new FiltroBloomCodigos(repositorio, true, 0.01, 10000);
+        indiceCodigos.alIniciar();
+        filtroBloom.alIniciar();
+        service = new ProductoService(repositorio, indiceCodigos, filtroBloom, new ReglasDigitoControl(""),
+                new SnapshotCodigos(repositorio, "", false));
+        registroAccesos = new RegistroAccesos(true, muestreo);
+
+        // Mitad existentes, mitad inexistentes
+        codigos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            int n = (int) ((i * 7919L) % 10000);
+            codigos[i] = (i & 1) == 0 ? RepositorioEnMemoria.codigo(n) : "NOX" + n;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void terminar() throws IOException {
+        // Vacía las colas de los AsyncAppender antes de borrar los archivos
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        System.setOut(salidaOriginal);
+        consola.close();
+        System.clearProperty("LOG_DIR");
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CONSULTAS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public Optional<Producto> peticion(Posicion posicion) {
+        long inicio = System.nanoTime();
+        String codigo = codigos[posicion.avanzar()];
+        loggerServlet.debug("Petición recibida para verificar código: {}", codigo);
+        Optional<Producto> producto = service.verificarCodigo(codigo);
+        registroAccesos.registrar("CodigoServlet", producto.isPresent() ? "encontrado" : "no_encontrado",
+                codigo, System.nanoTime() - inicio);
+        return producto;
+    }
+}
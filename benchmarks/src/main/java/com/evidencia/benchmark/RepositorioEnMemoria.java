@@ -0,0 +1,99 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.model.ResumenProducto;
+import com.evidencia.repository.ProductoRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Sustituto en memoria de ProductoRepository para medir la lógica de
+ * ProductoService sin base de datos. Solo implementa los métodos que usa la
+ * verificación; el resto hereda el comportamiento original (y fallaría por no
+ * tener EntityManager).
+ *
+ * findByCodigo y findResumenByCodigo devuelven un objeto nuevo en cada
+ * llamada, igual que hace Hibernate en una transacción nueva.
+ */
+public class RepositorioEnMemoria extends ProductoRepository {
+
+    private final Map<String, Producto> productos = new HashMap<>();
+
+    /**
+     * @param cantidad Número de productos (códigos PROD000000, PROD000001, ...)
+     */
+    public RepositorioEnMemoria(int cantidad) {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = new Producto(i + 1, codigo(i), "Producto de prueba " + i, ahora);
+            productos.put(producto.getCodigo(), producto);
+        }
+    }
+
+    /**
+     * @return el código del producto i-ésimo
+     */
+    public static String codigo(int i) {
+        return String.format("PROD%06d", i);
+    }
+
+    @Override
+    public Optional<Producto> findByCodigo(String codigo) {
+        Producto p = productos.get(codigo);
+        return p == null
+                ? Optional.empty()
+                : Optional.of(new Producto(p.getId(), p.getCodigo(), p.getNombre(), p.getFechaRegistro()));
+    }
+
+    @Override
+    public Optional<ResumenProducto> findResumenByCodigo(String codigo) {
+        Producto p = productos.get(codigo);
+        return p == null
+                ? Optional.empty()
+                : Optional.of(new ResumenProducto(p.getCodigo(), p.getNombre(), p.getFechaRegistro()));
+    }
+
+    @Override
+    public boolean existsByCodigo(String codigo) {
+        return productos.containsKey(codigo);
+    }
+
+    @Override
+    public long count() {
+        return productos.size();
+    }
+
+    @Override
+    public long forEachCodigo(int fetchSize, Consumer<String> consumidor) {
+        productos.keySet().forEach(consumidor);
+        return productos.size();
+    }
+
+    @Override
+    public long forEachCodigoYNombre(int fetchSize, BiConsumer<String, String> consumidor) {
+        for (Producto p : productos.values()) {
+            consumidor.accept(p.getCodigo(), p.getNombre());
+        }
+        return productos.size();
+    }
+
+    @Override
+    public List<Object[]> findCodigosYNombresByCodigos(Collection<String> codigos) {
+        List<Object[]> filas = new ArrayList<>();
+        for (String codigo : codigos) {
+            Producto p = productos.get(codigo);
+            if (p != null) {
+                filas.add(new Object[]{p.getCodigo(), p.getNombre()});
+            }
+        }
+        return filas;
+    }
+}
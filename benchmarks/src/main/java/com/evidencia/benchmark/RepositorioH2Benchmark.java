@@ -0,0 +1,119 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.model.ResumenProducto;
+import com.evidencia.repository.ProductoRepository;
+import com.evidencia.service.ProductoService;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Mide el camino completo hasta la base de datos (H2 en memoria, modo MySQL)
+ * con el índice y el filtro de Bloom desactivados, para que cada verificación
+ * llegue a Hibernate.
+ *
+ * Compara la hidratación de la entidad completa (findByCodigo) con las
+ * proyecciones: el resumen precompilado (findResumenByCodigo) y la de código
+ * y nombre por lotes (findCodigosYNombresByCodigos). existeCodigo mide la
+ * comprobación de existencia (SELECT 1 ... LIMIT 1).
+ *
+ * Con -p replica=true las lecturas pasan por el enrutamiento a una réplica
+ * H2 (ver ContextoH2), para medir su coste.
+ * No sustituye a una medición contra MySQL real, pero sí muestra el coste
+ * relativo de transacción, sesión e hidratación.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {
+    "-Dlogback.configurationFile=logback-benchmark.xml",
+    "-Dverificador.indice.habilitado=false",
+    "-Dverificador.bloom.habilitado=false"
+})
+@State(Scope.Benchmark)
+public class RepositorioH2Benchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    @Param({"10000"})
+    public int productos;
+
+    @Param({"false"})
+    public boolean replica;
+
+    private AnnotationConfigApplicationContext context;
+    private ProductoService service;
+    private ProductoRepository repositorio;
+    private String[] codigos;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        System.setProperty("verificador.h2.replica", String.valueOf(replica));
+        context = ContextoH2.iniciar(productos);
+        service = context.getBean(ProductoService.class);
+        repositorio = context.getBean(ProductoRepository.class);
+
+        codigos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            codigos[i] = RepositorioEnMemoria.codigo((int) ((i * 7919L) % productos));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CONSULTAS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public Optional<Producto> verificarCodigo(Posicion posicion) {
+        return service.verificarCodigo(codigos[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public Optional<Producto> entidadCompleta(Posicion posicion) {
+        return repositorio.findByCodigo(codigos[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public Optional<ResumenProducto> resumen(Posicion posicion) {
+        return repositorio.findResumenByCodigo(codigos[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public List<Object[]> proyeccionCodigoNombre(Posicion posicion) {
+        return repositorio.findCodigosYNombresByCodigos(List.of(codigos[posicion.avanzar()]));
+    }
+
+    @Benchmark
+    public boolean existeCodigo(Posicion posicion) {
+        return repositorio.existsByCodigo(codigos[posicion.avanzar()]);
+    }
+}
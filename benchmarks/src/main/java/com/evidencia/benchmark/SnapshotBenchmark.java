@@ -0,0 +1,105 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.service.IndiceCodigos;
+import com.evidencia.service.SnapshotCodigos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara la búsqueda en el snapshot mapeado en memoria (SnapshotCodigos)
+ * con el índice en memoria (IndiceCodigos). El snapshot se genera desde
+ * RepositorioEnMemoria en un archivo temporal.
+ *
+ * Con -prof gc, contiene y codigoInexistente deben quedar en ~0 B/op;
+ * nombreExistente solo asigna el String del nombre.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    @Param({"10000", "1000000"})
+    public int productos;
+
+    private SnapshotCodigos snapshot;
+    private IndiceCodigos indice;
+    private Path directorio;
+    private String[] existentes;
+    private String[] inexistentes;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        RepositorioEnMemoria repositorio = new RepositorioEnMemoria(productos);
+        directorio = Files.createTempDirectory("snapshot-benchmark");
+        snapshot = new SnapshotCodigos(repositorio, directorio.resolve("codigos.snap").toString(), true);
+        snapshot.regenerar();
+        indice = new IndiceCodigos(repositorio, true, false);
+        indice.alIniciar();
+
+        existentes = new String[CONSULTAS];
+        inexistentes = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            int n = (int) ((i * 7919L) % productos);
+            existentes[i] = RepositorioEnMemoria.codigo(n);
+            inexistentes[i] = "NOX" + String.format("%06d", n);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void terminar() throws IOException {
+        Files.deleteIfExists(directorio.resolve("codigos.snap"));
+        Files.deleteIfExists(directorio);
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CONSULTAS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public boolean contiene(Posicion posicion) {
+        return snapshot.contiene(existentes[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public String nombreExistente(Posicion posicion) {
+        return snapshot.buscarNombre(existentes[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public String codigoInexistente(Posicion posicion) {
+        return snapshot.buscarNombre(inexistentes[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public String indiceExistente(Posicion posicion) {
+        return indice.buscarNombre(existentes[posicion.avanzar()]);
+    }
+}
@@ -0,0 +1,124 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.service.TablaCodigosCompacta;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara TablaCodigosCompacta con un HashMap&lt;String, Producto&gt; (lo que
+ * costaría cachear las entidades) en memoria por entrada y en latencia de
+ * búsqueda.
+ *
+ * La memoria se mide como la diferencia de heap usado, tras un GC completo,
+ * antes y después de construir la estructura, y se imprime en la salida del
+ * benchmark ("bytes por entrada"). Es una medida aproximada pero suficiente
+ * para comparar órdenes de magnitud.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlogback.configurationFile=logback-benchmark.xml"})
+@State(Scope.Benchmark)
+public class TablaCompactaBenchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    @Param({"1000000"})
+    public int productos;
+
+    @Param({"mapa", "compacta"})
+    public String estructura;
+
+    private Map<String, Producto> mapa;
+    private TablaCodigosCompacta tabla;
+    private String[] existentes;
+    private String[] inexistentes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        long antes = heapUsado();
+        LocalDateTime ahora = LocalDateTime.now();
+        if (estructura.equals("mapa")) {
+            mapa = new HashMap<>();
+            for (int i = 0; i < productos; i++) {
+                // Cada Producto con su propio LocalDateTime, como los que crea Hibernate
+                Producto producto = new Producto(i + 1, RepositorioEnMemoria.codigo(i), "Producto de prueba " + i,
+                        ahora.plusNanos(i));
+                mapa.put(producto.getCodigo(), producto);
+            }
+        } else {
+            tabla = new TablaCodigosCompacta(productos);
+            for (int i = 0; i < productos; i++) {
+                tabla.agregar(RepositorioEnMemoria.codigo(i), "Producto de prueba " + i);
+            }
+        }
+        long bytes = heapUsado() - antes;
+        System.out.printf("%n%s: %d entradas, %.1f bytes por entrada%s%n", estructura, productos,
+                (double) bytes / productos,
+                tabla == null ? "" : String.format(" (%.1f según getBytes)", (double) tabla.getBytes() / productos));
+
+        existentes = new String[CONSULTAS];
+        inexistentes = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            int n = (int) ((i * 7919L) % productos);
+            existentes[i] = RepositorioEnMemoria.codigo(n);
+            inexistentes[i] = "NOX" + String.format("%06d", n);
+        }
+    }
+
+    private static long heapUsado() {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CONSULTAS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public boolean existe(Posicion posicion) {
+        String codigo = existentes[posicion.avanzar()];
+        return mapa != null ? mapa.containsKey(codigo) : tabla.contiene(codigo);
+    }
+
+    @Benchmark
+    public boolean noExiste(Posicion posicion) {
+        String codigo = inexistentes[posicion.avanzar()];
+        return mapa != null ? mapa.containsKey(codigo) : tabla.contiene(codigo);
+    }
+
+    @Benchmark
+    public String nombre(Posicion posicion) {
+        String codigo = existentes[posicion.avanzar()];
+        return mapa != null ? mapa.get(codigo).getNombre() : tabla.buscarNombre(codigo);
+    }
+}
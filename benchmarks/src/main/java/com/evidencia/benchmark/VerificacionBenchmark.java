@@ -0,0 +1,95 @@
+package com.evidencia.benchmark;
+
+import com.evidencia.model.Producto;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.IndiceCodigos;
+import com.evidencia.service.ProductoService;
+import com.evidencia.service.ReglasDigitoControl;
+import com.evidencia.service.SnapshotCodigos;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide ProductoService.verificarCodigo sin base de datos (RepositorioEnMemoria),
+ * para aislar el coste propio del servicio: normalización, filtro de Bloom,
+ * índice en memoria y agrupación de consultas en vuelo.
+ *
+ * Los códigos consultados incluyen minúsculas y espacios para que la
+ * normalización haga trabajo real, como con la entrada de un formulario.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class VerificacionBenchmark {
+
+    private static final int CONSULTAS = 1024;
+
+    @Param({"10000"})
+    public int productos;
+
+    @Param({"false", "true"})
+    public boolean indice;
+
+    @Param({"false", "true"})
+    public boolean bloom;
+
+    private ProductoService service;
+    private String[] existentes;
+    private String[] inexistentes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        RepositorioEnMemoria repositorio = new RepositorioEnMemoria(productos);
+        IndiceCodigos indiceCodigos = new IndiceCodigos(repositorio, indice, false);
+        FiltroBloomCodigos filtroBloom = new FiltroBloomCodigos(repositorio, bloom, 0.01, 10000);
+        indiceCodigos.alIniciar();
+        filtroBloom.alIniciar();
+        service = new ProductoService(repositorio, indiceCodigos, filtroBloom, new ReglasDigitoControl(""),
+                new SnapshotCodigos(repositorio, "", false));
+
+        existentes = new String[CONSULTAS];
+        inexistentes = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            int n = (int) ((i * 7919L) % productos);
+            existentes[i] = " " + RepositorioEnMemoria.codigo(n).toLowerCase() + " ";
+            inexistentes[i] = " nox" + String.format("%06d", n) + " ";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int siguiente;
+
+        int avanzar() {
+            siguiente = (siguiente + 1) & (CONSULTAS - 1);
+            return siguiente;
+        }
+    }
+
+    @Benchmark
+    public Optional<Producto> codigoExistente(Posicion posicion) {
+        return service.verificarCodigo(existentes[posicion.avanzar()]);
+    }
+
+    @Benchmark
+    public Optional<Producto> codigoInexistente(Posicion posicion) {
+        return service.verificarCodigo(inexistentes[posicion.avanzar()]);
+    }
+}
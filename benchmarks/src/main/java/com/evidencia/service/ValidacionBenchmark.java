@@ -0,0 +1,55 @@
+package com.evidencia.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la validación de datos de producto (ProductoService.validarDatos).
+ * Está en el paquete com.evidencia.service porque validarDatos es de paquete.
+ *
+ * Incluye como referencia la misma comprobación alfanumérica con String.matches
+ * (compila la expresión en cada llamada) y con un Pattern precompilado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class ValidacionBenchmark {
+
+    private static final Pattern ALFANUMERICO = Pattern.compile("[A-Za-z0-9]+");
+
+    @Param({"PROD000123", "PROD-000123"})
+    public String codigo;
+
+    public String nombre = "Producto de prueba";
+
+    private final ReglasDigitoControl sinReglas = new ReglasDigitoControl("");
+
+    @Benchmark
+    public String validarDatos() {
+        return ProductoService.validarDatos(codigo, nombre, sinReglas);
+    }
+
+    @Benchmark
+    public boolean stringMatches() {
+        return codigo.matches("[A-Za-z0-9]+");
+    }
+
+    @Benchmark
+    public boolean patternPrecompilado() {
+        return ALFANUMERICO.matcher(codigo).matches();
+    }
+}
@@ -0,0 +1,81 @@
+package com.evidencia.carga;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * API de estudiantes simulada para /apiProxy: responde un JSON pequeño tras
+ * un retardo fijo, que hace de latencia de la API real.
+ *
+ * - /api.php[?id=N]       API pública
+ * - /api2.php[/N]         API protegida (exige X-API-KEY)
+ */
+final class ApiSimulada implements AutoCloseable {
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+
+    /**
+     * @param retardoMs Retardo de cada respuesta
+     */
+    ApiSimulada(long retardoMs) throws IOException {
+        hilos = Executors.newCachedThreadPool();
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        servidor.setExecutor(hilos);
+        servidor.createContext("/api.php", intercambio -> responder(intercambio, retardoMs, false));
+        servidor.createContext("/api2.php", intercambio -> responder(intercambio, retardoMs, true));
+        servidor.start();
+    }
+
+    private static void responder(HttpExchange intercambio, long retardoMs, boolean protegida) throws IOException {
+        try (intercambio) {
+            if (retardoMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(retardoMs);
+            }
+            if (protegida && intercambio.getRequestHeaders().getFirst("X-API-KEY") == null) {
+                enviar(intercambio, 401, "{\"error\":\"API key requerida\"}");
+                return;
+            }
+            String consulta = intercambio.getRequestURI().getRawQuery();
+            String ruta = intercambio.getRequestURI().getPath();
+            String id = protegida && ruta.length() > "/api2.php/".length()
+                    ? ruta.substring("/api2.php/".length())
+                    : (consulta != null && consulta.startsWith("id=") ? consulta.substring(3) : null);
+            enviar(intercambio, 200, id == null
+                    ? "[{\"id\":1,\"nombre\":\"Estudiante 1\"},{\"id\":2,\"nombre\":\"Estudiante 2\"}]"
+                    : "{\"id\":\"" + id.replace("\"", "") + "\",\"nombre\":\"Estudiante " + id.replace("\"", "") + "\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void enviar(HttpExchange intercambio, int estado, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    /**
+     * @return URL base (http://localhost:puerto)
+     */
+    String getUrl() {
+        return "http://localhost:" + servidor.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+    }
+}
@@ -0,0 +1,114 @@
+package com.evidencia.carga;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+import org.h2.tools.Server;
+
+/**
+ * Base de datos H2 en memoria, en modo MySQL, servida por TCP para que el WAR
+ * se conecte a ella por la red como lo haría con MySQL.
+ *
+ * El esquema y los productos de ejemplo salen de database/productos.sql; a
+ * continuación se agregan los productos de carga (CARGA00000001,
+ * CARGA00000002, ...) con un único INSERT ... SELECT.
+ */
+final class BaseDatosCarga implements AutoCloseable {
+
+    private static final String BASE = "verificador_codigos";
+
+    private final Server servidor;
+    private final String url;
+
+    private BaseDatosCarga(Server servidor, String url) {
+        this.servidor = servidor;
+        this.url = url;
+    }
+
+    /**
+     * Arranca el servidor, crea el esquema y carga los productos.
+     *
+     * @param script database/productos.sql
+     * @param productos Productos de carga a generar
+     * @return Base de datos iniciada
+     */
+    static BaseDatosCarga iniciar(Path script, long productos) throws SQLException, IOException {
+        Server servidor = Server.createTcpServer("-tcpPort", String.valueOf(puertoLibre()), "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:" + BASE
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        BaseDatosCarga base = new BaseDatosCarga(servidor, url);
+        try (Connection conexion = DriverManager.getConnection(url, "sa", "")) {
+            ejecutarScript(conexion, script);
+
+            long inicio = System.nanoTime();
+            try (PreparedStatement insert = conexion.prepareStatement(
+                    "INSERT INTO productos (codigo, nombre)"
+                    + " SELECT CONCAT('CARGA', LPAD(\"X\", 8, '0')), CONCAT('Producto de carga ', \"X\")"
+                    + " FROM SYSTEM_RANGE(1, ?)")) {
+                insert.setLong(1, productos);
+                insert.executeUpdate();
+            }
+            System.out.printf("Base de datos: %d productos de carga en %d ms (%s)%n",
+                    productos, (System.nanoTime() - inicio) / 1_000_000, url);
+        } catch (SQLException | IOException | RuntimeException e) {
+            base.close();
+            throw e;
+        }
+        return base;
+    }
+
+    /**
+     * Ejecuta las sentencias del script, salvo las que no aplican a una base
+     * H2 ya creada (CREATE DATABASE, USE) y las consultas de comprobación.
+     */
+    private static void ejecutarScript(Connection conexion, Path script) throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder();
+        for (String linea : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+            int comentario = linea.indexOf("--");
+            sql.append(comentario >= 0 ? linea.substring(0, comentario) : linea).append('\n');
+        }
+        try (Statement sentencia = conexion.createStatement()) {
+            for (String parte : sql.toString().split(";")) {
+                String texto = parte.strip();
+                String inicio = texto.toUpperCase(Locale.ROOT);
+                if (texto.isEmpty() || inicio.startsWith("CREATE DATABASE") || inicio.startsWith("USE ")
+                        || inicio.startsWith("SELECT")) {
+                    continue;
+                }
+                sentencia.execute(texto);
+            }
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * @param i Número de producto de carga (1..productos)
+     * @return su código
+     */
+    static String codigo(long i) {
+        return String.format("CARGA%08d", i);
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    @Override
+    public void close() {
+        servidor.stop();
+    }
+}
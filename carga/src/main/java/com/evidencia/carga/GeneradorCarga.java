@@ -0,0 +1,168 @@
+package com.evidencia.carga;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Generador de carga de modelo abierto: las peticiones salen a la tasa
+ * indicada, con llegadas de Poisson (o a intervalos fijos), sin esperar a
+ * que terminen las anteriores. Si la aplicación se satura, las peticiones se
+ * acumulan y la latencia crece, como con usuarios reales.
+ *
+ * La latencia se mide desde el instante en que la petición debía salir, no
+ * desde que salió: si el propio generador se retrasa, ese retraso cuenta
+ * (sin "coordinated omission").
+ *
+ * Solo se registran las peticiones programadas dentro de la ventana de
+ * medición (después del calentamiento).
+ */
+final class GeneradorCarga {
+
+    private final String nombre;
+    private final HttpClient cliente;
+    private final double tasaPorSegundo;
+    private final boolean poisson;
+    private final Supplier<HttpRequest> peticiones;
+    private final int maxEnVuelo;
+    private final Semaphore enVuelo;
+
+    private final Histogram latencias = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> estados = new ConcurrentHashMap<>();
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+
+    /**
+     * @param nombre Nombre del endpoint en el informe
+     * @param cliente Cliente HTTP compartido
+     * @param tasaPorSegundo Peticiones por segundo
+     * @param poisson true para llegadas de Poisson, false para intervalos fijos
+     * @param peticiones Crea cada petición
+     * @param maxEnVuelo Máximo de peticiones sin respuesta; las que superen el
+     * límite no se envían y cuentan como descartadas
+     */
+    GeneradorCarga(String nombre, HttpClient cliente, double tasaPorSegundo, boolean poisson,
+            Supplier<HttpRequest> peticiones, int maxEnVuelo) {
+        this.nombre = nombre;
+        this.cliente = cliente;
+        this.tasaPorSegundo = tasaPorSegundo;
+        this.poisson = poisson;
+        this.peticiones = peticiones;
+        this.maxEnVuelo = maxEnVuelo;
+        this.enVuelo = new Semaphore(maxEnVuelo);
+    }
+
+    /**
+     * Genera carga hasta fin (System.nanoTime()). Bloquea el hilo que llama.
+     *
+     * @param inicioMedicion Instante a partir del cual se registran resultados
+     * @param fin Instante en que se deja de generar
+     */
+    void ejecutar(long inicioMedicion, long fin) {
+        if (tasaPorSegundo <= 0) {
+            return;
+        }
+        double intervaloMedio = 1_000_000_000.0 / tasaPorSegundo;
+        long programada = System.nanoTime();
+        while (programada < fin) {
+            long espera = programada - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            enviar(programada, programada >= inicioMedicion);
+            programada += poisson
+                    ? (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * intervaloMedio)
+                    : (long) intervaloMedio;
+        }
+    }
+
+    private void enviar(long programada, boolean medir) {
+        if (medir) {
+            enviadas.increment();
+        }
+        if (!enVuelo.tryAcquire()) {
+            if (medir) {
+                descartadas.increment();
+            }
+            return;
+        }
+        cliente.sendAsync(peticiones.get(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((respuesta, error) -> {
+                    enVuelo.release();
+                    if (!medir) {
+                        return;
+                    }
+                    latencias.recordValue(System.nanoTime() - programada);
+                    if (error != null) {
+                        fallos.increment();
+                    } else {
+                        estados.computeIfAbsent(respuesta.statusCode(), e -> new LongAdder()).increment();
+                    }
+                });
+    }
+
+    /**
+     * Espera a que terminen las peticiones en vuelo.
+     *
+     * @param maxEsperaNanos Espera máxima
+     */
+    void esperarEnVuelo(long maxEsperaNanos) throws InterruptedException {
+        if (enVuelo.tryAcquire(maxEnVuelo, maxEsperaNanos, TimeUnit.NANOSECONDS)) {
+            enVuelo.release(maxEnVuelo);
+        }
+    }
+
+    /**
+     * Escribe el informe del endpoint.
+     *
+     * @param salida Destino
+     * @param segundosMedidos Duración de la ventana de medición
+     */
+    void informar(PrintStream salida, double segundosMedidos) {
+        long completadas = latencias.getTotalCount() - fallos.sum();
+        salida.printf("%n== %s (%.0f/s objetivo, llegadas %s) ==%n", nombre, tasaPorSegundo,
+                poisson ? "Poisson" : "constantes");
+        salida.printf("enviadas %d, respondidas %d, fallos %d, descartadas %d%n",
+                enviadas.sum(), completadas, fallos.sum(), descartadas.sum());
+        salida.printf("throughput %.1f respuestas/s%n", completadas / segundosMedidos);
+        StringBuilder porEstado = new StringBuilder();
+        new TreeMap<>(estados).forEach((estado, n) -> porEstado.append(' ').append(estado).append('=').append(n.sum()));
+        salida.printf("estados HTTP:%s%n", porEstado);
+        if (latencias.getTotalCount() > 0) {
+            salida.printf("latencia ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    ms(latencias.getValueAtPercentile(50)), ms(latencias.getValueAtPercentile(90)),
+                    ms(latencias.getValueAtPercentile(99)), ms(latencias.getValueAtPercentile(99.9)),
+                    ms(latencias.getMaxValue()));
+        }
+    }
+
+    /**
+     * Escribe la distribución completa de latencias (formato .hgrm de
+     * HdrHistogram, en milisegundos).
+     */
+    void escribirDistribucion(PrintStream salida) {
+        latencias.outputPercentileDistribution(salida, 1_000_000.0);
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.evidencia.carga;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tiempo de espera por una conexión de HikariCP, leído de las métricas
+ * Prometheus de la aplicación (/metricas):
+ *
+ * - hikaricp_connections_acquire_seconds: count, sum, max y cuantiles
+ *   p50/p95/p99 (ventana móvil de la aplicación)
+ * - hikaricp_connections_pending: hilos esperando conexión, muestreado
+ *   durante la prueba para quedarse con el máximo
+ *
+ * count y sum se restan entre el inicio y el fin de la medición.
+ */
+final class MetricasHikari {
+
+    private static final String ESPERA = "hikaricp_connections_acquire_seconds";
+    private static final String PENDIENTES = "hikaricp_connections_pending";
+
+    private final HttpClient cliente;
+    private final URI metricas;
+
+    private Map<String, Double> inicio = Map.of();
+    private Map<String, Double> fin = Map.of();
+    private final Map<String, Double> maxPendientes = new ConcurrentHashMap<>();
+
+    MetricasHikari(HttpClient cliente, URI metricas) {
+        this.cliente = cliente;
+        this.metricas = metricas;
+    }
+
+    void marcarInicio() throws IOException, InterruptedException {
+        inicio = leer();
+    }
+
+    void marcarFin() throws IOException, InterruptedException {
+        fin = leer();
+    }
+
+    /**
+     * Guarda el máximo de hilos esperando conexión en cada pool.
+     */
+    void muestrearPendientes() {
+        try {
+            leer().forEach((clave, valor) -> {
+                if (clave.startsWith(PENDIENTES + "{")) {
+                    maxPendientes.merge(pool(clave), valor, Math::max);
+                }
+            });
+        } catch (IOException e) {
+            // Una muestra perdida no invalida la prueba
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return líneas "nombre{etiquetas}" → valor de las métricas de HikariCP
+     */
+    private Map<String, Double> leer() throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(metricas).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Map<String, Double> valores = new TreeMap<>();
+        for (String linea : respuesta.body().split("\n")) {
+            if (!linea.startsWith("hikaricp_")) {
+                continue;
+            }
+            int espacio = linea.lastIndexOf(' ');
+            try {
+                valores.put(linea.substring(0, espacio), Double.valueOf(linea.substring(espacio + 1)));
+            } catch (NumberFormatException e) {
+                // NaN y similares no interesan
+            }
+        }
+        return valores;
+    }
+
+    void informar(PrintStream salida) {
+        TreeSet<String> pools = new TreeSet<>();
+        fin.keySet().stream().filter(c -> c.startsWith(ESPERA + "_count{")).map(MetricasHikari::pool)
+                .forEach(pools::add);
+        for (String pool : pools) {
+            String etiqueta = "{pool=\"" + pool + "\",}";
+            double conexiones = diferencia(ESPERA + "_count" + etiqueta);
+            double segundos = diferencia(ESPERA + "_sum" + etiqueta);
+            salida.printf("%n== Espera por conexión: %s ==%n", pool);
+            salida.printf("conexiones obtenidas %.0f, espera media %.3f ms, max %.2f ms%n",
+                    conexiones, conexiones > 0 ? segundos * 1000 / conexiones : 0,
+                    fin.getOrDefault(ESPERA + "_max" + etiqueta, 0.0) * 1000);
+            salida.printf("p50 %.3f ms  p95 %.3f ms  p99 %.3f ms (ventana de la aplicación)%n",
+                    cuantil(pool, "0.5"), cuantil(pool, "0.95"), cuantil(pool, "0.99"));
+            salida.printf("máximo de hilos esperando conexión: %.0f%n", maxPendientes.getOrDefault(pool, 0.0));
+        }
+    }
+
+    private double diferencia(String clave) {
+        return fin.getOrDefault(clave, 0.0) - inicio.getOrDefault(clave, 0.0);
+    }
+
+    private double cuantil(String pool, String cuantil) {
+        return fin.getOrDefault(ESPERA + "{pool=\"" + pool + "\",quantile=\"" + cuantil + "\",}", 0.0) * 1000;
+    }
+
+    private static String pool(String clave) {
+        int desde = clave.indexOf("pool=\"") + "pool=\"".length();
+        return clave.substring(desde, clave.indexOf('"', desde));
+    }
+}
@@ -0,0 +1,210 @@
+package com.evidencia.carga;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+
+/**
+ * Prueba de carga de extremo a extremo: WAR en Tomcat embebido, base H2
+ * embebida (BaseDatosCarga) y API de estudiantes simulada (ApiSimulada).
+ * Envía carga de modelo abierto a /verificarCodigo y /apiProxy
+ * (GeneradorCarga) e informa throughput, percentiles de latencia y espera
+ * por conexión de HikariCP (MetricasHikari).
+ *
+ * Se configura con propiedades del sistema (valor por defecto entre
+ * paréntesis):
+ *
+ * - carga.war (../target/verificador-codigos.war)
+ * - carga.script (../database/productos.sql)
+ * - carga.productos (1000000): productos de carga además de los del script
+ * - carga.calentamiento-s (10) y carga.duracion-s (30)
+ * - carga.tasa.verificar (200) y carga.tasa.proxy (50): peticiones/s
+ * - carga.existentes (0.5): fracción de códigos verificados que existen
+ * - carga.llegadas (poisson): poisson o constantes
+ * - carga.proxy.modo (public) y carga.proxy.ids (1000): ids distintos
+ *   consultados, para controlar la tasa de aciertos de la caché del proxy
+ * - carga.api.retardo-ms (20): latencia de la API simulada
+ * - carga.max-en-vuelo (5000) y carga.timeout-ms (10000)
+ * - carga.tomcat.max-hilos (200)
+ * - carga.hgrm (vacío): directorio donde escribir la distribución completa
+ *   de latencias de cada endpoint
+ *
+ * Las opciones de la aplicación (verificador.*) se pasan igual, por ejemplo
+ * -Dverificador.indice.habilitado=false para que todas las verificaciones
+ * lleguen a la base de datos.
+ */
+public final class PruebaCarga {
+
+    private static final String CONTEXTO = "/verificador-codigos";
+
+    private PruebaCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path war = Paths.get(System.getProperty("carga.war", "../target/verificador-codigos.war"));
+        Path script = Paths.get(System.getProperty("carga.script", "../database/productos.sql"));
+        long productos = Long.getLong("carga.productos", 1_000_000);
+        long calentamientoS = Long.getLong("carga.calentamiento-s", 10);
+        long duracionS = Long.getLong("carga.duracion-s", 30);
+        double tasaVerificar = Double.parseDouble(System.getProperty("carga.tasa.verificar", "200"));
+        double tasaProxy = Double.parseDouble(System.getProperty("carga.tasa.proxy", "50"));
+        double existentes = Double.parseDouble(System.getProperty("carga.existentes", "0.5"));
+        boolean poisson = !"constantes".equals(System.getProperty("carga.llegadas", "poisson"));
+        String modoProxy = System.getProperty("carga.proxy.modo", "public");
+        int idsProxy = Integer.getInteger("carga.proxy.ids", 1000);
+        long retardoApiMs = Long.getLong("carga.api.retardo-ms", 20);
+        int maxEnVuelo = Integer.getInteger("carga.max-en-vuelo", 5000);
+        Duration timeout = Duration.ofMillis(Long.getLong("carga.timeout-ms", 10_000));
+        String directorioHgrm = System.getProperty("carga.hgrm", "");
+
+        if (!Files.isRegularFile(war)) {
+            throw new IllegalStateException("No existe el WAR " + war.toAbsolutePath()
+                    + " (mvn -f ../pom.xml package -DskipTests)");
+        }
+        Path trabajo = Files.createTempDirectory("carga");
+
+        try (BaseDatosCarga base = BaseDatosCarga.iniciar(script, productos);
+                ApiSimulada api = new ApiSimulada(retardoApiMs)) {
+
+            // Configuración de la aplicación (salvo lo que se haya pasado con -D)
+            System.getProperties().putIfAbsent("verificador.db.url", base.getUrl());
+            System.getProperties().putIfAbsent("verificador.db.usuario", "sa");
+            System.getProperties().putIfAbsent("verificador.db.password", "");
+            System.getProperties().putIfAbsent("verificador.db.driver", "org.h2.Driver");
+            System.getProperties().putIfAbsent("verificador.db.dialecto", "org.hibernate.dialect.H2Dialect");
+            System.getProperties().putIfAbsent("verificador.proxy.url-publica", api.getUrl() + "/api.php");
+            System.getProperties().putIfAbsent("verificador.proxy.url-privada", api.getUrl() + "/api2.php");
+            System.getProperties().putIfAbsent("logback.configurationFile", "logback-produccion.xml");
+            System.getProperties().putIfAbsent("LOG_DIR", trabajo.resolve("logs").toString());
+
+            Tomcat tomcat = iniciarTomcat(war, trabajo);
+            try {
+                String raiz = "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXTO;
+                System.out.println("Aplicación en " + raiz + " (logs en " + trabajo.resolve("logs") + ")");
+
+                HttpClient cliente = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                URI verificar = URI.create(raiz + "/verificarCodigo");
+
+                List<GeneradorCarga> generadores = List.of(
+                        new GeneradorCarga("POST /verificarCodigo", cliente, tasaVerificar, poisson, () -> {
+                            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                            String codigo = aleatorio.nextDouble() < existentes
+                                    ? BaseDatosCarga.codigo(1 + aleatorio.nextLong(Math.max(1, productos)))
+                                    : "NOEXISTE" + aleatorio.nextInt(1_000_000_000);
+                            return HttpRequest.newBuilder(verificar)
+                                    .timeout(timeout)
+                                    .header("Content-Type", "application/x-www-form-urlencoded")
+                                    .POST(HttpRequest.BodyPublishers.ofString("codigo=" + codigo))
+                                    .build();
+                        }, maxEnVuelo),
+                        new GeneradorCarga("GET /apiProxy", cliente, tasaProxy, poisson, () -> {
+                            int id = 1 + ThreadLocalRandom.current().nextInt(idsProxy);
+                            return HttpRequest.newBuilder(URI.create(raiz + "/apiProxy?mode=" + modoProxy + "&id=" + id))
+                                    .timeout(timeout)
+                                    .build();
+                        }, maxEnVuelo));
+
+                ejecutar(generadores, new MetricasHikari(cliente, URI.create(raiz + "/metricas")),
+                        calentamientoS, duracionS, timeout, directorioHgrm);
+            } finally {
+                tomcat.stop();
+                tomcat.destroy();
+            }
+        }
+        // Hilos no daemon de Tomcat y del cliente HTTP
+        System.exit(0);
+    }
+
+    private static Tomcat iniciarTomcat(Path war, Path trabajo) throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(trabajo.toString());
+        // Tomcat expande el WAR en webapps/
+        Files.createDirectories(trabajo.resolve("webapps"));
+        tomcat.setPort(0);
+        Connector conector = tomcat.getConnector();
+        conector.setProperty("maxThreads", System.getProperty("carga.tomcat.max-hilos", "200"));
+        Context contexto = tomcat.addWebapp(CONTEXTO, war.toAbsolutePath().toString());
+        tomcat.start();
+        if (contexto.getState() != LifecycleState.STARTED) {
+            tomcat.stop();
+            throw new IllegalStateException("La aplicación no arrancó; ver el log de Tomcat y " + trabajo.resolve("logs"));
+        }
+        return tomcat;
+    }
+
+    private static void ejecutar(List<GeneradorCarga> generadores, MetricasHikari metricas, long calentamientoS,
+            long duracionS, Duration timeout, String directorioHgrm) throws Exception {
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + TimeUnit.SECONDS.toNanos(calentamientoS);
+        long fin = inicioMedicion + TimeUnit.SECONDS.toNanos(duracionS);
+        System.out.printf("Calentamiento %d s, medición %d s...%n", calentamientoS, duracionS);
+
+        ScheduledExecutorService muestreo = Executors.newSingleThreadScheduledExecutor();
+        muestreo.schedule(() -> {
+            try {
+                metricas.marcarInicio();
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo leer /metricas", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }, calentamientoS, TimeUnit.SECONDS);
+        muestreo.scheduleAtFixedRate(metricas::muestrearPendientes, calentamientoS * 1000, 500, TimeUnit.MILLISECONDS);
+
+        List<Thread> hilos = new ArrayList<>();
+        for (GeneradorCarga generador : generadores) {
+            Thread hilo = new Thread(() -> generador.ejecutar(inicioMedicion, fin), "carga-" + generador.getNombre());
+            hilo.start();
+            hilos.add(hilo);
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        for (GeneradorCarga generador : generadores) {
+            generador.esperarEnVuelo(timeout.toNanos());
+        }
+        muestreo.shutdownNow();
+        metricas.marcarFin();
+
+        PrintStream salida = System.out;
+        salida.printf("%n######## Resultados (%d s medidos) ########%n", duracionS);
+        for (GeneradorCarga generador : generadores) {
+            generador.informar(salida, duracionS);
+        }
+        metricas.informar(salida);
+
+        if (!directorioHgrm.isBlank()) {
+            Files.createDirectories(Paths.get(directorioHgrm));
+            for (GeneradorCarga generador : generadores) {
+                File archivo = Paths.get(directorioHgrm,
+                        generador.getNombre().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm").toFile();
+                try (PrintStream hgrm = new PrintStream(archivo, "UTF-8")) {
+                    generador.escribirDistribucion(hgrm);
+                }
+                salida.println("Distribución de latencias: " + archivo);
+            }
+        }
+    }
+}
@@ -11,9 +11,14 @@ CREATE TABLE IF NOT EXISTS productos (
     id INT AUTO_INCREMENT PRIMARY KEY,
     codigo VARCHAR(50) NOT NULL UNIQUE,
     nombre VARCHAR(100) NOT NULL,
-    fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Índice para la paginación por cursor del catálogo (ORDER BY nombre, id)
+    INDEX idx_productos_nombre_id (nombre, id)
 );
 
+-- En una base de datos ya creada, agregar el índice con:
+-- ALTER TABLE productos ADD INDEX idx_productos_nombre_id (nombre, id);
+
 -- Insertar datos de ejemplo
 INSERT INTO productos (codigo, nombre) VALUES 
 ('PROD001', 'Laptop Dell XPS 15'),
@@ -1,21 +1,38 @@
 package com.evidencia.config;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
 
 /**
@@ -27,6 +44,9 @@ import jakarta.persistence.EntityManagerFactory;
  * @Repository, etc.)
  * @EnableTransactionManagement habilita el manejo de transacciones con
  * @Transactional
+ * @PropertySource carga las opciones de la aplicación desde
+ * verificador.properties
+ * @Import añade la configuración de métricas (MetricasConfig)
  *
  * @author Tu Nombre
  * @version 2.0
@@ -39,8 +59,75 @@ import jakarta.persistence.EntityManagerFactory;
     "com.evidencia.controller"
 })
 @EnableTransactionManagement // Habilita @Transactional
+@PropertySource("classpath:verificador.properties")
+@Import(MetricasConfig.class)
 public class AppConfig {
 
+    /**
+     * Máximo de conexiones del pool. También dimensiona el executor de
+     * verificaciones asíncronas (no tiene sentido tener más hilos consultando
+     * que conexiones disponibles).
+     */
+    @Value("${verificador.db.max-conexiones:10}")
+    private int maxConexiones;
+
+    /**
+     * Espera máxima por una conexión del pool de la primaria.
+     */
+    @Value("${verificador.db.timeout-conexion-ms:30000}")
+    private long timeoutConexionMs;
+
+    /**
+     * Servidor MySQL de la base de datos primaria (host:puerto).
+     */
+    @Value("${verificador.db.host:localhost:3306}")
+    private String hostPrimaria;
+
+    /**
+     * URL JDBC completa de la primaria. Vacía = la URL de MySQL de
+     * urlJdbc(hostPrimaria). Permite apuntar la aplicación a otra base de
+     * datos (por ejemplo la H2 embebida del módulo carga/).
+     */
+    @Value("${verificador.db.url:}")
+    private String urlPrimaria;
+
+    @Value("${verificador.db.usuario:root}")
+    private String usuario;
+
+    @Value("${verificador.db.password:c24n8pmrsql}")
+    private String password;
+
+    @Value("${verificador.db.driver:com.mysql.cj.jdbc.Driver}")
+    private String driver;
+
+    /**
+     * Dialecto de Hibernate (debe corresponder a verificador.db.url).
+     */
+    @Value("${verificador.db.dialecto:org.hibernate.dialect.MySQLDialect}")
+    private String dialecto;
+
+    /**
+     * Si Hibernate imprime cada sentencia SQL en la salida estándar
+     * (show_sql). Se escribe de forma síncrona en cada consulta, así que en
+     * producción debe quedar desactivado.
+     */
+    @Value("${verificador.log.sql:false}")
+    private boolean logSql;
+
+    /**
+     * Caché de segundo nivel de Hibernate para Producto y su natural id
+     * (codigo). Ver ehcache.xml.
+     */
+    @Value("${verificador.cache-segundo-nivel.habilitada:false}")
+    private boolean cacheSegundoNivel;
+
+    /**
+     * Registro de métricas (ver MetricasConfig). HikariCP publica en él el
+     * estado del pool.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
      * Configuración del DataSource (fuente de datos) usando HikariCP. HikariCP
      * es un connection pool de alto rendimiento.
@@ -51,32 +138,203 @@ public class AppConfig {
      * Connection Pool: Mantiene conexiones abiertas reutilizables En lugar de
      * abrir/cerrar conexión en cada petición: - Abre un pool de N conexiones al
      * iniciar - Las reutiliza entre peticiones - Mucho más eficiente
+     *
+     * Este es el pool de la base de datos primaria (escrituras). El que usa la
+     * aplicación es dataSource(), que reparte las conexiones entre los pools
+     * de cada clase de carga (poolesPorCarga) y además puede enviar las
+     * lecturas a las réplicas.
      */
     @Bean
-    public DataSource dataSource() {
+    public HikariDataSource dataSourcePrimaria() {
+        return new HikariDataSource(configPool(urlPrimaria(), "HikariPool-VerificadorCodigos",
+                maxConexiones, timeoutConexionMs));
+    }
+
+    /**
+     * Configuración común de los pools HikariCP.
+     *
+     * @param url URL JDBC
+     * @param nombre Nombre del pool (para logs y como etiqueta "pool" de las
+     * métricas)
+     * @param maxConexionesPool Máximo de conexiones
+     * @param timeoutConexion Espera máxima por una conexión, en ms
+     * @return Configuración del pool
+     */
+    private HikariConfig configPool(String url, String nombre, int maxConexionesPool, long timeoutConexion) {
         HikariConfig config = new HikariConfig();
 
-        // Configuración de conexión a MySQL
-        config.setJdbcUrl("jdbc:mysql://localhost:3306/verificador_codigos?allowPublicKeyRetrieval=true&useSSL=false");
-        config.setUsername("root");
-        config.setPassword("c24n8pmrsql"); // ⚠️ CAMBIAR según tu configuración
-        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        // Configuración de conexión a MySQL (verificador.db.* en verificador.properties)
+        config.setJdbcUrl(url);
+        config.setUsername(usuario);
+        config.setPassword(password);
+        config.setDriverClassName(driver);
 
         // Configuración del pool de conexiones
-        config.setMaximumPoolSize(10);         // Máximo 10 conexiones
-        config.setMinimumIdle(2);              // Mínimo 2 conexiones inactivas
-        config.setConnectionTimeout(30000);     // 30 segundos timeout
+        config.setMaximumPoolSize(maxConexionesPool);
+        config.setMinimumIdle(Math.min(2, maxConexionesPool)); // Hasta 2 conexiones inactivas
+        config.setConnectionTimeout(timeoutConexion);
         config.setIdleTimeout(600000);          // 10 minutos idle
         config.setMaxLifetime(1800000);         // 30 minutos máximo de vida
 
         // Configuración de validación de conexiones
         config.setConnectionTestQuery("SELECT 1");
-        config.setValidationTimeout(5000);
+        config.setValidationTimeout(Math.min(5000, timeoutConexion));
+
+        config.setPoolName(nombre);
+
+        // Métricas del pool: hikaricp.connections.active, idle, pending,
+        // acquire (tiempo de espera por una conexión), usage, ...
+        config.setMetricRegistry(meterRegistry);
+        return config;
+    }
+
+    private String urlPrimaria() {
+        return urlPrimaria.isBlank() ? urlJdbc(hostPrimaria) : urlPrimaria;
+    }
+
+    /**
+     * Pools de la primaria por clase de carga (ver PoolesPorCarga). Con
+     * verificador.db.pools-separados=true, administración y listados tienen
+     * cada uno su pool, con su tamaño, timeout y cola; si no, todo usa el
+     * pool de la primaria.
+     *
+     * @param separados Valor de verificador.db.pools-separados
+     * @param maxCola Máximo de hilos esperando conexión de la primaria
+     * (0 = sin límite)
+     * @return Pools de la primaria
+     */
+    @Bean
+    public PoolesPorCarga poolesPorCarga(
+            @Value("${verificador.db.pools-separados:false}") boolean separados,
+            @Value("${verificador.db.max-cola:0}") int maxCola,
+            @Value("${verificador.db.administracion.max-conexiones:3}") int maxConexionesAdministracion,
+            @Value("${verificador.db.administracion.timeout-conexion-ms:30000}") long timeoutAdministracion,
+            @Value("${verificador.db.administracion.max-cola:20}") int maxColaAdministracion,
+            @Value("${verificador.db.listado.max-conexiones:2}") int maxConexionesListado,
+            @Value("${verificador.db.listado.timeout-conexion-ms:30000}") long timeoutListado,
+            @Value("${verificador.db.listado.max-cola:10}") int maxColaListado) {
+        PoolesPorCarga pooles = new PoolesPorCarga(dataSourcePrimaria(), maxCola);
+        if (separados) {
+            pooles.separar(PoolesPorCarga.Clase.ADMINISTRACION, new HikariDataSource(configPool(urlPrimaria(),
+                    "HikariPool-Administracion", maxConexionesAdministracion, timeoutAdministracion)),
+                    maxColaAdministracion);
+            pooles.separar(PoolesPorCarga.Clase.LISTADO, new HikariDataSource(configPool(urlPrimaria(),
+                    "HikariPool-Listado", maxConexionesListado, timeoutListado)),
+                    maxColaListado);
+        }
+        return pooles;
+    }
+
+    /**
+     * Aplica SelectorPool a los métodos anotados con @UsaPool. Bean de
+     * infraestructura, como el de TemporizadorRepositorio, con orden anterior
+     * al de la transacción para que la clase esté marcada cuando esta pide la
+     * conexión.
+     *
+     * @return Advisor para @UsaPool
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor selectorPoolAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(null, UsaPool.class, true), new SelectorPool());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+
+    /**
+     * Pools de las réplicas de lectura (verificador.db.replicas). Sin réplicas
+     * configuradas no crea ningún pool y dataSource() usa solo la primaria.
+     *
+     * Los pools de las réplicas arrancan aunque la réplica no responda
+     * (initializationFailTimeout = -1) y tienen un timeout de conexión corto:
+     * si una réplica no entrega conexión, la lectura pasa a otra réplica o a
+     * la primaria en lugar de esperar.
+     *
+     * @param hosts Réplicas host:puerto separadas por comas
+     * @param maxConexionesReplica Máximo de conexiones de cada pool de réplica
+     * @param estrategia ROUND_ROBIN o MENOS_OCUPADA
+     * @param timeoutConexionReplicaMs Espera máxima por una conexión de réplica
+     * @param reintentoMs Tiempo que una réplica caída queda fuera del reparto
+     * @param poolesPorCarga Pools de la primaria, para las lecturas sin
+     * réplica disponible
+     * @return Réplicas de lectura
+     */
+    @Bean
+    public ReplicasLectura replicasLectura(
+            @Value("${verificador.db.replicas:}") String hosts,
+            @Value("${verificador.db.replicas.max-conexiones:10}") int maxConexionesReplica,
+            @Value("${verificador.db.replicas.estrategia:ROUND_ROBIN}") ReplicasLectura.Estrategia estrategia,
+            @Value("${verificador.db.replicas.timeout-conexion-ms:1000}") long timeoutConexionReplicaMs,
+            @Value("${verificador.db.replicas.reintento-ms:5000}") long reintentoMs,
+            PoolesPorCarga poolesPorCarga) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String host : hosts.split(",")) {
+            if (host.isBlank()) {
+                continue;
+            }
+            HikariConfig config = configPool(urlJdbc(host.trim()), "HikariPool-Replica-" + (replicas.size() + 1),
+                    maxConexionesReplica, timeoutConexionReplicaMs);
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicasLectura(replicas, poolesPorCarga, estrategia, reintentoMs);
+    }
+
+    /**
+     * DataSource que usa la aplicación (Hibernate y JdbcTemplate). Con
+     * réplicas configuradas, las transacciones de solo lectura toman la
+     * conexión de una réplica y el resto de la primaria (ver enrutarLecturas).
+     * Las conexiones de la primaria salen del pool de la clase de carga de
+     * la operación (poolesPorCarga).
+     *
+     * @param replicasLectura Réplicas de lectura
+     * @param poolesPorCarga Pools de la primaria por clase de carga
+     * @return DataSource de la aplicación
+     */
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource(ReplicasLectura replicasLectura, PoolesPorCarga poolesPorCarga) {
+        if (!replicasLectura.isHabilitada()) {
+            return poolesPorCarga;
+        }
+        return enrutarLecturas(poolesPorCarga, replicasLectura);
+    }
 
-        // Nombre del pool (para logs)
-        config.setPoolName("HikariPool-VerificadorCodigos");
+    /**
+     * Envuelve la primaria en un LazyConnectionDataSourceProxy que pide la
+     * conexión real en la primera sentencia, cuando la transacción ya marcó
+     * la conexión como de solo lectura. En ese caso la conexión sale de las
+     * réplicas; si no, de la primaria.
+     *
+     * Es pública para que el contexto H2 de los benchmarks use el mismo
+     * enrutamiento.
+     *
+     * @param primaria DataSource de escritura
+     * @param replicas DataSource de lectura
+     * @return DataSource enrutado
+     */
+    public static DataSource enrutarLecturas(DataSource primaria, DataSource replicas) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaria);
+        proxy.setReadOnlyDataSource(replicas);
+        return proxy;
+    }
 
-        return new HikariDataSource(config);
+    /**
+     * URL JDBC de MySQL para un servidor.
+     *
+     * rewriteBatchedStatements: el driver convierte los lotes JDBC en un
+     * único INSERT multi-fila (usado por la importación masiva)
+     * useCursorFetch: las consultas con fetchSize usan un cursor del servidor
+     * en vez de traer todo el resultado a memoria (exportación)
+     *
+     * @param host host:puerto del servidor
+     * @return URL JDBC
+     */
+    private static String urlJdbc(String host) {
+        return "jdbc:mysql://" + host + "/verificador_codigos"
+                + "?allowPublicKeyRetrieval=true&useSSL=false&rewriteBatchedStatements=true"
+                + "&useCursorFetch=true";
     }
 
     /**
@@ -85,13 +343,15 @@ public class AppConfig {
      *
      * Este bean: - Configura Hibernate - Escanea las entidades (@Entity) -
      * Establece propiedades de Hibernate
+     *
+     * @param dataSource DataSource de la aplicación
      */
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
 
         // Establecer el DataSource
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
 
         // Paquete donde están las entidades (@Entity)
         em.setPackagesToScan("com.evidencia.model");
@@ -99,7 +359,7 @@ public class AppConfig {
         // Configurar el proveedor JPA (Hibernate)
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         vendorAdapter.setGenerateDdl(false);  // No generar tablas automáticamente
-        vendorAdapter.setShowSql(true);       // Mostrar SQL en logs
+        vendorAdapter.setShowSql(logSql);     // Mostrar SQL en la salida estándar
         em.setJpaVendorAdapter(vendorAdapter);
 
         // Propiedades adicionales de Hibernate
@@ -118,14 +378,15 @@ public class AppConfig {
         Properties properties = new Properties();
 
         // Dialecto de MySQL (permite a Hibernate generar SQL optimizado para MySQL)
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQLDialect");
+        properties.setProperty("hibernate.dialect", dialecto);
 
-        // Mostrar SQL formateado en la consola (útil para desarrollo)
-        properties.setProperty("hibernate.show_sql", "true");
-        properties.setProperty("hibernate.format_sql", "true");
+        // Mostrar SQL formateado en la consola (útil para desarrollo,
+        // verificador.log.sql=true)
+        properties.setProperty("hibernate.show_sql", String.valueOf(logSql));
+        properties.setProperty("hibernate.format_sql", String.valueOf(logSql));
 
         // Mostrar comentarios en el SQL (útil para debugging)
-        properties.setProperty("hibernate.use_sql_comments", "true");
+        properties.setProperty("hibernate.use_sql_comments", String.valueOf(logSql));
 
         // Estrategia de generación de esquema
         // - none: No hacer nada (usar en producción)
@@ -135,19 +396,79 @@ public class AppConfig {
         // - create-drop: Crear al inicio, borrar al final
         properties.setProperty("hibernate.hbm2ddl.auto", "validate");
 
-        // Configuración de cache (segundo nivel) - deshabilitado por defecto
-        properties.setProperty("hibernate.cache.use_second_level_cache", "false");
-        properties.setProperty("hibernate.cache.use_query_cache", "false");
+        // Configuración de cache (segundo nivel) y estadísticas
+        properties.putAll(propiedadesCacheSegundoNivel(cacheSegundoNivel));
 
         // Configuración de batch (para inserciones masivas eficientes)
         properties.setProperty("hibernate.jdbc.batch_size", "20");
 
-        // Logging de estadísticas de Hibernate (útil para monitoreo)
-        properties.setProperty("hibernate.generate_statistics", "false");
+        return properties;
+    }
+
+    /**
+     * Propiedades de la caché de segundo nivel. Si está habilitada, las
+     * entidades Producto y la resolución codigo → id se guardan en regiones
+     * locales acotadas de Ehcache (ehcache.xml) y se activan las estadísticas
+     * de Hibernate para ver la tasa de aciertos en /estadisticas. La caché de
+     * consultas sigue deshabilitada.
+     *
+     * Es pública para que el contexto H2 de los benchmarks use la misma
+     * configuración.
+     *
+     * @param habilitada Valor de verificador.cache-segundo-nivel.habilitada
+     * @return Properties de Hibernate
+     */
+    public static Properties propiedadesCacheSegundoNivel(boolean habilitada) {
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.cache.use_second_level_cache", String.valueOf(habilitada));
+        properties.setProperty("hibernate.cache.use_query_cache", "false");
+        properties.setProperty("hibernate.generate_statistics", String.valueOf(habilitada));
 
+        if (habilitada) {
+            properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+            properties.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.setProperty("hibernate.javax.cache.uri", "ehcache.xml");
+            // Una región que no esté en ehcache.xml es un error de configuración
+            properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        }
         return properties;
     }
 
+    /**
+     * Executor acotado para las verificaciones en modo asíncrono de
+     * CodigoServlet. Tiene tantos hilos como conexiones el pool y una cola
+     * limitada: si la cola se llena, execute() lanza TaskRejectedException y
+     * el servlet responde 503 de inmediato en lugar de dejar hilos de Tomcat
+     * esperando una conexión.
+     *
+     * @param maxCola Peticiones que pueden esperar en cola
+     * @return Executor configurado (Spring lo detiene al cerrar el contexto)
+     */
+    @Bean
+    public ThreadPoolTaskExecutor executorVerificacion(
+            @Value("${verificador.verificacion.async.max-cola:100}") int maxCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConexiones);
+        executor.setMaxPoolSize(maxConexiones);
+        executor.setQueueCapacity(maxCola);
+        executor.setThreadNamePrefix("verificacion-");
+        return executor;
+    }
+
+    /**
+     * JdbcTemplate para las operaciones masivas que no conviene hacer con
+     * entidades (por ejemplo inserciones en lote: con ids IDENTITY Hibernate
+     * desactiva el batching de INSERT). Comparte el DataSource y participa en
+     * las transacciones del JpaTransactionManager.
+     *
+     * @param dataSource DataSource de la aplicación
+     * @return JdbcTemplate configurado
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
     /**
      * Configuración del Transaction Manager. Gestiona las transacciones de base
      * de datos automáticamente.
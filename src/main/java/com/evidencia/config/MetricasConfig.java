@@ -0,0 +1,83 @@
+package com.evidencia.config;
+
+import java.time.Duration;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Repository;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Configuración de métricas con Micrometer. Se importa desde AppConfig.
+ *
+ * - Un único PrometheusMeterRegistry, expuesto en /metricas (MetricasServlet)
+ * - Los timers propios (verificador.*) y el tiempo de obtención de conexión
+ *   de HikariCP publican p50/p95/p99 y un histograma, para poder calcular
+ *   percentiles agregados en Prometheus
+ * - Cada método de los @Repository se mide con TemporizadorRepositorio
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Registro de métricas de la aplicación.
+     *
+     * @return Registro en formato Prometheus
+     */
+    @Bean
+    public PrometheusMeterRegistry meterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("verificador.")
+                        && !id.getName().equals("hikaricp.connections.acquire")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.95, 0.99)
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+
+    /**
+     * Aplica TemporizadorRepositorio a las clases anotadas con @Repository.
+     *
+     * Se declara como bean de infraestructura para que lo recoja el mismo
+     * auto-proxy que crea @EnableTransactionManagement (sin AspectJ). Con
+     * orden más alto que la transacción, el tiempo medido incluye el commit.
+     *
+     * @param meterRegistry Registro de métricas
+     * @return Advisor para los repositorios
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor temporizadorRepositorioAdvisor(MeterRegistry meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Repository.class, true),
+                new TemporizadorRepositorio(meterRegistry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,183 @@
+package com.evidencia.config;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * DataSource de la primaria con un pool de conexiones por clase de carga
+ * (bulkheads), para que un listado largo o una ráfaga de escrituras no deje
+ * sin conexiones a las verificaciones:
+ *
+ * - VERIFICACION: verificaciones y el resto de consultas puntuales (pool
+ *   de la primaria, verificador.db.*)
+ * - ADMINISTRACION: altas, cambios, bajas e importación
+ * - LISTADO: listados completos, paginación, exportación y carga del índice
+ *   y el snapshot
+ *
+ * Los métodos de repositorio eligen la clase con @UsaPool; el resto usa
+ * VERIFICACION. Una clase sin pool propio (verificador.db.pools-separados
+ * =false) usa el de verificación.
+ *
+ * Cada pool tiene su tamaño, su timeout de conexión y un máximo de hilos
+ * esperando conexión: con ese máximo alcanzado, getConnection falla de
+ * inmediato con SQLTransientConnectionException en lugar de encolarse.
+ *
+ * Al cerrarse cierra los pools propios de cada clase, no el de la primaria.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public class PoolesPorCarga extends AbstractDataSource implements Closeable {
+
+    /**
+     * Clase de carga de una operación.
+     */
+    public enum Clase {
+        VERIFICACION, ADMINISTRACION, LISTADO
+    }
+
+    private static final ThreadLocal<Clase> ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Pool de una clase y sus contadores.
+     */
+    private record Pool(HikariDataSource dataSource, int maxCola, boolean propio,
+            LongAdder obtenidas, LongAdder rechazadas) {
+    }
+
+    private final Map<Clase, Pool> pools = new EnumMap<>(Clase.class);
+
+    /**
+     * @param primaria Pool de la primaria, que usa VERIFICACION y toda clase
+     * sin pool propio
+     * @param maxCola Máximo de hilos esperando conexión de la primaria (0 =
+     * sin límite)
+     */
+    public PoolesPorCarga(HikariDataSource primaria, int maxCola) {
+        for (Clase clase : Clase.values()) {
+            pools.put(clase, new Pool(primaria, maxCola, false, new LongAdder(), new LongAdder()));
+        }
+    }
+
+    /**
+     * Da a una clase su propio pool.
+     *
+     * @param clase Clase de carga (no VERIFICACION)
+     * @param pool Pool de la clase, que se cierra con close()
+     * @param maxCola Máximo de hilos esperando conexión (0 = sin límite)
+     */
+    public void separar(Clase clase, HikariDataSource pool, int maxCola) {
+        if (clase == Clase.VERIFICACION) {
+            throw new IllegalArgumentException("VERIFICACION usa el pool de la primaria");
+        }
+        pools.put(clase, new Pool(pool, maxCola, true, new LongAdder(), new LongAdder()));
+    }
+
+    /**
+     * Marca la clase de carga del hilo si aún no tiene una.
+     *
+     * @return la clase que tenía el hilo (null si ninguna), para restaurar()
+     */
+    static Clase usar(Clase clase) {
+        Clase anterior = ACTUAL.get();
+        if (anterior == null) {
+            ACTUAL.set(clase);
+        }
+        return anterior;
+    }
+
+    static void restaurar(Clase anterior) {
+        if (anterior == null) {
+            ACTUAL.remove();
+        }
+    }
+
+    /**
+     * @return clase de carga del hilo (VERIFICACION si no se marcó ninguna)
+     */
+    public static Clase getClaseActual() {
+        Clase clase = ACTUAL.get();
+        return clase == null ? Clase.VERIFICACION : clase;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Pool pool = pools.get(getClaseActual());
+        if (pool.maxCola > 0) {
+            HikariPoolMXBean estado = pool.dataSource.getHikariPoolMXBean();
+            int esperando = estado == null ? 0 : estado.getThreadsAwaitingConnection();
+            if (esperando >= pool.maxCola) {
+                pool.rechazadas.increment();
+                throw new SQLTransientConnectionException(pool.dataSource.getPoolName()
+                        + " saturado: " + esperando + " hilos esperando conexión");
+            }
+        }
+        Connection conexion = pool.dataSource.getConnection();
+        pool.obtenidas.increment();
+        return conexion;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Los pools usan las credenciales de su configuración");
+    }
+
+    /**
+     * @return true si la clase tiene pool propio
+     */
+    public boolean isSeparado(Clase clase) {
+        return pools.get(clase).propio;
+    }
+
+    public String getNombrePool(Clase clase) {
+        return pools.get(clase).dataSource.getPoolName();
+    }
+
+    public int getMaxConexiones(Clase clase) {
+        return pools.get(clase).dataSource.getMaximumPoolSize();
+    }
+
+    public int getMaxCola(Clase clase) {
+        return pools.get(clase).maxCola;
+    }
+
+    public int getActivas(Clase clase) {
+        HikariPoolMXBean estado = pools.get(clase).dataSource.getHikariPoolMXBean();
+        return estado == null ? 0 : estado.getActiveConnections();
+    }
+
+    public int getEsperando(Clase clase) {
+        HikariPoolMXBean estado = pools.get(clase).dataSource.getHikariPoolMXBean();
+        return estado == null ? 0 : estado.getThreadsAwaitingConnection();
+    }
+
+    /**
+     * @return conexiones entregadas a operaciones de la clase
+     */
+    public long getObtenidas(Clase clase) {
+        return pools.get(clase).obtenidas.sum();
+    }
+
+    /**
+     * @return peticiones de conexión rechazadas por cola llena
+     */
+    public long getRechazadas(Clase clase) {
+        return pools.get(clase).rechazadas.sum();
+    }
+
+    @Override
+    public void close() {
+        pools.values().stream().filter(Pool::propio).map(Pool::dataSource).distinct()
+                .forEach(HikariDataSource::close);
+    }
+}
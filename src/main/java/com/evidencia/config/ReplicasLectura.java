@@ -0,0 +1,175 @@
+package com.evidencia.config;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * DataSource de solo lectura que reparte las conexiones entre los pools de
+ * las réplicas. AppConfig lo usa como "readOnlyDataSource" del
+ * LazyConnectionDataSourceProxy: las transacciones @Transactional(readOnly =
+ * true) van a una réplica y el resto a la primaria.
+ *
+ * - ROUND_ROBIN: una réplica tras otra
+ * - MENOS_OCUPADA: la réplica con menos conexiones activas en su pool
+ *
+ * Si una réplica no entrega una conexión (caída o pool agotado durante el
+ * timeout de conexión) se marca como caída durante el tiempo de reintento y
+ * se prueba la siguiente. Sin réplicas disponibles, la conexión se pide a la
+ * primaria.
+ *
+ * Sin réplicas configuradas no se usa (isHabilitada() es false). Al cerrarse
+ * cierra los pools de las réplicas, no el de la primaria.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public class ReplicasLectura extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicasLectura.class);
+
+    /**
+     * Forma de elegir la réplica de cada conexión.
+     */
+    public enum Estrategia {
+        ROUND_ROBIN, MENOS_OCUPADA
+    }
+
+    private final List<HikariDataSource> replicas;
+    private final DataSource primaria;
+    private final Estrategia estrategia;
+    private final long reintentoNanos;
+
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    /**
+     * Para cada réplica, System.nanoTime() hasta el que se considera caída
+     * (0 si está disponible).
+     */
+    private final AtomicLongArray caidaHasta;
+
+    private final LongAdder desviadasAPrimaria = new LongAdder();
+
+    /**
+     * @param replicas Pools de las réplicas (puede estar vacía)
+     * @param primaria DataSource al que se recurre sin réplicas disponibles
+     * @param estrategia Forma de elegir la réplica
+     * @param reintentoMs Tiempo que una réplica caída queda fuera del reparto
+     */
+    public ReplicasLectura(List<HikariDataSource> replicas, DataSource primaria, Estrategia estrategia,
+            long reintentoMs) {
+        this.replicas = List.copyOf(replicas);
+        this.primaria = primaria;
+        this.estrategia = estrategia;
+        this.reintentoNanos = reintentoMs * 1_000_000;
+        this.caidaHasta = new AtomicLongArray(replicas.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int n = replicas.size();
+        if (n > 0) {
+            int inicio = elegir();
+            for (int i = 0; i < n; i++) {
+                int indice = (inicio + i) % n;
+                long hasta = caidaHasta.get(indice);
+                long ahora = System.nanoTime();
+                if (hasta != 0 && ahora - hasta < 0) {
+                    continue;
+                }
+                try {
+                    Connection conexion = replicas.get(indice).getConnection();
+                    if (hasta != 0 && caidaHasta.compareAndSet(indice, hasta, 0)) {
+                        logger.info("Réplica {} disponible de nuevo", replicas.get(indice).getPoolName());
+                    }
+                    return conexion;
+                } catch (SQLException e) {
+                    // Desde el fallo, no desde la petición: getConnection pudo
+                    // esperar todo el timeout de conexión
+                    caidaHasta.set(indice, System.nanoTime() + reintentoNanos);
+                    logger.warn("Réplica {} sin conexión, fuera del reparto {} ms: {}",
+                            replicas.get(indice).getPoolName(), reintentoNanos / 1_000_000, e.getMessage());
+                }
+            }
+        }
+        desviadasAPrimaria.increment();
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Las réplicas usan las credenciales de sus pools");
+    }
+
+    /**
+     * @return índice de la primera réplica a probar
+     */
+    private int elegir() {
+        if (estrategia == Estrategia.ROUND_ROBIN || replicas.size() == 1) {
+            return Math.floorMod(siguiente.getAndIncrement(), replicas.size());
+        }
+        int mejor = 0;
+        int menosActivas = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+            int activas = pool == null ? 0 : pool.getActiveConnections();
+            if (activas < menosActivas) {
+                menosActivas = activas;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * @return true si hay al menos una réplica configurada
+     */
+    public boolean isHabilitada() {
+        return !replicas.isEmpty();
+    }
+
+    public int getNumeroReplicas() {
+        return replicas.size();
+    }
+
+    /**
+     * @return réplicas marcadas como caídas en este momento
+     */
+    public int getReplicasCaidas() {
+        long ahora = System.nanoTime();
+        int caidas = 0;
+        for (int i = 0; i < caidaHasta.length(); i++) {
+            long hasta = caidaHasta.get(i);
+            if (hasta != 0 && ahora - hasta < 0) {
+                caidas++;
+            }
+        }
+        return caidas;
+    }
+
+    /**
+     * @return conexiones de lectura que se pidieron a la primaria por no haber
+     * réplica disponible
+     */
+    public long getDesviadasAPrimaria() {
+        return desviadasAPrimaria.sum();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
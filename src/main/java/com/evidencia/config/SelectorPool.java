@@ -0,0 +1,30 @@
+package com.evidencia.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Marca la clase de carga de @UsaPool en el hilo mientras se ejecuta el
+ * método, para que PoolesPorCarga entregue la conexión del pool
+ * correspondiente. Se aplica antes que la transacción, que es la que pide
+ * la conexión.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+class SelectorPool implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        UsaPool usaPool = invocation.getMethod().getAnnotation(UsaPool.class);
+        if (usaPool == null) {
+            return invocation.proceed();
+        }
+        PoolesPorCarga.Clase anterior = PoolesPorCarga.usar(usaPool.value());
+        try {
+            return invocation.proceed();
+        } finally {
+            PoolesPorCarga.restaurar(anterior);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.evidencia.config;
+
+import java.util.Optional;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mide cada llamada a un método de repositorio en el timer
+ * verificador.repositorio, con las etiquetas:
+ *
+ * - metodo: nombre del método (findByCodigo, existsByCodigo, ...)
+ * - resultado: "encontrado" / "no_encontrado" para los métodos que devuelven
+ *   Optional o boolean, "ok" para el resto y "error" si lanzan una excepción
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+class TemporizadorRepositorio implements MethodInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    TemporizadorRepositorio(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+        try {
+            Object valor = invocation.proceed();
+            resultado = resultado(valor);
+            return valor;
+        } finally {
+            muestra.stop(Timer.builder("verificador.repositorio")
+                    .description("Tiempo de los métodos de repositorio (incluida la transacción)")
+                    .tag("metodo", invocation.getMethod().getName())
+                    .tag("resultado", resultado)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String resultado(Object valor) {
+        if (valor instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? "encontrado" : "no_encontrado";
+        }
+        if (valor instanceof Boolean existe) {
+            return existe ? "encontrado" : "no_encontrado";
+        }
+        return "ok";
+    }
+}
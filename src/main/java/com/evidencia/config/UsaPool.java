@@ -0,0 +1,25 @@
+package com.evidencia.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica el pool de conexiones (PoolesPorCarga) que usa un método de
+ * repositorio. Los métodos sin anotar usan el de verificación.
+ *
+ * Si el método se llama dentro de otro que ya eligió pool (o de una
+ * transacción ya abierta), manda el de fuera.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface UsaPool {
+
+    PoolesPorCarga.Clase value();
+}
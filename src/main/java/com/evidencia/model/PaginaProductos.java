@@ -0,0 +1,24 @@
+package com.evidencia.model;
+
+import java.util.List;
+
+/**
+ * Página del catálogo obtenida con paginación por cursor (keyset sobre
+ * nombre, id). No es una entidad JPA.
+ *
+ * @param productos Productos de la página, ordenados por nombre e id
+ * @param siguienteCursor Cursor opaco para pedir la página siguiente, o null
+ * si esta es la última
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public record PaginaProductos(List<Producto> productos, String siguienteCursor) {
+
+    /**
+     * @return true si hay más productos después de esta página
+     */
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+}
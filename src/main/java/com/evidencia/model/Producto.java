@@ -3,16 +3,39 @@ package com.evidencia.model;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 /**
  * Entidad JPA que representa un producto en la base de datos. Mapea la tabla
  * 'productos' usando Hibernate.
  *
+ * El código es el identificador natural: ProductoRepository.findByCodigo lo
+ * resuelve con la API de natural id de Hibernate, y si la caché de segundo
+ * nivel está habilitada (verificador.cache-segundo-nivel.habilitada) la
+ * resolución codigo → id y la entidad se sirven desde las regiones
+ * "productos-codigo" y "productos" (ver ehcache.xml) sin consultar MySQL.
+ *
+ * Las consultas con nombre se compilan al arrancar Hibernate, no en cada
+ * llamada: "Producto.resumenPorCodigo" devuelve un ResumenProducto sin hidratar
+ * la entidad, y "Producto.existeCodigo" comprueba la existencia con
+ * SELECT 1 ... LIMIT 1 (usarla con setMaxResults(1)).
+ *
  * @author Tu Nombre
  * @version 2.0
  */
 @Entity
 @Table(name = "productos")
+@NamedQuery(name = "Producto.resumenPorCodigo",
+        query = "SELECT new com.evidencia.model.ResumenProducto(p.codigo, p.nombre, p.fechaRegistro)"
+        + " FROM Producto p WHERE p.codigo = :codigo")
+@NamedQuery(name = "Producto.existeCodigo",
+        query = "SELECT 1 FROM Producto p WHERE p.codigo = :codigo")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "productos")
+@NaturalIdCache(region = "productos-codigo")
 public class Producto {
 
     /**
@@ -25,8 +48,10 @@ public class Producto {
 
     /**
      * Código único del producto (ej: PROD001) No puede ser nulo y debe ser
-     * único en la base de datos
+     * único en la base de datos. Es mutable: actualizarProducto puede
+     * cambiarlo
      */
+    @NaturalId(mutable = true)
     @Column(name = "codigo", nullable = false, unique = true, length = 50)
     private String codigo;
 
@@ -0,0 +1,21 @@
+package com.evidencia.model;
+
+/**
+ * Respuesta de la API externa de estudiantes tal como se reenvía al
+ * navegador. No es una entidad JPA.
+ *
+ * @param status Código HTTP devuelto por la API (502 si no hubo respuesta)
+ * @param cuerpo Cuerpo JSON
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public record RespuestaApi(int status, String cuerpo) {
+
+    /**
+     * @return true si la API respondió con un código 2xx
+     */
+    public boolean exitosa() {
+        return status >= 200 && status < 300;
+    }
+}
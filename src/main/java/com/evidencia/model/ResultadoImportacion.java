@@ -0,0 +1,140 @@
+package com.evidencia.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Informe de una importación masiva de productos. No es una entidad JPA.
+ *
+ * Guarda los contadores de filas, los rechazos (hasta un máximo, para no
+ * crecer sin límite en archivos muy grandes) y la última línea confirmada,
+ * que es desde donde se debe reanudar si la importación falla.
+ *
+ * Las filas leídas y rechazadas cuentan cuando se confirma el bloque que las
+ * contiene. Si la importación se interrumpe, las posteriores a la última
+ * línea confirmada no aparecen en el informe: se vuelven a leer al reanudar,
+ * y así la suma de los informes de un intento y su reanudación no cuenta
+ * ninguna fila dos veces.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public class ResultadoImportacion {
+
+    /**
+     * Fila rechazada con el motivo.
+     *
+     * @param linea Número de línea en el archivo (1 = primera línea)
+     * @param codigo Código leído (puede ser null)
+     * @param motivo Motivo del rechazo
+     */
+    public record Rechazo(long linea, String codigo, String motivo) {
+    }
+
+    private final long lineaInicial;
+    private final int maxRechazosDetallados;
+    private final List<Rechazo> rechazos = new ArrayList<>();
+    private final List<Rechazo> rechazosPendientes = new ArrayList<>();
+
+    private long leidas;
+    private long insertadas;
+    private long rechazadas;
+    private long ultimaLineaConfirmada;
+    private long leidasPendientes;
+    private long rechazadasPendientes;
+    private long duracionNanos;
+    private String error;
+
+    /**
+     * @param lineaInicial Línea desde la que se reanuda (0 = desde el inicio)
+     * @param maxRechazosDetallados Máximo de rechazos que se guardan con detalle
+     */
+    public ResultadoImportacion(long lineaInicial, int maxRechazosDetallados) {
+        this.lineaInicial = lineaInicial;
+        this.maxRechazosDetallados = maxRechazosDetallados;
+        this.ultimaLineaConfirmada = lineaInicial;
+    }
+
+    public void sumarLeida() {
+        leidasPendientes++;
+    }
+
+    public void sumarInsertadas(int cantidad) {
+        insertadas += cantidad;
+    }
+
+    public void rechazar(long linea, String codigo, String motivo) {
+        rechazadasPendientes++;
+        if (rechazos.size() + rechazosPendientes.size() < maxRechazosDetallados) {
+            rechazosPendientes.add(new Rechazo(linea, codigo, motivo));
+        }
+    }
+
+    /**
+     * Marca como confirmadas las líneas hasta la indicada y suma al informe
+     * las leídas y rechazadas desde la confirmación anterior.
+     *
+     * @param linea Última línea del bloque guardado
+     */
+    public void confirmarHasta(long linea) {
+        this.ultimaLineaConfirmada = linea;
+        leidas += leidasPendientes;
+        rechazadas += rechazadasPendientes;
+        rechazos.addAll(rechazosPendientes);
+        leidasPendientes = 0;
+        rechazadasPendientes = 0;
+        rechazosPendientes.clear();
+    }
+
+    public void finalizar(long duracionNanos, String error) {
+        this.duracionNanos = duracionNanos;
+        this.error = error;
+    }
+
+    public long getLineaInicial() {
+        return lineaInicial;
+    }
+
+    public long getLeidas() {
+        return leidas;
+    }
+
+    public long getInsertadas() {
+        return insertadas;
+    }
+
+    public long getRechazadas() {
+        return rechazadas;
+    }
+
+    public List<Rechazo> getRechazos() {
+        return Collections.unmodifiableList(rechazos);
+    }
+
+    public long getUltimaLineaConfirmada() {
+        return ultimaLineaConfirmada;
+    }
+
+    public long getDuracionMillis() {
+        return duracionNanos / 1_000_000;
+    }
+
+    /**
+     * @return filas leídas por segundo
+     */
+    public double getFilasPorSegundo() {
+        return duracionNanos == 0 ? 0.0 : leidas * 1_000_000_000.0 / duracionNanos;
+    }
+
+    /**
+     * @return mensaje de error si la importación se interrumpió, o null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCompleta() {
+        return error == null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.evidencia.model;
+
+/**
+ * Resultado de verificar un código dentro de un lote. No es una entidad JPA:
+ * solo transporta el código tal como llegó, su forma normalizada y el nombre
+ * del producto si existe.
+ *
+ * @param codigo Código tal como lo envió el cliente
+ * @param codigoNormalizado Código sin espacios y en mayúsculas (null si vacío)
+ * @param nombre Nombre del producto, o null si el código no existe
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public record ResultadoVerificacion(String codigo, String codigoNormalizado, String nombre) {
+
+    /**
+     * @return true si el código existe en el sistema
+     */
+    public boolean encontrado() {
+        return nombre != null;
+    }
+}
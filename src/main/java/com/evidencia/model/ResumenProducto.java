@@ -0,0 +1,26 @@
+package com.evidencia.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de un producto con lo que necesita una verificación. No es una
+ * entidad JPA: la consulta "Producto.resumenPorCodigo" la construye
+ * directamente desde las columnas, sin pasar por el contexto de persistencia
+ * (sin entidad administrada ni snapshot para dirty-checking).
+ *
+ * @param codigo Código del producto
+ * @param nombre Nombre del producto
+ * @param fechaRegistro Fecha de registro
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public record ResumenProducto(String codigo, String nombre, LocalDateTime fechaRegistro) {
+
+    /**
+     * @return Producto no administrado (sin id) con los datos del resumen
+     */
+    public Producto comoProducto() {
+        return new Producto(null, codigo, nombre, fechaRegistro);
+    }
+}
@@ -1,17 +1,42 @@
 package com.evidencia.repository;
 
+import com.evidencia.config.PoolesPorCarga;
+import com.evidencia.config.UsaPool;
 import com.evidencia.model.Producto;
+import com.evidencia.model.ResumenProducto;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.SelectionQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para acceso a datos de Producto usando Hibernate/JPA. Spring
@@ -40,8 +65,16 @@ public class ProductoRepository {
     private EntityManager entityManager;
 
     /**
-     * Busca un producto por su código único. Usa JPQL (Java Persistence Query
-     * Language) en lugar de SQL nativo.
+     * JdbcTemplate para operaciones masivas (lotes JDBC reales).
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Busca un producto por su código único. El código es el natural id de
+     * Producto: con la caché de segundo nivel habilitada, Hibernate resuelve
+     * codigo → id y la entidad desde la caché y solo consulta la base de datos
+     * si falta alguna de las dos. Los códigos inexistentes no se cachean.
      *
      * @param codigo Código del producto a buscar
      * @return Optional conteniendo el producto si existe, o vacío si no
@@ -50,21 +83,20 @@ public class ProductoRepository {
         logger.debug("Buscando producto con código: {}", codigo);
 
         try {
-            // JPQL: Consulta orientada a objetos (usa nombres de clase y atributos)
-            String jpql = "SELECT p FROM Producto p WHERE p.codigo = :codigo";
-
-            TypedQuery<Producto> query = entityManager.createQuery(jpql, Producto.class);
-            query.setParameter("codigo", codigo);
-
-            Producto producto = query.getSingleResult();
-
-            logger.info("Producto encontrado: {} - {}", producto.getCodigo(), producto.getNombre());
-            return Optional.of(producto);
+            // Sin sincronización: en esta transacción de solo lectura no hay
+            // entidades modificadas cuyo código haya que comprobar antes
+            Optional<Producto> producto = entityManager.unwrap(Session.class)
+                    .bySimpleNaturalId(Producto.class)
+                    .setSynchronizationEnabled(false)
+                    .loadOptional(codigo);
 
-        } catch (NoResultException e) {
-            // No se encontró el producto - esto NO es un error
-            logger.debug("No se encontró producto con código: {}", codigo);
-            return Optional.empty();
+            if (producto.isPresent()) {
+                logger.debug("Producto encontrado: {} - {}", producto.get().getCodigo(), producto.get().getNombre());
+            } else {
+                // No se encontró el producto - esto NO es un error
+                logger.debug("No se encontró producto con código: {}", codigo);
+            }
+            return producto;
 
         } catch (Exception e) {
             // Error real en la consulta
@@ -73,6 +105,30 @@ public class ProductoRepository {
         }
     }
 
+    /**
+     * Busca el resumen (código, nombre y fecha) de un producto con la consulta
+     * precompilada "Producto.resumenPorCodigo". El resultado no es una
+     * entidad: no se registra en el contexto de persistencia ni se guarda un
+     * snapshot, así que es el camino más barato cuando solo se verifica.
+     *
+     * @param codigo Código del producto a buscar
+     * @return Optional con el resumen si existe, o vacío si no
+     */
+    public Optional<ResumenProducto> findResumenByCodigo(String codigo) {
+        logger.debug("Buscando resumen de producto con código: {}", codigo);
+
+        try {
+            List<ResumenProducto> resumenes = entityManager
+                    .createNamedQuery("Producto.resumenPorCodigo", ResumenProducto.class)
+                    .setParameter("codigo", codigo)
+                    .getResultList();
+            return resumenes.isEmpty() ? Optional.empty() : Optional.of(resumenes.get(0));
+        } catch (Exception e) {
+            logger.error("Error al buscar resumen de producto con código: {}", codigo, e);
+            throw new RuntimeException("Error al consultar la base de datos", e);
+        }
+    }
+
     /**
      * Busca un producto por su ID.
      *
@@ -96,6 +152,7 @@ public class ProductoRepository {
      *
      * @return Lista de todos los productos
      */
+    @UsaPool(PoolesPorCarga.Clase.LISTADO)
     public List<Producto> findAll() {
         logger.debug("Obteniendo todos los productos");
 
@@ -113,6 +170,197 @@ public class ProductoRepository {
         }
     }
 
+    /**
+     * Obtiene una página del catálogo ordenado por (nombre, id) usando
+     * paginación por cursor (keyset): en lugar de OFFSET, se piden las filas
+     * posteriores a la última vista. Con el índice idx_productos_nombre_id el
+     * costo es el mismo para la primera página que para la página un millón.
+     *
+     * La condición equivale a (nombre, id) > (:nombre, :id), escrita de forma
+     * que MySQL pueda iniciar un rango sobre el índice por nombre.
+     *
+     * @param despuesDeNombre Nombre del último producto visto, o null para la
+     * primera página
+     * @param despuesDeId Id del último producto visto (ignorado si el nombre es
+     * null)
+     * @param limite Número máximo de productos a devolver
+     * @return Productos siguientes en orden
+     */
+    @UsaPool(PoolesPorCarga.Clase.LISTADO)
+    public List<Producto> findPagina(String despuesDeNombre, Integer despuesDeId, int limite) {
+        logger.debug("Obteniendo página de {} productos después de ({}, {})", limite, despuesDeNombre, despuesDeId);
+
+        try {
+            TypedQuery<Producto> query;
+            if (despuesDeNombre == null) {
+                query = entityManager.createQuery(
+                        "SELECT p FROM Producto p ORDER BY p.nombre, p.id", Producto.class);
+            } else {
+                query = entityManager.createQuery(
+                        "SELECT p FROM Producto p"
+                        + " WHERE p.nombre >= :nombre AND (p.nombre > :nombre OR p.id > :id)"
+                        + " ORDER BY p.nombre, p.id", Producto.class)
+                        .setParameter("nombre", despuesDeNombre)
+                        .setParameter("id", despuesDeId);
+            }
+            return query.setMaxResults(limite).getResultList();
+        } catch (Exception e) {
+            logger.error("Error al obtener página de productos", e);
+            throw new RuntimeException("Error al consultar la base de datos", e);
+        }
+    }
+
+    /**
+     * Recorre todos los productos ordenados por nombre sin cargarlos todos en
+     * memoria. Usa un cursor de solo avance (ScrollMode.FORWARD_ONLY) con el
+     * fetchSize indicado y una proyección escalar, de modo que Hibernate no
+     * crea entidades administradas ni snapshots en el contexto de persistencia.
+     *
+     * Los Producto que recibe el consumidor son objetos simples (no
+     * administrados) y la transacción permanece abierta mientras se recorre.
+     *
+     * @param fetchSize Filas que el driver trae por viaje a la base de datos
+     * @param consumidor Recibe cada producto en orden
+     * @return número de productos recorridos
+     */
+    @UsaPool(PoolesPorCarga.Clase.LISTADO)
+    public long forEachProducto(int fetchSize, Consumer<Producto> consumidor) {
+        logger.debug("Recorriendo productos con fetchSize {}", fetchSize);
+
+        String jpql = "SELECT p.id, p.codigo, p.nombre, p.fechaRegistro FROM Producto p ORDER BY p.nombre, p.id";
+        SelectionQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createSelectionQuery(jpql, Object[].class)
+                .setFetchSize(fetchSize);
+
+        long total = 0;
+        try (ScrollableResults<Object[]> filas = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (filas.next()) {
+                Object[] fila = filas.get();
+                consumidor.accept(new Producto((Integer) fila[0], (String) fila[1], (String) fila[2],
+                        (LocalDateTime) fila[3]));
+                total++;
+            }
+        }
+        logger.info("Se recorrieron {} productos", total);
+        return total;
+    }
+
+    /**
+     * Recorre el código y el nombre de todos los productos con un cursor de
+     * solo avance, sin cargar la lista completa. Usado para cargar el índice
+     * en memoria, que con decenas de millones de productos no puede tener
+     * además todas las filas a la vez.
+     *
+     * Lee de la primaria: IndiceCodigos solo aplica encima las altas y bajas
+     * registradas durante la carga, y una réplica retrasada le devolvería
+     * filas eliminadas antes de empezar que quedarían como existentes.
+     *
+     * @param fetchSize Filas que el driver trae por viaje a la base de datos
+     * @param consumidor Recibe el código y el nombre de cada producto
+     * @return número de productos recorridos
+     */
+    @UsaPool(PoolesPorCarga.Clase.LISTADO)
+    @Transactional // Lee de la primaria
+    public long forEachCodigoYNombre(int fetchSize, BiConsumer<String, String> consumidor) {
+        logger.debug("Recorriendo códigos y nombres con fetchSize {}", fetchSize);
+
+        long total = 0;
+        try (ScrollableResults<Object[]> filas = entityManager.unwrap(Session.class)
+                .createSelectionQuery("SELECT p.codigo, p.nombre FROM Producto p", Object[].class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (filas.next()) {
+                Object[] fila = filas.get();
+                consumidor.accept((String) fila[0], (String) fila[1]);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Recorre todos los códigos de producto con un cursor de solo avance, sin
+     * cargar la lista completa. Usado para construir el filtro de Bloom de
+     * códigos.
+     *
+     * Lee de la primaria: la reconstrucción se lanza justo después de altas,
+     * y un código que una réplica retrasada aún no tenga sería un falso
+     * negativo permanente del filtro.
+     *
+     * @param fetchSize Filas que el driver trae por viaje a la base de datos
+     * @param consumidor Recibe cada código
+     * @return número de códigos recorridos
+     */
+    @UsaPool(PoolesPorCarga.Clase.LISTADO)
+    @Transactional // Lee de la primaria
+    public long forEachCodigo(int fetchSize, Consumer<String> consumidor) {
+        logger.debug("Recorriendo códigos con fetchSize {}", fetchSize);
+
+        long total = 0;
+        try (ScrollableResults<String> codigos = entityManager.unwrap(Session.class)
+                .createSelectionQuery("SELECT p.codigo FROM Producto p", String.class)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (codigos.next()) {
+                consumidor.accept(codigos.get());
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Busca el código y el nombre de varios productos en una sola consulta
+     * (WHERE codigo IN (...)). El llamador es responsable de limitar el
+     * tamaño de la colección.
+     *
+     * Fuera de una transacción lee de la primaria: la importación descarta
+     * con ella los códigos ya existentes, incluidos los de bloques anteriores
+     * del mismo archivo. Dentro de una transacción de solo lectura (la
+     * verificación por lotes) se une a ella y lee de la réplica.
+     *
+     * @param codigos Códigos a buscar
+     * @return Lista de pares [codigo, nombre] de los códigos que existen
+     */
+    @Transactional // Lee de la primaria salvo dentro de una transacción de solo lectura
+    public List<Object[]> findCodigosYNombresByCodigos(Collection<String> codigos) {
+        logger.debug("Buscando {} códigos en lote", codigos.size());
+
+        try {
+            String jpql = "SELECT p.codigo, p.nombre FROM Producto p WHERE p.codigo IN :codigos";
+            return entityManager.createQuery(jpql, Object[].class)
+                    .setParameter("codigos", codigos)
+                    .getResultList();
+        } catch (Exception e) {
+            logger.error("Error al buscar códigos en lote", e);
+            throw new RuntimeException("Error al consultar la base de datos", e);
+        }
+    }
+
+    /**
+     * Busca el código de un producto por su ID, en la primaria. Usado antes
+     * de modificar el producto: con una réplica retrasada el código anterior
+     * podría no ser el actual.
+     *
+     * @param id ID del producto
+     * @return Optional con el código si el producto existe
+     */
+    @Transactional // Lee de la primaria
+    public Optional<String> findCodigoById(Integer id) {
+        logger.debug("Buscando código del producto con ID: {}", id);
+
+        try {
+            List<String> codigos = entityManager
+                    .createQuery("SELECT p.codigo FROM Producto p WHERE p.id = :id", String.class)
+                    .setParameter("id", id)
+                    .getResultList();
+            return codigos.isEmpty() ? Optional.empty() : Optional.of(codigos.get(0));
+        } catch (Exception e) {
+            logger.error("Error al buscar código del producto con ID: {}", id, e);
+            throw new RuntimeException("Error al consultar la base de datos", e);
+        }
+    }
+
     /**
      * Guarda un nuevo producto en la base de datos.
      *
@@ -121,6 +369,7 @@ public class ProductoRepository {
      * @param producto Producto a guardar
      * @return Producto guardado con su ID generado
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     @Transactional // Operación de escritura
     public Producto save(Producto producto) {
         logger.debug("Guardando producto: {}", producto.getCodigo());
@@ -135,12 +384,159 @@ public class ProductoRepository {
         }
     }
 
+    /**
+     * Inserta un producto con un único INSERT, sin comprobar antes si el
+     * código existe: la restricción UNIQUE de codigo es la que lo impide, y
+     * también resuelve dos altas simultáneas del mismo código.
+     *
+     * No abre transacción propia (se une a la del llamador si la hay): con
+     * autocommit, el alta es un solo viaje a la base de datos, y el id
+     * generado llega en la misma respuesta. La fecha de registro, si no
+     * viene, es la actual (como en @PrePersist).
+     *
+     * @param producto Producto a insertar (ya validado); recibe el id y la
+     * fecha de registro
+     * @return el mismo producto
+     * @throws DuplicateKeyException si ya existe un producto con ese código
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional(propagation = Propagation.SUPPORTS) // Escritura, sin transacción propia
+    public Producto insertar(Producto producto) {
+        logger.debug("Insertando producto: {}", producto.getCodigo());
+
+        LocalDateTime fecha = producto.getFechaRegistro() != null ? producto.getFechaRegistro() : LocalDateTime.now();
+        try {
+            GeneratedKeyHolder clave = new GeneratedKeyHolder();
+            jdbcTemplate.update(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(
+                        "INSERT INTO productos (codigo, nombre, fecha_registro) VALUES (?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, producto.getCodigo());
+                ps.setString(2, producto.getNombre());
+                ps.setObject(3, fecha);
+                return ps;
+            }, clave);
+            producto.setId(idGenerado(clave));
+            producto.setFechaRegistro(fecha);
+            logger.info("Producto insertado exitosamente: {}", producto.getId());
+            return producto;
+        } catch (DuplicateKeyException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error al insertar producto: {}", producto.getCodigo(), e);
+            throw new RuntimeException("Error al guardar en la base de datos", e);
+        }
+    }
+
+    /**
+     * Inserta un producto o, si su código ya existe, actualiza el nombre.
+     *
+     * Busca primero el id por código y según eso hace un INSERT o un UPDATE
+     * por clave primaria: dos viajes a la base de datos, pero el resultado no
+     * depende de las filas afectadas que informe el driver (con
+     * INSERT ... ON DUPLICATE KEY UPDATE, Connector/J sin useAffectedRows
+     * devuelve 1 tanto al insertar como cuando el nombre no cambia). Si otra
+     * petición da de alta el mismo código entre la búsqueda y el INSERT, la
+     * restricción UNIQUE lo detecta y se actualiza esa fila.
+     *
+     * Cuando actualiza, la entidad se desaloja de la caché de segundo nivel,
+     * que de otro modo seguiría con el nombre anterior.
+     *
+     * @param producto Producto (ya validado); recibe el id, y la fecha de
+     * registro solo si se insertó
+     * @return true si se insertó, false si ya existía
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional(propagation = Propagation.SUPPORTS) // Escritura, sin transacción propia
+    public boolean upsert(Producto producto) {
+        logger.debug("Insertando o actualizando producto: {}", producto.getCodigo());
+
+        Integer id = buscarId(producto.getCodigo());
+        if (id == null) {
+            try {
+                insertar(producto);
+                return true;
+            } catch (DuplicateKeyException e) {
+                // Alta simultánea del mismo código: se actualiza esa fila
+                id = buscarId(producto.getCodigo());
+                if (id == null) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            jdbcTemplate.update("UPDATE productos SET nombre = ? WHERE id = ?", producto.getNombre(), id);
+            producto.setId(id);
+            entityManager.getEntityManagerFactory().getCache().evict(Producto.class, id);
+            logger.info("Producto actualizado exitosamente: {}", id);
+            return false;
+        } catch (Exception e) {
+            logger.error("Error al actualizar producto: {}", producto.getCodigo(), e);
+            throw new RuntimeException("Error al guardar en la base de datos", e);
+        }
+    }
+
+    /**
+     * @return el id del producto con ese código, o null si no existe
+     */
+    private Integer buscarId(String codigo) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM productos WHERE codigo = ?",
+                Integer.class, codigo);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * @return el id generado que devolvió el driver, o null si no devolvió
+     * ninguno
+     */
+    private static Integer idGenerado(GeneratedKeyHolder clave) {
+        if (clave.getKeyList().isEmpty() || clave.getKeyList().get(0).isEmpty()) {
+            return null;
+        }
+        return ((Number) clave.getKeyList().get(0).values().iterator().next()).intValue();
+    }
+
+    /**
+     * Inserta varios productos usando lotes JDBC. No pasa por Hibernate: con
+     * ids IDENTITY Hibernate no puede agrupar los INSERT, mientras que aquí el
+     * driver (rewriteBatchedStatements) envía un único INSERT multi-fila por
+     * lote. La fecha de registro la asigna la base de datos.
+     *
+     * Todos los productos se insertan en una sola transacción: si uno falla
+     * (por ejemplo, código duplicado) no se inserta ninguno.
+     *
+     * @param productos Productos a insertar (ya validados)
+     * @param tamanoLote Número de filas por lote JDBC
+     * @return número de filas insertadas
+     * @throws DuplicateKeyException si alguno de los códigos ya existe
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Operación de escritura
+    public int batchInsert(List<Producto> productos, int tamanoLote) {
+        logger.debug("Insertando {} productos en lotes de {}", productos.size(), tamanoLote);
+
+        try {
+            String sql = "INSERT INTO productos (codigo, nombre) VALUES (?, ?)";
+            jdbcTemplate.batchUpdate(sql, productos, tamanoLote, (ps, producto) -> {
+                ps.setString(1, producto.getCodigo());
+                ps.setString(2, producto.getNombre());
+            });
+            return productos.size();
+        } catch (DuplicateKeyException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error al insertar lote de {} productos", productos.size(), e);
+            throw new RuntimeException("Error al guardar en la base de datos", e);
+        }
+    }
+
     /**
      * Actualiza un producto existente.
      *
      * @param producto Producto a actualizar
      * @return Producto actualizado
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     @Transactional // Operación de escritura
     public Producto update(Producto producto) {
         logger.debug("Actualizando producto: {}", producto.getCodigo());
@@ -156,33 +552,244 @@ public class ProductoRepository {
     }
 
     /**
-     * Elimina un producto por su ID.
+     * Elimina un producto por su ID, sin cargar la entidad (ver deleteByIds).
      *
      * @param id ID del producto a eliminar
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     @Transactional // Operación de escritura
     public void deleteById(Integer id) {
         logger.debug("Eliminando producto con ID: {}", id);
 
+        if (!deleteByIds(List.of(id)).isEmpty()) {
+            logger.info("Producto eliminado exitosamente: {}", id);
+        } else {
+            logger.warn("No se encontró producto con ID: {}", id);
+        }
+    }
+
+    /**
+     * Elimina varios productos por id con un único DELETE ... WHERE id IN
+     * (...), sin cargar ni administrar entidades. Antes se leen (id, codigo)
+     * de esas filas en la misma transacción, para desalojarlas de la caché de
+     * segundo nivel y devolver los códigos al llamador. El llamador es
+     * responsable de limitar el tamaño de la colección.
+     *
+     * @param ids Ids a eliminar (los que no existen se ignoran)
+     * @return códigos de los productos eliminados
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Operación de escritura
+    public List<String> deleteByIds(Collection<Integer> ids) {
+        logger.debug("Eliminando {} productos por id", ids.size());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
         try {
-            Producto producto = entityManager.find(Producto.class, id);
-            if (producto != null) {
-                entityManager.remove(producto);
-                logger.info("Producto eliminado exitosamente: {}", id);
-            } else {
-                logger.warn("No se encontró producto con ID: {}", id);
-            }
+            return eliminarFilas(buscarIdsYCodigos("id IN (" + marcadores(ids.size()) + ")", ids.toArray()));
+        } catch (Exception e) {
+            logger.error("Error al eliminar {} productos por id", ids.size(), e);
+            throw new RuntimeException("Error al eliminar de la base de datos", e);
+        }
+    }
+
+    /**
+     * Elimina varios productos por código (ver deleteByIds). El llamador es
+     * responsable de limitar el tamaño de la colección.
+     *
+     * @param codigos Códigos a eliminar (los que no existen se ignoran)
+     * @return códigos de los productos eliminados, como están en la base de
+     * datos
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Operación de escritura
+    public List<String> deleteByCodigos(Collection<String> codigos) {
+        logger.debug("Eliminando {} productos por código", codigos.size());
+        if (codigos.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            return eliminarFilas(buscarIdsYCodigos("codigo IN (" + marcadores(codigos.size()) + ")",
+                    codigos.toArray()));
         } catch (Exception e) {
-            logger.error("Error al eliminar producto con ID: {}", id, e);
+            logger.error("Error al eliminar {} productos por código", codigos.size(), e);
             throw new RuntimeException("Error al eliminar de la base de datos", e);
         }
     }
 
     /**
-     * Cuenta el total de productos en la base de datos.
+     * Cuenta los productos cuyo código empieza por el prefijo. Usado para
+     * confirmar una baja por prefijo antes de aplicarla.
+     *
+     * @param prefijo Prefijo de código, sin comodines (ya validado)
+     * @return número de productos con ese prefijo
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Lee de la primaria
+    public long countByPrefijo(String prefijo) {
+        logger.debug("Contando productos con prefijo: {}", prefijo);
+
+        try {
+            return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM productos WHERE codigo LIKE ?",
+                    Long.class, prefijo + "%");
+        } catch (Exception e) {
+            logger.error("Error al contar productos con prefijo: {}", prefijo, e);
+            throw new RuntimeException("Error al consultar la base de datos", e);
+        }
+    }
+
+    /**
+     * Elimina hasta limite productos cuyo código empieza por el prefijo, en
+     * orden de código (un rango sobre el índice único). Para eliminar todos,
+     * repetir hasta que devuelva menos de limite códigos: cada llamada es una
+     * transacción corta en lugar de un único DELETE que bloquee el rango
+     * completo.
+     *
+     * @param prefijo Prefijo de código, sin comodines (ya validado)
+     * @param limite Máximo de productos a eliminar
+     * @return códigos de los productos eliminados
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Operación de escritura
+    public List<String> deleteByPrefijo(String prefijo, int limite) {
+        logger.debug("Eliminando hasta {} productos con prefijo: {}", limite, prefijo);
+
+        try {
+            return eliminarFilas(buscarIdsYCodigos("codigo LIKE ? ORDER BY codigo LIMIT ?", prefijo + "%", limite));
+        } catch (Exception e) {
+            logger.error("Error al eliminar productos con prefijo: {}", prefijo, e);
+            throw new RuntimeException("Error al eliminar de la base de datos", e);
+        }
+    }
+
+    /**
+     * Cambia el nombre de varios productos sin cargar entidades: un SELECT
+     * ... WHERE codigo IN (...) obtiene los ids y un lote JDBC de UPDATE por
+     * clave primaria los cambia, que el driver (rewriteBatchedStatements)
+     * envía en un solo viaje. Un único UPDATE con CASE evaluaría todas las
+     * ramas en cada fila. Los productos cambiados se desalojan de la caché de
+     * segundo nivel. El llamador es responsable de limitar el tamaño del mapa.
+     *
+     * @param nombres Nuevo nombre por código (ya validados); los códigos que
+     * no existen se ignoran
+     * @return nuevo nombre por código de los productos cambiados, con el
+     * código como está en la base de datos
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    @Transactional // Operación de escritura
+    public Map<String, String> renombrar(Map<String, String> nombres) {
+        logger.debug("Renombrando {} productos", nombres.size());
+        if (nombres.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            List<IdCodigo> filas = buscarIdsYCodigos("codigo IN (" + marcadores(nombres.size()) + ")",
+                    nombres.keySet().toArray());
+            if (filas.isEmpty()) {
+                return Map.of();
+            }
+
+            // Mismo criterio que la colación de MySQL para emparejar códigos
+            Map<String, String> porCodigo = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            porCodigo.putAll(nombres);
+
+            Map<String, String> renombrados = new LinkedHashMap<>(filas.size() * 2);
+            for (IdCodigo fila : filas) {
+                renombrados.put(fila.codigo(), porCodigo.get(fila.codigo()));
+            }
+            jdbcTemplate.batchUpdate("UPDATE productos SET nombre = ? WHERE id = ?", filas, filas.size(),
+                    (ps, fila) -> {
+                        ps.setString(1, renombrados.get(fila.codigo()));
+                        ps.setInt(2, fila.id());
+                    });
+
+            desalojar(filas, false);
+            return renombrados;
+        } catch (Exception e) {
+            logger.error("Error al renombrar {} productos", nombres.size(), e);
+            throw new RuntimeException("Error al actualizar en la base de datos", e);
+        }
+    }
+
+    /**
+     * Id y código de una fila de productos.
+     */
+    private record IdCodigo(int id, String codigo) {
+    }
+
+    private List<IdCodigo> buscarIdsYCodigos(String condicion, Object... argumentos) {
+        return jdbcTemplate.query("SELECT id, codigo FROM productos WHERE " + condicion,
+                (rs, fila) -> new IdCodigo(rs.getInt(1), rs.getString(2)), argumentos);
+    }
+
+    /**
+     * DELETE ... WHERE id IN (...) de las filas y desalojo de la caché.
+     *
+     * @return códigos de las filas eliminadas
+     */
+    private List<String> eliminarFilas(List<IdCodigo> filas) {
+        if (filas.isEmpty()) {
+            return List.of();
+        }
+        Object[] ids = new Object[filas.size()];
+        List<String> codigos = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            ids[i] = filas.get(i).id();
+            codigos.add(filas.get(i).codigo());
+        }
+        jdbcTemplate.update("DELETE FROM productos WHERE id IN (" + marcadores(ids.length) + ")", ids);
+        desalojar(filas, true);
+        return codigos;
+    }
+
+    /**
+     * Desaloja las filas de la caché de segundo nivel, que no ve las
+     * sentencias JDBC. Se hace ahora y otra vez al terminar la transacción:
+     * entre ambos momentos otra sesión aún puede leer y cachear la fila
+     * anterior. Al eliminar se desaloja también la región del natural id
+     * (codigo → id), que Hibernate solo permite vaciar completa.
+     *
+     * @param filas Filas modificadas
+     * @param naturalIds true si cambió la correspondencia codigo → id
+     */
+    private void desalojar(List<IdCodigo> filas, boolean naturalIds) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Runnable desalojo = () -> {
+            for (IdCodigo fila : filas) {
+                cache.evict(Producto.class, fila.id());
+            }
+            if (naturalIds) {
+                cache.unwrap(org.hibernate.Cache.class).evictNaturalIdData(Producto.class);
+            }
+        };
+        desalojo.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    desalojo.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return "?, ?, ..." con n marcadores
+     */
+    private static String marcadores(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    /**
+     * Cuenta el total de productos en la base de datos. Lee de la primaria:
+     * dimensiona el filtro de Bloom, que se reconstruye tras altas.
      *
      * @return Número total de productos
      */
+    @Transactional // Lee de la primaria
     public long  count() {
         logger.debug("Contando productos");
 
@@ -200,19 +807,25 @@ public class ProductoRepository {
     /**
      * Verifica si existe un producto con el código dado.
      *
+     * No es de solo lectura: con réplicas configuradas consulta la primaria,
+     * que no sufre retraso de replicación. Las altas no la usan (ver
+     * insertar): entre la comprobación y el INSERT otro alta podría ganar.
+     *
      * @param codigo Código a verificar
      * @return true si existe, false si no
      */
+    @Transactional // Lee de la primaria
     public boolean existsByCodigo(String codigo) {
         logger.debug("Verificando existencia de código: {}", codigo);
 
         try {
-            String jpql = "SELECT COUNT(p) FROM Producto p WHERE p.codigo = :codigo";
-            Integer count = entityManager.createQuery(jpql, Integer.class)
+            // SELECT 1 ... LIMIT 1: se detiene en la primera fila del índice
+            // único en lugar de contar
+            boolean exists = !entityManager.createNamedQuery("Producto.existeCodigo", Integer.class)
                     .setParameter("codigo", codigo)
-                    .getSingleResult();
-
-            boolean exists = count > 0;
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty();
             logger.debug("Código {} existe: {}", codigo, exists);
             return exists;
         } catch (Exception e) {
@@ -0,0 +1,140 @@
+package com.evidencia.service;
+
+/**
+ * Algoritmos de dígito de control disponibles para configurar en
+ * verificador.digito-control.reglas. Todos se calculan sobre el código
+ * completo, prefijo incluido.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public enum AlgoritmoDigitoControl implements DigitoControl {
+
+    /**
+     * Luhn (mod 10), el de las tarjetas de pago. Solo dígitos.
+     */
+    LUHN {
+        @Override
+        public boolean esValido(CharSequence codigo) {
+            int longitud = codigo.length();
+            if (longitud < 2) {
+                return false;
+            }
+            int suma = 0;
+            boolean duplicar = false;
+            for (int i = longitud - 1; i >= 0; i--) {
+                int d = codigo.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    return false;
+                }
+                if (duplicar) {
+                    d *= 2;
+                    if (d > 9) {
+                        d -= 9;
+                    }
+                }
+                suma += d;
+                duplicar = !duplicar;
+            }
+            return suma % 10 == 0;
+        }
+    },
+
+    /**
+     * ISO 7064 MOD 11-2 (ISNI, ORCID). Dígitos, con 'X' como control para 10.
+     */
+    MOD11_2 {
+        @Override
+        public boolean esValido(CharSequence codigo) {
+            int ultimo = codigo.length() - 1;
+            if (ultimo < 1) {
+                return false;
+            }
+            int p = 0;
+            for (int i = 0; i < ultimo; i++) {
+                int d = codigo.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    return false;
+                }
+                p = ((p + d) * 2) % 11;
+            }
+            char c = codigo.charAt(ultimo);
+            int control = (c == 'X' || c == 'x') ? 10 : c - '0';
+            if (control < 0 || control > 10) {
+                return false;
+            }
+            return (p + control) % 11 == 1;
+        }
+    },
+
+    /**
+     * ISO 7064 MOD 37-2 para códigos alfanuméricos (0-9 y A-Z). El control 36
+     * se representa con '*', que el formato de código no admite: los códigos
+     * que lo necesitarían no pueden darse de alta.
+     */
+    MOD37_2 {
+        @Override
+        public boolean esValido(CharSequence codigo) {
+            int ultimo = codigo.length() - 1;
+            if (ultimo < 1) {
+                return false;
+            }
+            int p = 0;
+            for (int i = 0; i < ultimo; i++) {
+                int v = valorAlfanumerico(codigo.charAt(i));
+                if (v < 0) {
+                    return false;
+                }
+                p = ((p + v) * 2) % 37;
+            }
+            char c = codigo.charAt(ultimo);
+            int control = c == '*' ? 36 : valorAlfanumerico(c);
+            if (control < 0) {
+                return false;
+            }
+            return (p + control) % 37 == 1;
+        }
+    },
+
+    /**
+     * GS1 mod 10 (EAN-13, EAN-8, UPC-A y GTIN-14): pesos 3 y 1 alternos desde
+     * la derecha. Solo dígitos y solo esas longitudes.
+     */
+    GS1 {
+        @Override
+        public boolean esValido(CharSequence codigo) {
+            int longitud = codigo.length();
+            if (longitud != 8 && longitud != 12 && longitud != 13 && longitud != 14) {
+                return false;
+            }
+            int suma = 0;
+            boolean triple = false;
+            for (int i = longitud - 1; i >= 0; i--) {
+                int d = codigo.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    return false;
+                }
+                suma += triple ? d * 3 : d;
+                triple = !triple;
+            }
+            return suma % 10 == 0;
+        }
+    };
+
+    /**
+     * @return valor 0-35 de un carácter 0-9 / A-Z (sin distinguir mayúsculas),
+     * o -1 si no es alfanumérico
+     */
+    private static int valorAlfanumerico(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,289 @@
+package com.evidencia.service;
+
+import com.evidencia.model.RespuestaApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente de la API externa de estudiantes (Escuela de Capacitación Petrolera -
+ * SENA) usado por ApiProxyServlet.
+ *
+ * Usa un único HttpClient compartido (reutiliza conexiones y negocia HTTP/2)
+ * con llamadas no bloqueantes: el hilo de Tomcat no espera a la API externa.
+ * El número de llamadas simultáneas a la API está limitado; al superarse se
+ * responde 503 de inmediato en lugar de encolar.
+ *
+ * Las respuestas se guardan en una caché en memoria por (modo, id) con tiempo
+ * de vida configurable, desalojo LRU y "stale-while-revalidate": una respuesta
+ * recién vencida se sigue sirviendo al instante mientras se refresca en
+ * segundo plano, de modo que la API externa solo recibe los refrescos.
+ *
+ * Las URLs de la API se leen de verificador.properties, lo que permite
+ * apuntarlas a un servidor HTTP local de pruebas.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Service
+public class ApiEstudiantesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiEstudiantesService.class);
+
+    private static final String SIN_RESPUESTA = "{\"ok\":false,\"error\":\"Sin respuesta\"}";
+    private static final RespuestaApi SATURADA =
+            new RespuestaApi(503, "{\"ok\":false,\"error\":\"Demasiadas consultas simultáneas a la API\"}");
+
+    @Value("${verificador.proxy.url-publica:https://escueladecapacitacionpetrolera.edu.co/sena/api.php}")
+    private String urlPublica;
+
+    @Value("${verificador.proxy.url-privada:https://escueladecapacitacionpetrolera.edu.co/sena/api2.php}")
+    private String urlPrivada;
+
+    @Value("${verificador.proxy.api-key:abcd-1234-efgh-5678}")
+    private String apiKey;
+
+    @Value("${verificador.proxy.user-id:1}")
+    private String userId;
+
+    /**
+     * Cliente HTTP compartido: mantiene el pool de conexiones hacia la API.
+     */
+    private final HttpClient httpClient;
+    private final Duration timeoutPeticion;
+
+    /**
+     * Limita las llamadas simultáneas a la API externa.
+     */
+    private final Semaphore permisos;
+    private final int maxConcurrentes;
+
+    private final boolean cacheHabilitada;
+    private final CacheRespuestasApi cache;
+
+    /**
+     * Claves que se están refrescando en segundo plano (evita refrescos
+     * duplicados de la misma clave).
+     */
+    private final Set<String> refrescando = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Agrupa las consultas simultáneas de la misma clave (modo, id) que no
+     * están en caché en una sola llamada a la API.
+     */
+    private final ConsultasEnVuelo<String, RespuestaApi> consultasEnVuelo = new ConsultasEnVuelo<>();
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder aciertosObsoletos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder llamadasApi = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+
+    public ApiEstudiantesService(
+            @Value("${verificador.proxy.max-concurrentes:50}") int maxConcurrentes,
+            @Value("${verificador.proxy.timeout-conexion-ms:5000}") long timeoutConexionMs,
+            @Value("${verificador.proxy.timeout-ms:10000}") long timeoutMs,
+            @Value("${verificador.proxy.cache.habilitada:true}") boolean cacheHabilitada,
+            @Value("${verificador.proxy.cache.max-entradas:1000}") int maxEntradas,
+            @Value("${verificador.proxy.cache.ttl-segundos:60}") long ttlSegundos,
+            @Value("${verificador.proxy.cache.ttl-error-segundos:5}") long ttlErrorSegundos,
+            @Value("${verificador.proxy.cache.obsoleta-segundos:300}") long obsoletaSegundos) {
+        this.maxConcurrentes = maxConcurrentes;
+        this.permisos = new Semaphore(maxConcurrentes);
+        this.timeoutPeticion = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(timeoutConexionMs))
+                .build();
+        this.cacheHabilitada = cacheHabilitada;
+        this.cache = new CacheRespuestasApi(maxEntradas, ttlSegundos * 1000, ttlErrorSegundos * 1000,
+                obsoletaSegundos * 1000);
+    }
+
+    /**
+     * Consulta la API de estudiantes bloqueando hasta tener la respuesta.
+     *
+     * @param modo "auth" para la API protegida; cualquier otro valor usa la pública
+     * @param id Id del estudiante (opcional)
+     * @return respuesta de la API (desde caché si está disponible)
+     */
+    public RespuestaApi consultar(String modo, String id) {
+        return consultarAsync(modo, id).join();
+    }
+
+    /**
+     * Consulta la API de estudiantes sin bloquear. El futuro nunca termina con
+     * excepción: los errores se convierten en una RespuestaApi con status de
+     * error.
+     *
+     * @param modo "auth" para la API protegida; cualquier otro valor usa la pública
+     * @param id Id del estudiante (opcional)
+     * @return futuro con la respuesta (completado de inmediato si hay caché)
+     */
+    public CompletableFuture<RespuestaApi> consultarAsync(String modo, String id) {
+        boolean auth = "auth".equals(modo);
+        String idNormalizado = id == null || id.isBlank() ? null : id.trim();
+
+        String clave = (auth ? "auth|" : "public|") + (idNormalizado == null ? "" : idNormalizado);
+
+        if (!cacheHabilitada) {
+            return consultasEnVuelo.ejecutarAsync(clave, () -> llamarApi(auth, idNormalizado));
+        }
+
+        CacheRespuestasApi.Consulta consulta = cache.buscar(clave);
+
+        if (consulta != null && consulta.estado() == CacheRespuestasApi.Estado.FRESCA) {
+            aciertos.increment();
+            return CompletableFuture.completedFuture(consulta.respuesta());
+        }
+        if (consulta != null) {
+            aciertosObsoletos.increment();
+            refrescarEnSegundoPlano(clave, auth, idNormalizado);
+            return CompletableFuture.completedFuture(consulta.respuesta());
+        }
+
+        fallos.increment();
+        return consultasEnVuelo.ejecutarAsync(clave, () -> llamarApi(auth, idNormalizado).thenApply(respuesta -> {
+            guardarEnCache(clave, respuesta);
+            return respuesta;
+        }));
+    }
+
+    private void refrescarEnSegundoPlano(String clave, boolean auth, String id) {
+        if (!refrescando.add(clave)) {
+            return;
+        }
+        llamarApi(auth, id).whenComplete((respuesta, error) -> {
+            refrescando.remove(clave);
+            if (respuesta != null) {
+                guardarEnCache(clave, respuesta);
+            }
+        });
+    }
+
+    private void guardarEnCache(String clave, RespuestaApi respuesta) {
+        // El 503 por saturación es local, no una respuesta de la API
+        if (respuesta != SATURADA) {
+            cache.guardar(clave, respuesta);
+        }
+    }
+
+    /**
+     * Llama a la API externa de forma asíncrona. Los errores de red y los
+     * tiempos de espera se convierten en una respuesta 502 con cuerpo JSON.
+     */
+    private CompletableFuture<RespuestaApi> llamarApi(boolean auth, String id) {
+        if (!permisos.tryAcquire()) {
+            rechazadas.increment();
+            return CompletableFuture.completedFuture(SATURADA);
+        }
+        llamadasApi.increment();
+        enCurso.incrementAndGet();
+
+        String targetUrl = auth ? urlPrivada : urlPublica;
+        if (id != null) {
+            if (auth) {
+                targetUrl += "/" + URLEncoder.encode(id, StandardCharsets.UTF_8);
+            } else {
+                targetUrl += "?id=" + URLEncoder.encode(id, StandardCharsets.UTF_8);
+            }
+        }
+        String url = targetUrl;
+
+        CompletableFuture<RespuestaApi> futuro;
+        try {
+            HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeoutPeticion)
+                    .header("Content-Type", "application/json")
+                    .GET();
+            if (auth) {
+                peticion.header("X-API-KEY", apiKey);
+                peticion.header("X-USER-ID", userId);
+            }
+
+            futuro = httpClient.sendAsync(peticion.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                    .thenApply(r -> new RespuestaApi(r.statusCode(), r.body().isEmpty() ? SIN_RESPUESTA : r.body()));
+        } catch (RuntimeException e) {
+            // URL mal formada u otro error al construir la petición
+            futuro = CompletableFuture.failedFuture(e);
+        }
+
+        return futuro
+                .exceptionally(e -> {
+                    logger.warn("Error al consultar la API de estudiantes {}: {}", url, e.getMessage());
+                    return new RespuestaApi(502, SIN_RESPUESTA);
+                })
+                .whenComplete((r, e) -> {
+                    enCurso.decrementAndGet();
+                    permisos.release();
+                });
+    }
+
+    public boolean isCacheHabilitada() {
+        return cacheHabilitada;
+    }
+
+    public int getTamanoCache() {
+        return cache.tamano();
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getAciertosObsoletos() {
+        return aciertosObsoletos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getLlamadasApi() {
+        return llamadasApi.sum();
+    }
+
+    /**
+     * @return consultas que esperaron una llamada en curso a la API con la
+     * misma clave en lugar de lanzar otra
+     */
+    public long getAgrupadas() {
+        return consultasEnVuelo.getAgrupadas();
+    }
+
+    /**
+     * @return llamadas a la API externa en curso en este momento
+     */
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    public int getMaxConcurrentes() {
+        return maxConcurrentes;
+    }
+
+    /**
+     * @return consultas rechazadas con 503 por superar el máximo de llamadas
+     * simultáneas
+     */
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+}
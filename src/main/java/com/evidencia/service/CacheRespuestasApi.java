@@ -0,0 +1,114 @@
+package com.evidencia.service;
+
+import com.evidencia.model.RespuestaApi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotada (LRU) de respuestas de la API de estudiantes con tiempo de
+ * vida y ventana de "stale-while-revalidate".
+ *
+ * Cada entrada pasa por tres estados según su edad:
+ * - FRESCA: edad menor que su TTL, se sirve directamente
+ * - OBSOLETA: ya venció pero está dentro de la ventana de obsolescencia; se
+ * sirve y el llamador debe refrescarla en segundo plano
+ * - VENCIDA: fuera de la ventana, se trata como si no existiera
+ *
+ * Las respuestas de error usan su propio TTL (normalmente más corto) y no
+ * tienen ventana de obsolescencia.
+ *
+ * Thread-safe: todas las operaciones se sincronizan sobre el mapa, que solo
+ * guarda referencias y se recorre en O(1) por operación.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+class CacheRespuestasApi {
+
+    enum Estado { FRESCA, OBSOLETA }
+
+    /**
+     * Resultado de una búsqueda: la respuesta guardada y su estado.
+     */
+    record Consulta(RespuestaApi respuesta, Estado estado) {
+    }
+
+    private record Entrada(RespuestaApi respuesta, long guardadaEn) {
+    }
+
+    private final long ttlNanos;
+    private final long ttlErrorNanos;
+    private final long obsoletaNanos;
+    private final Map<String, Entrada> entradas;
+
+    /**
+     * @param maxEntradas Máximo de entradas antes de desalojar la menos usada
+     * @param ttlMillis Tiempo de vida de las respuestas exitosas
+     * @param ttlErrorMillis Tiempo de vida de las respuestas de error
+     * @param obsoletaMillis Tiempo adicional durante el que una respuesta
+     * exitosa vencida puede servirse mientras se refresca
+     */
+    CacheRespuestasApi(int maxEntradas, long ttlMillis, long ttlErrorMillis, long obsoletaMillis) {
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.ttlErrorNanos = ttlErrorMillis * 1_000_000;
+        this.obsoletaNanos = obsoletaMillis * 1_000_000;
+        // accessOrder = true: get() mueve la entrada al final (LRU)
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * @param clave Clave de la consulta
+     * @return la respuesta y su estado, o null si no hay una utilizable
+     */
+    synchronized Consulta buscar(String clave) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada == null) {
+            return null;
+        }
+        long edad = System.nanoTime() - entrada.guardadaEn;
+        boolean exitosa = entrada.respuesta.exitosa();
+
+        if (edad < (exitosa ? ttlNanos : ttlErrorNanos)) {
+            return new Consulta(entrada.respuesta, Estado.FRESCA);
+        }
+        if (exitosa && edad < ttlNanos + obsoletaNanos) {
+            return new Consulta(entrada.respuesta, Estado.OBSOLETA);
+        }
+        entradas.remove(clave);
+        return null;
+    }
+
+    /**
+     * Guarda una respuesta. Un error no reemplaza una respuesta exitosa que aún
+     * puede servirse (fresca u obsoleta): se prefiere el dato algo viejo a
+     * propagar una caída momentánea de la API.
+     *
+     * @param clave Clave de la consulta
+     * @param respuesta Respuesta obtenida de la API
+     */
+    synchronized void guardar(String clave, RespuestaApi respuesta) {
+        long ahora = System.nanoTime();
+        if (!respuesta.exitosa()) {
+            Entrada actual = entradas.get(clave);
+            if (actual != null && actual.respuesta.exitosa()
+                    && ahora - actual.guardadaEn < ttlNanos + obsoletaNanos) {
+                return;
+            }
+        }
+        entradas.put(clave, new Entrada(respuesta, ahora));
+    }
+
+    synchronized int tamano() {
+        return entradas.size();
+    }
+
+    synchronized void limpiar() {
+        entradas.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package com.evidencia.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa consultas idénticas concurrentes ("single-flight"): si llega una
+ * consulta para una clave que ya se está resolviendo, no se lanza otra; el
+ * llamador espera el resultado de la que está en curso.
+ *
+ * Solo se agrupan consultas simultáneas: en cuanto una termina, la siguiente
+ * con la misma clave vuelve a consultar. No es una caché.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del resultado
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+class ConsultasEnVuelo<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> enVuelo = new ConcurrentHashMap<>();
+
+    private final LongAdder agrupadas = new LongAdder();
+
+    /**
+     * Ejecuta la consulta en el hilo actual, o espera la que ya está en curso
+     * para la misma clave. Si la consulta lanza una excepción, todos los que
+     * esperaban la reciben.
+     *
+     * @param clave Clave de la consulta
+     * @param consulta Consulta a ejecutar si no hay otra en curso
+     * @return resultado de la consulta
+     */
+    V ejecutar(K clave, Supplier<V> consulta) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enVuelo.putIfAbsent(clave, propia);
+
+        if (existente != null) {
+            agrupadas.increment();
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException causa) {
+                    throw causa;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            V valor = consulta.get();
+            propia.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Versión asíncrona: devuelve el futuro de la consulta en curso para la
+     * clave, o lanza una nueva.
+     *
+     * @param clave Clave de la consulta
+     * @param consulta Consulta asíncrona a lanzar si no hay otra en curso
+     * @return futuro con el resultado
+     */
+    CompletableFuture<V> ejecutarAsync(K clave, Supplier<CompletableFuture<V>> consulta) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enVuelo.putIfAbsent(clave, propia);
+
+        if (existente != null) {
+            agrupadas.increment();
+            return existente;
+        }
+
+        CompletableFuture<V> futuro;
+        try {
+            futuro = consulta.get();
+        } catch (RuntimeException e) {
+            futuro = CompletableFuture.failedFuture(e);
+        }
+        futuro.whenComplete((valor, error) -> {
+            enVuelo.remove(clave, propia);
+            if (error != null) {
+                propia.completeExceptionally(error);
+            } else {
+                propia.complete(valor);
+            }
+        });
+        return propia;
+    }
+
+    /**
+     * @return número de consultas que se resolvieron esperando a otra en curso
+     */
+    long getAgrupadas() {
+        return agrupadas.sum();
+    }
+
+    /**
+     * @return consultas en curso en este momento
+     */
+    int getEnVuelo() {
+        return enVuelo.size();
+    }
+}
@@ -0,0 +1,22 @@
+package com.evidencia.service;
+
+/**
+ * Algoritmo de dígito de control. Comprueba que el último carácter de un
+ * código sea el que corresponde al resto, de modo que un código mal tecleado o
+ * inventado se rechaza sin consultar la base de datos.
+ *
+ * Las implementaciones trabajan directamente sobre los caracteres del código
+ * (sin crear objetos) y aceptan letras en minúscula como si fueran mayúsculas.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@FunctionalInterface
+public interface DigitoControl {
+
+    /**
+     * @param codigo Código completo, incluido el dígito de control al final
+     * @return true si el dígito de control es correcto
+     */
+    boolean esValido(CharSequence codigo);
+}
@@ -0,0 +1,323 @@
+package com.evidencia.service;
+
+import com.evidencia.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom construido a partir de la columna productos.codigo.
+ *
+ * ProductoService lo consulta antes que el índice y la base de datos: si el
+ * filtro dice que un código NO está, es seguro que no existe y se responde sin
+ * ir a MySQL (ni lanzar NoResultException). Si dice que "puede estar", se sigue
+ * el camino normal. Un filtro de Bloom nunca da falsos negativos, solo falsos
+ * positivos con la probabilidad configurada.
+ *
+ * Los productos eliminados no se pueden quitar del filtro; simplemente quedan
+ * como falsos positivos hasta la siguiente reconstrucción. Cuando el número de
+ * códigos supera la capacidad para la que se dimensionó, el filtro se
+ * reconstruye con el doble de capacidad, en un hilo propio para no cargar
+ * la tabla completa en el hilo de la petición que hizo el alta.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class FiltroBloomCodigos implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FiltroBloomCodigos.class);
+
+    private final ProductoRepository productoRepository;
+
+    private final boolean habilitado;
+    private final double tasaFalsosPositivos;
+    private final int capacidadMinima;
+
+    /**
+     * Filas por viaje a la base de datos durante la construcción.
+     */
+    @Value("${verificador.indice.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /**
+     * Filtro en uso. Mientras es null (antes de la carga inicial) todas las
+     * consultas responden "puede estar".
+     */
+    private volatile Bits actual;
+
+    /**
+     * Filtro que se está reconstruyendo; los códigos agregados durante la
+     * reconstrucción se escriben en ambos para no perderlos.
+     */
+    private volatile Bits siguiente;
+
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean(false);
+
+    /**
+     * Hilo de las reconstrucciones por saturación.
+     */
+    private final ExecutorService reconstrucciones = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "bloom-reconstruccion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final LongAdder descartes = new LongAdder();
+
+    /**
+     * @param productoRepository Repository usado para leer los códigos
+     * @param habilitado Valor de verificador.bloom.habilitado
+     * @param tasaFalsosPositivos Probabilidad de falso positivo objetivo
+     * @param capacidadMinima Número mínimo de códigos para dimensionar el filtro
+     */
+    @Autowired
+    public FiltroBloomCodigos(ProductoRepository productoRepository,
+            @Value("${verificador.bloom.habilitado:true}") boolean habilitado,
+            @Value("${verificador.bloom.tasa-falsos-positivos:0.01}") double tasaFalsosPositivos,
+            @Value("${verificador.bloom.capacidad-minima:10000}") int capacidadMinima) {
+        this.productoRepository = productoRepository;
+        this.habilitado = habilitado;
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+        this.capacidadMinima = capacidadMinima;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void alIniciar() {
+        if (habilitado) {
+            reconstruir();
+        } else {
+            logger.info("Filtro de Bloom de códigos deshabilitado");
+        }
+    }
+
+    /**
+     * Reconstruye el filtro a partir de todos los códigos de la base de datos.
+     * Si ya hay una reconstrucción en curso no hace nada.
+     */
+    public void reconstruir() {
+        if (!reconstruyendo.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            construir();
+        } finally {
+            reconstruyendo.set(false);
+        }
+    }
+
+    private void construir() {
+        long inicio = System.nanoTime();
+        long total = productoRepository.count();
+        int capacidad = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(capacidadMinima, total * 2));
+
+        Bits nuevo = new Bits(capacidad, tasaFalsosPositivos);
+        siguiente = nuevo;
+
+        long codigos = productoRepository.forEachCodigo(fetchSize,
+                codigo -> nuevo.agregar(codigo.trim().toUpperCase()));
+
+        actual = nuevo;
+        siguiente = null;
+
+        logger.info("Filtro de Bloom construido: {} códigos, {} bits, {} funciones hash en {} ms",
+                codigos, nuevo.numBits, nuevo.numHashes, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Indica si un código normalizado puede existir.
+     *
+     * @param codigoNormalizado Código en mayúsculas y sin espacios
+     * @return false si es seguro que el código no existe
+     */
+    public boolean puedeExistir(String codigoNormalizado) {
+        Bits bits = actual;
+        if (!habilitado || bits == null) {
+            return true;
+        }
+        if (bits.contiene(codigoNormalizado)) {
+            return true;
+        }
+        descartes.increment();
+        return false;
+    }
+
+    /**
+     * Agrega un código recién insertado (o modificado) al filtro.
+     *
+     * @param codigo Código del producto (se normaliza)
+     */
+    public void agregar(String codigo) {
+        if (!habilitado || codigo == null) {
+            return;
+        }
+        String normalizado = codigo.trim().toUpperCase();
+
+        // siguiente antes que actual: si la reconstrucción termina entre las
+        // dos lecturas, actual ya es el filtro nuevo. En el orden inverso el
+        // código podría ir solo al filtro descartado, y si la reconstrucción
+        // leyó la tabla antes del alta quedaría como falso negativo
+        Bits enConstruccion = siguiente;
+        Bits bits = actual;
+        if (enConstruccion != null) {
+            enConstruccion.agregar(normalizado);
+        }
+        if (bits != null && bits != enConstruccion) {
+            bits.agregar(normalizado);
+        }
+
+        if (bits != null && bits.elementos.sum() > bits.capacidad && reconstruyendo.compareAndSet(false, true)) {
+            logger.warn("Filtro de Bloom saturado ({} códigos, capacidad {}), reconstruyendo",
+                    bits.elementos.sum(), bits.capacidad);
+            try {
+                reconstrucciones.execute(() -> {
+                    try {
+                        construir();
+                    } catch (RuntimeException e) {
+                        logger.error("Error al reconstruir el filtro de Bloom", e);
+                    } finally {
+                        reconstruyendo.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Contexto cerrándose
+                reconstruyendo.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        reconstrucciones.shutdownNow();
+    }
+
+    /**
+     * @return tamaño del filtro en bits (0 si aún no se ha construido)
+     */
+    public long getTamanoBits() {
+        Bits bits = actual;
+        return bits == null ? 0 : bits.numBits;
+    }
+
+    public int getFuncionesHash() {
+        Bits bits = actual;
+        return bits == null ? 0 : bits.numHashes;
+    }
+
+    public long getElementos() {
+        Bits bits = actual;
+        return bits == null ? 0 : bits.elementos.sum();
+    }
+
+    /**
+     * Probabilidad estimada de falso positivo con los elementos actuales:
+     * (1 - e^(-k·n/m))^k
+     */
+    public double getTasaFalsosPositivosEstimada() {
+        Bits bits = actual;
+        if (bits == null) {
+            return 0.0;
+        }
+        double k = bits.numHashes;
+        double n = bits.elementos.sum();
+        double m = bits.numBits;
+        return Math.pow(1 - Math.exp(-k * n / m), k);
+    }
+
+    /**
+     * @return número de verificaciones descartadas sin consultar la base de datos
+     */
+    public long getDescartes() {
+        return descartes.sum();
+    }
+
+    /**
+     * Arreglo de bits de tamaño fijo con k funciones hash (doble hashing).
+     */
+    private static final class Bits {
+
+        private final int capacidad;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray palabras;
+        private final LongAdder elementos = new LongAdder();
+
+        Bits(int capacidad, double tasaFalsosPositivos) {
+            this.capacidad = capacidad;
+            // m = -n·ln(p) / (ln 2)^2 ; k = m/n · ln 2
+            long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+            int palabrasNecesarias = (int) Math.max(1, (m + 63) >>> 6);
+            this.numBits = (long) palabrasNecesarias << 6;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacidad * Math.log(2)));
+            this.palabras = new AtomicLongArray(palabrasNecesarias);
+        }
+
+        void agregar(String codigo) {
+            long h = hash(codigo);
+            long h1 = mezclar(h);
+            long h2 = mezclar(h + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                int indice = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long valor = palabras.get(indice);
+                while ((valor & mascara) == 0 && !palabras.compareAndSet(indice, valor, valor | mascara)) {
+                    valor = palabras.get(indice);
+                }
+            }
+            elementos.increment();
+        }
+
+        boolean contiene(String codigo) {
+            long h = hash(codigo);
+            long h1 = mezclar(h);
+            long h2 = mezclar(h + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a de 64 bits sobre los caracteres (sin crear arreglos).
+         */
+        private static long hash(String codigo) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < codigo.length(); i++) {
+                h ^= codigo.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        /**
+         * Paso final de MurmurHash3 para dispersar los bits.
+         */
+        private static long mezclar(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
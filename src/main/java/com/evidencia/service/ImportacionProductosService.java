@@ -0,0 +1,258 @@
+package com.evidencia.service;
+
+import com.evidencia.config.PoolesPorCarga;
+import com.evidencia.config.UsaPool;
+import com.evidencia.model.Producto;
+import com.evidencia.model.ResultadoImportacion;
+import com.evidencia.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Importación masiva de productos desde CSV.
+ *
+ * A diferencia de llamar a ProductoService.guardarProducto por cada fila (una
+ * consulta COUNT y una transacción por producto), este servicio:
+ * - Lee el CSV en streaming, línea a línea (memoria acotada al bloque actual)
+ * - Valida cada fila con las mismas reglas que validarProducto; el dígito de
+ *   control se comprueba por bloque con ReglasDigitoControl.validar
+ * - Descarta duplicados contra la base de datos con una consulta IN por bloque
+ * - Inserta cada bloque con lotes JDBC reales en una sola transacción
+ *
+ * Formato: codigo,nombre (la primera línea se ignora si es una cabecera).
+ * Se admiten campos entre comillas dobles.
+ *
+ * Si la importación falla, el resultado indica la última línea confirmada;
+ * volviendo a importar el mismo archivo desde esa línea se continúa donde se
+ * quedó sin duplicar productos. El informe del intento fallido solo cuenta
+ * las filas hasta esa línea, así que tampoco se cuentan dos veces las leídas
+ * o rechazadas.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Service
+public class ImportacionProductosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionProductosService.class);
+
+    private final ProductoRepository productoRepository;
+    private final IndiceCodigos indiceCodigos;
+    private final FiltroBloomCodigos filtroBloom;
+    private final ReglasDigitoControl reglasDigitoControl;
+
+    @Value("${verificador.importacion.tamano-bloque:1000}")
+    private int tamanoBloque = 1000;
+
+    @Value("${verificador.importacion.tamano-lote-jdbc:500}")
+    private int tamanoLoteJdbc = 500;
+
+    @Value("${verificador.importacion.max-rechazos-detallados:1000}")
+    private int maxRechazosDetallados = 1000;
+
+    @Autowired
+    public ImportacionProductosService(ProductoRepository productoRepository, IndiceCodigos indiceCodigos,
+            FiltroBloomCodigos filtroBloom, ReglasDigitoControl reglasDigitoControl) {
+        this.productoRepository = productoRepository;
+        this.indiceCodigos = indiceCodigos;
+        this.filtroBloom = filtroBloom;
+        this.reglasDigitoControl = reglasDigitoControl;
+    }
+
+    /**
+     * Importa productos desde un CSV.
+     *
+     * @param lector Contenido del CSV
+     * @param desdeLinea Última línea confirmada de un intento anterior (0 para
+     * empezar desde el inicio); las líneas hasta ella inclusive se saltan
+     * @return informe de la importación
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public ResultadoImportacion importarCsv(BufferedReader lector, long desdeLinea) {
+        logger.info("Iniciando importación de productos desde la línea {}", desdeLinea + 1);
+
+        ResultadoImportacion resultado = new ResultadoImportacion(desdeLinea, maxRechazosDetallados);
+        List<Fila> bloque = new ArrayList<>(tamanoBloque);
+        long inicio = System.nanoTime();
+        long numeroLinea = 0;
+        String error = null;
+
+        try {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (numeroLinea <= desdeLinea || linea.isBlank()) {
+                    continue;
+                }
+
+                List<String> campos = separarCampos(linea);
+                if (numeroLinea == 1 && "codigo".equalsIgnoreCase(campos.get(0).trim())) {
+                    continue; // Cabecera
+                }
+                resultado.sumarLeida();
+
+                String codigo = campos.get(0).trim();
+                String nombre = campos.size() > 1 ? campos.get(1).trim() : null;
+
+                // El dígito de control se comprueba después, para todo el bloque
+                String motivo = campos.size() > 2
+                        ? "Se esperaban 2 columnas (codigo,nombre)"
+                        : ProductoService.validarFormato(codigo, nombre);
+                if (motivo != null) {
+                    resultado.rechazar(numeroLinea, codigo, motivo);
+                    continue;
+                }
+
+                bloque.add(new Fila(numeroLinea, new Producto(codigo, nombre)));
+                if (bloque.size() >= tamanoBloque) {
+                    procesarBloque(bloque, numeroLinea, resultado, inicio);
+                    bloque.clear();
+                }
+            }
+            procesarBloque(bloque, numeroLinea, resultado, inicio);
+
+        } catch (IOException e) {
+            logger.error("Error al leer el CSV en la línea {}", numeroLinea, e);
+            error = "Error al leer el archivo en la línea " + numeroLinea;
+        } catch (RuntimeException e) {
+            logger.error("Error al importar el bloque que termina en la línea {}", numeroLinea, e);
+            error = "Error al guardar en la base de datos; reanudar desde la línea "
+                    + (resultado.getUltimaLineaConfirmada() + 1);
+        }
+
+        resultado.finalizar(System.nanoTime() - inicio, error);
+        logger.info("Importación {}: {} leídas, {} insertadas, {} rechazadas, {} filas/s",
+                resultado.isCompleta() ? "terminada" : "interrumpida",
+                resultado.getLeidas(), resultado.getInsertadas(), resultado.getRechazadas(),
+                String.format("%.0f", resultado.getFilasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Descarta los códigos con el dígito de control incorrecto, repetidos en
+     * el bloque o que ya existen, inserta el resto y marca el bloque como
+     * confirmado.
+     */
+    private void procesarBloque(List<Fila> bloque, long ultimaLinea, ResultadoImportacion resultado, long inicio) {
+        bloque = descartarInvalidas(bloque, resultado);
+        if (!bloque.isEmpty()) {
+            Set<String> codigos = new HashSet<>(bloque.size() * 2);
+            for (Fila fila : bloque) {
+                codigos.add(fila.producto.getCodigo());
+            }
+
+            Set<String> existentes = new HashSet<>();
+            for (Object[] fila : productoRepository.findCodigosYNombresByCodigos(codigos)) {
+                existentes.add(((String) fila[0]).toUpperCase());
+            }
+
+            List<Producto> nuevos = new ArrayList<>(bloque.size());
+            for (Fila fila : bloque) {
+                String codigo = fila.producto.getCodigo();
+                if (existentes.contains(codigo.toUpperCase())) {
+                    resultado.rechazar(fila.linea, codigo, "Ya existe un producto con el código: " + codigo);
+                } else {
+                    nuevos.add(fila.producto);
+                }
+            }
+
+            if (!nuevos.isEmpty()) {
+                resultado.sumarInsertadas(productoRepository.batchInsert(nuevos, tamanoLoteJdbc));
+                for (Producto producto : nuevos) {
+                    filtroBloom.agregar(producto.getCodigo());
+                    indiceCodigos.registrar(producto.getCodigo(), producto.getNombre());
+                }
+            }
+        }
+        resultado.confirmarHasta(ultimaLinea);
+
+        long nanos = System.nanoTime() - inicio;
+        logger.debug("Importación confirmada hasta la línea {} ({} filas/s)", ultimaLinea,
+                nanos == 0 ? 0 : resultado.getLeidas() * 1_000_000_000L / nanos);
+    }
+
+    /**
+     * Comprueba el dígito de control de todo el bloque con una llamada a
+     * ReglasDigitoControl.validar y descarta los códigos repetidos dentro
+     * del bloque (sin distinguir mayúsculas).
+     *
+     * @return filas que siguen siendo candidatas, en orden
+     */
+    private List<Fila> descartarInvalidas(List<Fila> bloque, ResultadoImportacion resultado) {
+        CharSequence[] codigos = new CharSequence[bloque.size()];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = bloque.get(i).producto.getCodigo();
+        }
+        boolean[] validos = new boolean[codigos.length];
+        reglasDigitoControl.validar(codigos, validos);
+
+        List<Fila> candidatas = new ArrayList<>(bloque.size());
+        Set<String> vistos = new HashSet<>(bloque.size() * 2);
+        for (int i = 0; i < codigos.length; i++) {
+            Fila fila = bloque.get(i);
+            String codigo = fila.producto.getCodigo();
+            if (!validos[i]) {
+                resultado.rechazar(fila.linea, codigo, ProductoService.DIGITO_CONTROL_INVALIDO);
+            } else if (!vistos.add(codigo.toUpperCase())) {
+                resultado.rechazar(fila.linea, codigo, "Código duplicado en el archivo: " + codigo);
+            } else {
+                candidatas.add(fila);
+            }
+        }
+        return candidatas;
+    }
+
+    /**
+     * Separa una línea CSV en campos. Admite campos entre comillas dobles con
+     * comas dentro y comillas escapadas como "".
+     *
+     * @param linea Línea del archivo
+     * @return Lista de campos (al menos uno)
+     */
+    static List<String> separarCampos(String linea) {
+        List<String> campos = new ArrayList<>(2);
+        StringBuilder actual = new StringBuilder(linea.length());
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Producto pendiente de insertar junto con su línea de origen.
+     */
+    private record Fila(long linea, Producto producto) {
+    }
+}
@@ -0,0 +1,287 @@
+package com.evidencia.service;
+
+import com.evidencia.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índice en memoria codigo → nombre que se sitúa delante de
+ * ProductoRepository.findByCodigo.
+ *
+ * Se carga completo al arrancar la aplicación y ProductoService lo mantiene
+ * actualizado al guardar, actualizar o eliminar productos. Las búsquedas no
+ * lo modifican: si un código no está en el índice se consulta la base de
+ * datos, pero el resultado no se agrega, porque una baja o un cambio de
+ * código confirmado entre esa consulta y la escritura dejaría en el índice
+ * una entrada obsoleta para siempre. Los productos dados de alta por otra
+ * instancia se consultan en la base de datos hasta la siguiente recarga.
+ *
+ * Las claves se guardan normalizadas (trim + mayúsculas), igual que hace
+ * ProductoService.verificarCodigo antes de consultar.
+ *
+ * Con verificador.indice.compacto=true las entradas se guardan en una
+ * TablaCodigosCompacta (arrays primitivos) en lugar de un ConcurrentHashMap,
+ * para catálogos que no caben como Strings en el heap. En ese modo los
+ * códigos no alfanuméricos o de más de 50 caracteres no se indexan y se
+ * consultan siempre en la base de datos.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class IndiceCodigos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceCodigos.class);
+
+    private final ProductoRepository productoRepository;
+
+    private final boolean habilitado;
+
+    /**
+     * Filas por viaje a la base de datos durante la carga.
+     */
+    @Value("${verificador.indice.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /**
+     * Mapa codigo normalizado → nombre del producto. recargar() construye uno
+     * nuevo y lo publica de una vez, así las búsquedas nunca ven el índice a
+     * medio cargar.
+     */
+    private volatile Map<String, String> nombresPorCodigo = new ConcurrentHashMap<>();
+
+    /**
+     * Tabla compacta que sustituye a nombresPorCodigo, o null si no se usa.
+     */
+    private final TablaCodigosCompacta tablaCompacta;
+
+    /**
+     * Serializa las escrituras con el inicio y el final de recargar().
+     */
+    private final Object escrituras = new Object();
+
+    /**
+     * Escrituras hechas mientras recargar() lee la base de datos, en orden;
+     * nombre null es una baja. Se aplican al índice nuevo antes de
+     * publicarlo, porque el cursor puede no verlas. null si no hay carga en
+     * curso.
+     */
+    private List<String[]> pendientes;
+
+    // Contadores (LongAdder evita contención entre hilos de Tomcat)
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+    private final LongAdder actualizaciones = new LongAdder();
+
+    /**
+     * @param productoRepository Repository usado para la carga inicial
+     * @param habilitado Valor de verificador.indice.habilitado
+     * @param compacto Valor de verificador.indice.compacto
+     */
+    @Autowired
+    public IndiceCodigos(ProductoRepository productoRepository,
+            @Value("${verificador.indice.habilitado:true}") boolean habilitado,
+            @Value("${verificador.indice.compacto:false}") boolean compacto) {
+        this.productoRepository = productoRepository;
+        this.habilitado = habilitado;
+        this.tablaCompacta = habilitado && compacto ? new TablaCodigosCompacta(0) : null;
+    }
+
+    /**
+     * Carga el índice cuando Spring termina de inicializar el contexto (los
+     * proxies transaccionales ya están disponibles en ese momento).
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void alIniciar() {
+        if (habilitado) {
+            recargar();
+        } else {
+            logger.info("Índice de códigos deshabilitado");
+        }
+    }
+
+    /**
+     * Reemplaza el contenido del índice con los códigos de la base de datos.
+     * Las filas se leen con un cursor y se agregan a un índice nuevo sin
+     * guardarlas; las búsquedas usan el anterior hasta que termina la carga.
+     * Las altas y bajas registradas durante la carga se aplican a ambos: al
+     * anterior en el momento y al nuevo justo antes de publicarlo.
+     */
+    public synchronized void recargar() {
+        long inicio = System.nanoTime();
+        int previstos = (int) Math.min(productoRepository.count(), Integer.MAX_VALUE);
+
+        synchronized (escrituras) {
+            pendientes = new ArrayList<>();
+        }
+        try {
+            if (tablaCompacta != null) {
+                TablaCodigosCompacta.Carga carga = tablaCompacta.iniciarCarga(previstos);
+                productoRepository.forEachCodigoYNombre(fetchSize,
+                        (codigo, nombre) -> carga.agregar(codigo.trim(), nombre));
+                synchronized (escrituras) {
+                    for (String[] escritura : pendientes) {
+                        if (escritura[1] != null) {
+                            carga.agregar(escritura[0], escritura[1]);
+                        } else {
+                            carga.eliminar(escritura[0]);
+                        }
+                    }
+                    carga.publicar();
+                }
+                if (carga.getOmitidos() > 0) {
+                    logger.warn("Índice compacto: {} códigos no alfanuméricos o de más de {} caracteres "
+                            + "se consultarán en la base de datos", carga.getOmitidos(),
+                            TablaCodigosCompacta.LONGITUD_MAXIMA);
+                }
+            } else {
+                Map<String, String> nuevo = new ConcurrentHashMap<>(previstos);
+                productoRepository.forEachCodigoYNombre(fetchSize,
+                        (codigo, nombre) -> nuevo.put(normalizar(codigo), nombre));
+                synchronized (escrituras) {
+                    for (String[] escritura : pendientes) {
+                        if (escritura[1] != null) {
+                            nuevo.put(escritura[0], escritura[1]);
+                        } else {
+                            nuevo.remove(escritura[0]);
+                        }
+                    }
+                    nombresPorCodigo = nuevo;
+                }
+            }
+        } finally {
+            synchronized (escrituras) {
+                pendientes = null;
+            }
+        }
+        recargas.increment();
+
+        logger.info("Índice de códigos cargado: {} entradas en {} ms",
+                getTamano(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * @return true si las entradas se guardan en la tabla compacta
+     */
+    public boolean isCompacto() {
+        return tablaCompacta != null;
+    }
+
+    /**
+     * Busca el nombre asociado a un código ya normalizado.
+     *
+     * @param codigoNormalizado Código en mayúsculas y sin espacios
+     * @return nombre del producto o null si no está en el índice
+     */
+    public String buscarNombre(String codigoNormalizado) {
+        String nombre = tablaCompacta != null
+                ? tablaCompacta.buscarNombre(codigoNormalizado)
+                : nombresPorCodigo.get(codigoNormalizado);
+        if (nombre != null) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+        }
+        return nombre;
+    }
+
+    /**
+     * Agrega o reemplaza una entrada del índice. Solo para productos que se
+     * acaban de guardar en la base de datos.
+     *
+     * @param codigo Código del producto (se normaliza)
+     * @param nombre Nombre del producto
+     */
+    public void registrar(String codigo, String nombre) {
+        if (!habilitado || codigo == null || nombre == null) {
+            return;
+        }
+        escribir(normalizar(codigo), nombre);
+    }
+
+    /**
+     * Quita una entrada del índice.
+     *
+     * @param codigo Código del producto (se normaliza)
+     */
+    public void eliminar(String codigo) {
+        if (!habilitado || codigo == null) {
+            return;
+        }
+        escribir(normalizar(codigo), null);
+    }
+
+    /**
+     * Aplica un alta (nombre distinto de null) o una baja al índice en uso y,
+     * si hay una recarga en curso, la anota para el índice nuevo.
+     */
+    private void escribir(String codigo, String nombre) {
+        synchronized (escrituras) {
+            if (tablaCompacta != null) {
+                if (nombre != null) {
+                    tablaCompacta.agregar(codigo, nombre);
+                } else {
+                    tablaCompacta.eliminar(codigo);
+                }
+            } else if (nombre != null) {
+                nombresPorCodigo.put(codigo, nombre);
+            } else {
+                nombresPorCodigo.remove(codigo);
+            }
+            if (pendientes != null) {
+                pendientes.add(new String[]{codigo, nombre});
+            }
+        }
+        actualizaciones.increment();
+    }
+
+    public int getTamano() {
+        return tablaCompacta != null ? tablaCompacta.getTamano() : nombresPorCodigo.size();
+    }
+
+    /**
+     * @return bytes que ocupa la tabla compacta, o -1 si no se usa
+     */
+    public long getBytesTablaCompacta() {
+        return tablaCompacta != null ? tablaCompacta.getBytes() : -1;
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getRecargas() {
+        return recargas.sum();
+    }
+
+    /**
+     * @return altas y bajas de entradas sueltas desde el arranque
+     */
+    public long getActualizaciones() {
+        return actualizaciones.sum();
+    }
+
+    private static String normalizar(String codigo) {
+        return codigo.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,244 @@
+package com.evidencia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Límite de peticiones por cliente (IP o API key) con un token bucket por
+ * cliente, para que una sola integración no agote el pool de conexiones ni
+ * las llamadas a la API de estudiantes.
+ *
+ * Cada cubeta es un único long con el "instante teórico de llegada" de la
+ * siguiente petición (algoritmo GCRA, equivalente a un token bucket de
+ * verificador.limite.rafaga fichas que se rellena a verificador.limite.tasa
+ * fichas por segundo). Admitir una petición es leer ese long y actualizarlo
+ * con compareAndSet: no hay bloqueos ni objetos por petición.
+ *
+ * Los clientes se reparten en franjas (ConcurrentHashMap independientes) y
+ * cada franja admite verificador.limite.max-clientes / FRANJAS clientes. Al
+ * superarlo se desalojan los clientes inactivos, cuya cubeta ya está llena
+ * y por tanto no guarda nada que no tenga un cliente nuevo; si aun así
+ * sobran, se desalojan clientes activos (que recuperan su ráfaga completa).
+ * Esto último solo ocurre con más clientes activos a la vez que el máximo.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class LimitadorPeticiones {
+
+    private static final VarHandle LLEGADA;
+
+    static {
+        try {
+            LLEGADA = MethodHandles.lookup().findVarHandle(Cubeta.class, "llegada", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Número de franjas (potencia de 2). */
+    private static final int FRANJAS = 64;
+
+    /** Longitud máxima de la clave de cliente que se guarda. */
+    private static final int LONGITUD_MAXIMA_CLAVE = 64;
+
+    /**
+     * Cómo se identifica a cada cliente.
+     */
+    public enum Cliente {
+        /** Dirección remota de la petición. */
+        IP,
+        /**
+         * Cabecera X-API-KEY, o la IP si no viene. La aplicación no valida
+         * las claves: usar solo detrás de un gateway que lo haga, porque un
+         * cliente podría cambiar de clave en cada petición.
+         */
+        API_KEY
+    }
+
+    /**
+     * Cubeta de un cliente: instante teórico de llegada, en nanos desde la
+     * creación del limitador.
+     */
+    private static final class Cubeta {
+        @SuppressWarnings("unused")
+        volatile long llegada;
+    }
+
+    private static final class Franja {
+        final ConcurrentHashMap<String, Cubeta> cubetas = new ConcurrentHashMap<>();
+        final AtomicInteger tamano = new AtomicInteger();
+        final AtomicBoolean desalojando = new AtomicBoolean();
+    }
+
+    private final boolean habilitado;
+    private final Cliente cliente;
+    private final double tasa;
+    private final int rafaga;
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final int maxPorFranja;
+    private final long origen = System.nanoTime();
+    private final Franja[] franjas = new Franja[FRANJAS];
+
+    private final LongAdder admitidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder desalojados = new LongAdder();
+
+    /**
+     * @param habilitado Valor de verificador.limite.habilitado
+     * @param cliente Valor de verificador.limite.cliente
+     * @param tasa Peticiones por segundo sostenidas por cliente
+     * @param rafaga Peticiones que un cliente puede hacer de golpe
+     * @param maxClientes Clientes recordados como máximo
+     * @throws IllegalArgumentException si tasa, ráfaga o máximo no son positivos
+     */
+    public LimitadorPeticiones(@Value("${verificador.limite.habilitado:false}") boolean habilitado,
+            @Value("${verificador.limite.cliente:IP}") Cliente cliente,
+            @Value("${verificador.limite.tasa:50}") double tasa,
+            @Value("${verificador.limite.rafaga:100}") int rafaga,
+            @Value("${verificador.limite.max-clientes:100000}") int maxClientes) {
+        if (!(tasa > 0) || rafaga < 1 || maxClientes < 1) {
+            throw new IllegalArgumentException("verificador.limite: tasa, rafaga y max-clientes deben ser positivos");
+        }
+        this.habilitado = habilitado;
+        this.cliente = cliente;
+        this.tasa = tasa;
+        this.rafaga = rafaga;
+        this.intervaloNanos = Math.max(1, (long) (1_000_000_000 / tasa));
+        this.toleranciaNanos = intervaloNanos * rafaga;
+        this.maxPorFranja = Math.max(1, maxClientes / FRANJAS);
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja();
+        }
+    }
+
+    /**
+     * Intenta consumir una ficha del cliente.
+     *
+     * @param clave Identificador del cliente
+     * @return 0 si la petición se admite; si no, los nanosegundos que faltan
+     * para que el cliente tenga una ficha
+     */
+    public long intentar(String clave) {
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            clave = clave.substring(0, LONGITUD_MAXIMA_CLAVE);
+        }
+        long ahora = System.nanoTime() - origen;
+        Cubeta cubeta = cubeta(clave, ahora);
+
+        long llegada = (long) LLEGADA.getVolatile(cubeta);
+        while (true) {
+            long siguiente = Math.max(llegada, ahora) + intervaloNanos;
+            long exceso = siguiente - ahora - toleranciaNanos;
+            if (exceso > 0) {
+                rechazadas.increment();
+                return exceso;
+            }
+            long vista = (long) LLEGADA.compareAndExchange(cubeta, llegada, siguiente);
+            if (vista == llegada) {
+                admitidas.increment();
+                return 0;
+            }
+            llegada = vista;
+        }
+    }
+
+    private Cubeta cubeta(String clave, long ahora) {
+        int hash = clave.hashCode();
+        Franja franja = franjas[(hash ^ (hash >>> 16)) & (FRANJAS - 1)];
+        Cubeta cubeta = franja.cubetas.get(clave);
+        if (cubeta != null) {
+            return cubeta;
+        }
+        // Cubeta llena: llegada en el pasado
+        Cubeta nueva = new Cubeta();
+        nueva.llegada = ahora;
+        cubeta = franja.cubetas.putIfAbsent(clave, nueva);
+        if (cubeta != null) {
+            return cubeta;
+        }
+        if (franja.tamano.incrementAndGet() > maxPorFranja) {
+            desalojar(franja, ahora);
+        }
+        return nueva;
+    }
+
+    /**
+     * Deja la franja por debajo de su máximo. Si otro hilo ya está
+     * desalojando, no espera: la franja puede pasarse del máximo por unas
+     * pocas entradas durante el recorrido.
+     */
+    private void desalojar(Franja franja, long ahora) {
+        if (!franja.desalojando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Primero los inactivos; deja un 10% libre para no repetir en cada alta
+            int objetivo = maxPorFranja - Math.max(1, maxPorFranja / 10);
+            for (int pasada = 0; pasada < 2 && franja.tamano.get() > objetivo; pasada++) {
+                Iterator<Map.Entry<String, Cubeta>> it = franja.cubetas.entrySet().iterator();
+                while (it.hasNext() && franja.tamano.get() > objetivo) {
+                    Map.Entry<String, Cubeta> entrada = it.next();
+                    boolean inactivo = (long) LLEGADA.getVolatile(entrada.getValue()) <= ahora;
+                    if ((inactivo || pasada == 1) && franja.cubetas.remove(entrada.getKey(), entrada.getValue())) {
+                        franja.tamano.decrementAndGet();
+                        desalojados.increment();
+                    }
+                }
+            }
+        } finally {
+            franja.desalojando.set(false);
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    public double getTasa() {
+        return tasa;
+    }
+
+    public int getRafaga() {
+        return rafaga;
+    }
+
+    public int getMaxClientes() {
+        return maxPorFranja * FRANJAS;
+    }
+
+    public long getClientes() {
+        long total = 0;
+        for (Franja franja : franjas) {
+            total += franja.tamano.get();
+        }
+        return total;
+    }
+
+    public long getAdmitidas() {
+        return admitidas.sum();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    public long getDesalojados() {
+        return desalojados.sum();
+    }
+}
@@ -1,14 +1,34 @@
 package com.evidencia.service;
 
+import com.evidencia.config.PoolesPorCarga;
+import com.evidencia.config.UsaPool;
+import com.evidencia.model.PaginaProductos;
 import com.evidencia.model.Producto;
+import com.evidencia.model.ResumenProducto;
+import com.evidencia.model.ResultadoVerificacion;
 import com.evidencia.repository.ProductoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Servicio para la lógica de negocio relacionada con Productos. Esta capa se
@@ -39,15 +59,99 @@ public class ProductoService {
      */
     private final ProductoRepository productoRepository;
 
+    /**
+     * Índice en memoria codigo → nombre consultado antes que la base de datos.
+     */
+    private final IndiceCodigos indiceCodigos;
+
+    /**
+     * Filtro de Bloom que descarta códigos inexistentes sin consultar MySQL.
+     */
+    private final FiltroBloomCodigos filtroBloom;
+
+    /**
+     * Reglas de dígito de control por prefijo; descartan códigos mal formados
+     * antes que el filtro de Bloom.
+     */
+    private final ReglasDigitoControl reglasDigitoControl;
+
+    /**
+     * Snapshot del catálogo mapeado en memoria; con él cargado las
+     * verificaciones no consultan MySQL.
+     */
+    private final SnapshotCodigos snapshotCodigos;
+
+    /**
+     * Agrupa las búsquedas simultáneas del mismo código en una sola consulta
+     * a la base de datos.
+     */
+    private final ConsultasEnVuelo<String, Optional<Producto>> busquedasEnVuelo = new ConsultasEnVuelo<>();
+
+    /**
+     * Con la caché de segundo nivel las verificaciones usan findByCodigo
+     * (natural id, servido desde la caché); sin ella, la proyección
+     * findResumenByCodigo, que no hidrata la entidad.
+     */
+    @Value("${verificador.cache-segundo-nivel.habilitada:false}")
+    private boolean cacheSegundoNivel = false;
+
+    /**
+     * Número máximo de códigos por consulta IN en la verificación por lotes.
+     */
+    @Value("${verificador.lote.tamano-bloque:500}")
+    private int tamanoBloqueLote = 500;
+
+    /**
+     * Tamaño máximo de página en el listado paginado.
+     */
+    @Value("${verificador.paginacion.tamano-maximo:500}")
+    private int tamanoMaximoPagina = 500;
+
+    /**
+     * Filas por viaje a la base de datos al exportar el catálogo.
+     */
+    @Value("${verificador.exportacion.fetch-size:1000}")
+    private int fetchSizeExportacion = 1000;
+
+    /**
+     * Filas por lote JDBC en guardarProductos (las mismas que en la
+     * importación masiva).
+     */
+    @Value("${verificador.importacion.tamano-lote-jdbc:500}")
+    private int tamanoLoteJdbc = 500;
+
+    /**
+     * Filas por sentencia (y por transacción) en las bajas y renombrados
+     * masivos.
+     */
+    @Value("${verificador.masivo.tamano-bloque:1000}")
+    private int tamanoBloqueMasivo = 1000;
+
+    /**
+     * Longitud mínima de un prefijo de baja sin número de esperados.
+     */
+    @Value("${verificador.masivo.longitud-minima-prefijo:3}")
+    private int longitudMinimaPrefijo = 3;
+
     /**
      * Constructor con inyección de dependencias. Spring llama a este
      * constructor y le pasa el ProductoRepository.
      *
      * @param productoRepository Repository a inyectar
+     * @param indiceCodigos Índice en memoria de códigos
+     * @param filtroBloom Filtro de Bloom de códigos
+     * @param reglasDigitoControl Reglas de dígito de control
+     * @param snapshotCodigos Snapshot del catálogo mapeado en memoria
      */
     @Autowired
-    public ProductoService(ProductoRepository productoRepository) {
+    public ProductoService(ProductoRepository productoRepository, IndiceCodigos indiceCodigos,
+            FiltroBloomCodigos filtroBloom, ReglasDigitoControl reglasDigitoControl,
+            SnapshotCodigos snapshotCodigos) {
         this.productoRepository = productoRepository;
+        this.indiceCodigos = indiceCodigos;
+        this.filtroBloom = filtroBloom;
+        this.reglasDigitoControl = reglasDigitoControl;
+        this.snapshotCodigos = snapshotCodigos;
         logger.info("ProductoService inicializado con éxito");
     }
 
@@ -55,6 +159,14 @@ public class ProductoService {
      * Verifica si un código de producto existe en la base de datos. Este es el
      * método principal usado por el servlet/controlador.
      *
+     * Si el índice en memoria está habilitado y contiene el código, se responde
+     * sin consultar MySQL con un Producto que solo tiene código y nombre. Si
+     * hay que consultar, el Producto devuelto no está administrado y (salvo
+     * con la caché de segundo nivel) no tiene id. Antes
+     * aún, el dígito de control y el filtro de Bloom descartan los códigos que
+     * seguro no existen. Con un snapshot cargado, el código se busca primero
+     * en él (y, en modo autoritativo, solo en él).
+     *
      * @param codigo Código a verificar (será normalizado)
      * @return Optional con el Producto si existe, vacío si no
      */
@@ -71,18 +183,152 @@ public class ProductoService {
         String codigoNormalizado = codigo.trim().toUpperCase();
         logger.debug("Código normalizado: {}", codigoNormalizado);
 
-        // Delegar al repository
-        Optional<Producto> producto = productoRepository.findByCodigo(codigoNormalizado);
+        // Rechazar códigos con el dígito de control incorrecto
+        if (!reglasDigitoControl.esValido(codigoNormalizado)) {
+            logger.debug("Código rechazado por el dígito de control: {}", codigoNormalizado);
+            return Optional.empty();
+        }
+
+        // Consultar el snapshot mapeado en memoria
+        if (snapshotCodigos.isCargado()) {
+            String nombre = snapshotCodigos.buscarNombre(codigoNormalizado);
+            if (nombre != null) {
+                logger.debug("Código verificado desde snapshot - EXISTE: {}", codigoNormalizado);
+                return Optional.of(new Producto(codigoNormalizado, nombre));
+            }
+            if (snapshotCodigos.isAutoritativo()) {
+                logger.debug("Código verificado desde snapshot - NO EXISTE: {}", codigoNormalizado);
+                return Optional.empty();
+            }
+        }
+
+        // Descartar códigos que seguro no existen (sin consultar MySQL)
+        if (!filtroBloom.puedeExistir(codigoNormalizado)) {
+            logger.debug("Código descartado por el filtro de Bloom: {}", codigoNormalizado);
+            return Optional.empty();
+        }
+
+        // Consultar el índice en memoria
+        if (indiceCodigos.isHabilitado()) {
+            String nombre = indiceCodigos.buscarNombre(codigoNormalizado);
+            if (nombre != null) {
+                logger.debug("Código verificado desde índice - EXISTE: {}", codigoNormalizado);
+                return Optional.of(new Producto(codigoNormalizado, nombre));
+            }
+        }
+
+        // Delegar al repository (las búsquedas simultáneas del mismo código
+        // comparten una sola consulta)
+        Optional<Producto> producto = busquedasEnVuelo.ejecutar(codigoNormalizado,
+                () -> cacheSegundoNivel
+                        ? productoRepository.findByCodigo(codigoNormalizado)
+                        : productoRepository.findResumenByCodigo(codigoNormalizado).map(ResumenProducto::comoProducto));
 
         if (producto.isPresent()) {
-            logger.info("Código verificado - EXISTE: {}", codigoNormalizado);
+            logger.debug("Código verificado - EXISTE: {}", codigoNormalizado);
         } else {
-            logger.info("Código verificado - NO EXISTE: {}", codigoNormalizado);
+            logger.debug("Código verificado - NO EXISTE: {}", codigoNormalizado);
         }
 
         return producto;
     }
 
+    /**
+     * Verifica varios códigos a la vez. Cada código se normaliza igual que en
+     * verificarCodigo; los que el dígito de control o el filtro de Bloom
+     * descartan, o el índice resuelve, no llegan a la base de datos, y el resto se busca en bloques con
+     * WHERE codigo IN (...) dentro de una única transacción de solo lectura.
+     *
+     * @param codigos Códigos a verificar
+     * @return Un resultado por código, en el mismo orden de entrada
+     */
+    @Transactional(readOnly = true)
+    public List<ResultadoVerificacion> verificarCodigos(List<String> codigos) {
+        logger.debug("Verificando lote de {} códigos", codigos.size());
+
+        List<ResultadoVerificacion> resultados = new ArrayList<>(codigos.size());
+        int encontrados = 0;
+
+        for (int inicio = 0; inicio < codigos.size(); inicio += tamanoBloqueLote) {
+            List<String> bloque = codigos.subList(inicio, Math.min(codigos.size(), inicio + tamanoBloqueLote));
+
+            String[] normalizados = new String[bloque.size()];
+            for (int i = 0; i < normalizados.length; i++) {
+                String codigo = bloque.get(i);
+                normalizados[i] = (codigo == null || codigo.trim().isEmpty())
+                        ? null
+                        : codigo.trim().toUpperCase();
+            }
+            boolean[] validos = new boolean[normalizados.length];
+            reglasDigitoControl.validar(normalizados, validos);
+
+            Map<String, String> nombres = resolverBloque(normalizados, validos);
+
+            for (int i = 0; i < normalizados.length; i++) {
+                String nombre = validos[i] ? nombres.get(normalizados[i]) : null;
+                if (nombre != null) {
+                    encontrados++;
+                }
+                resultados.add(new ResultadoVerificacion(bloque.get(i), normalizados[i], nombre));
+            }
+        }
+
+        logger.debug("Lote verificado: {} códigos, {} encontrados", codigos.size(), encontrados);
+        return resultados;
+    }
+
+    /**
+     * Resuelve un bloque de códigos: primero snapshot, filtro de Bloom e índice, y con
+     * una sola consulta IN los que queden pendientes.
+     *
+     * @param normalizados Códigos normalizados (null si estaban vacíos)
+     * @param validos Resultado del dígito de control de cada código
+     * @return Mapa codigo normalizado → nombre de los códigos que existen
+     */
+    private Map<String, String> resolverBloque(String[] normalizados, boolean[] validos) {
+        Map<String, String> nombres = new HashMap<>();
+        Set<String> pendientes = new HashSet<>();
+        boolean snapshot = snapshotCodigos.isCargado();
+
+        for (int i = 0; i < normalizados.length; i++) {
+            String normalizado = normalizados[i];
+            if (!validos[i]) {
+                continue;
+            }
+            if (nombres.containsKey(normalizado)) {
+                continue;
+            }
+            if (snapshot) {
+                String nombre = snapshotCodigos.buscarNombre(normalizado);
+                if (nombre != null) {
+                    nombres.put(normalizado, nombre);
+                    continue;
+                }
+                if (snapshotCodigos.isAutoritativo()) {
+                    continue;
+                }
+            }
+            if (!filtroBloom.puedeExistir(normalizado)) {
+                continue;
+            }
+            String nombre = indiceCodigos.isHabilitado() ? indiceCodigos.buscarNombre(normalizado) : null;
+            if (nombre != null) {
+                nombres.put(normalizado, nombre);
+            } else {
+                pendientes.add(normalizado);
+            }
+        }
+
+        if (!pendientes.isEmpty()) {
+            for (Object[] fila : productoRepository.findCodigosYNombresByCodigos(pendientes)) {
+                String codigo = (String) fila[0];
+                String nombre = (String) fila[1];
+                nombres.put(codigo.toUpperCase(), nombre);
+            }
+        }
+        return nombres;
+    }
+
     /**
      * Busca un producto por su código. Método alternativo a verificarCodigo
      * (mismo comportamiento).
@@ -105,6 +351,61 @@ public class ProductoService {
         return productoRepository.findAll();
     }
 
+    /**
+     * Obtiene una página del catálogo ordenado por nombre. El cursor es opaco
+     * para el cliente: se devuelve en cada página y se envía tal cual para
+     * pedir la siguiente.
+     *
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param tamano Número de productos por página (1..tamano máximo)
+     * @return Página con los productos y el cursor siguiente
+     * @throws IllegalArgumentException si el cursor o el tamaño son inválidos
+     */
+    public PaginaProductos listarPagina(String cursor, int tamano) {
+        logger.debug("Listando página de {} productos, cursor: {}", tamano, cursor);
+
+        if (tamano <= 0 || tamano > tamanoMaximoPagina) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + tamanoMaximoPagina);
+        }
+
+        String despuesDeNombre = null;
+        Integer despuesDeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String decodificado = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separador = decodificado.lastIndexOf('\u0000');
+                despuesDeNombre = decodificado.substring(0, separador);
+                despuesDeId = Integer.valueOf(decodificado.substring(separador + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        // Se pide un producto de más para saber si hay página siguiente
+        List<Producto> productos = productoRepository.findPagina(despuesDeNombre, despuesDeId, tamano + 1);
+        String siguiente = null;
+        if (productos.size() > tamano) {
+            productos = productos.subList(0, tamano);
+            Producto ultimo = productos.get(tamano - 1);
+            siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (ultimo.getNombre() + '\u0000' + ultimo.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new PaginaProductos(productos, siguiente);
+    }
+
+    /**
+     * Recorre todo el catálogo (ordenado por nombre) entregando los productos
+     * uno a uno a medida que llegan de la base de datos, sin materializar la
+     * lista completa. Pensado para exportaciones de tablas grandes.
+     *
+     * @param consumidor Recibe cada producto
+     * @return número de productos exportados
+     */
+    public long exportarTodos(Consumer<Producto> consumidor) {
+        logger.debug("Exportando todos los productos");
+        return productoRepository.forEachProducto(fetchSizeExportacion, consumidor);
+    }
+
     /**
      * Busca un producto por su ID.
      *
@@ -125,24 +426,97 @@ public class ProductoService {
     /**
      * Guarda un nuevo producto. Incluye validaciones de negocio.
      *
+     * El alta es un único INSERT: no se consulta antes si el código existe,
+     * sino que la restricción UNIQUE de la base de datos lo rechaza (también
+     * cuando dos altas del mismo código llegan a la vez).
+     *
      * @param producto Producto a guardar
      * @return Producto guardado
-     * @throws IllegalArgumentException si el producto es inválido
+     * @throws IllegalArgumentException si el producto es inválido o ya existe
+     * un producto con el mismo código
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     public Producto guardarProducto(Producto producto) {
         logger.debug("Guardando producto: {}", producto);
 
         // Validaciones de negocio
         validarProducto(producto);
 
-        // Verificar que no exista un producto con el mismo código
-        if (productoRepository.existsByCodigo(producto.getCodigo())) {
+        Producto guardado;
+        try {
+            guardado = productoRepository.insertar(producto);
+        } catch (DuplicateKeyException e) {
             String mensaje = "Ya existe un producto con el código: " + producto.getCodigo();
             logger.error(mensaje);
             throw new IllegalArgumentException(mensaje);
         }
+        filtroBloom.agregar(guardado.getCodigo());
+        indiceCodigos.registrar(guardado.getCodigo(), guardado.getNombre());
+        return guardado;
+    }
+
+    /**
+     * Guarda un producto nuevo o, si ya existe uno con el mismo código, le
+     * cambia el nombre (ver ProductoRepository.upsert).
+     *
+     * @param producto Producto a guardar
+     * @return true si se insertó, false si se actualizó el existente (en ese
+     * caso el producto recibe el id, pero no la fecha de registro)
+     * @throws IllegalArgumentException si el producto es inválido
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public boolean guardarOActualizarProducto(Producto producto) {
+        logger.debug("Guardando o actualizando producto: {}", producto);
+
+        validarProducto(producto);
+
+        boolean insertado = productoRepository.upsert(producto);
+        filtroBloom.agregar(producto.getCodigo());
+        indiceCodigos.registrar(producto.getCodigo(), producto.getNombre());
+        return insertado;
+    }
+
+    /**
+     * Guarda varios productos nuevos con INSERT multi-fila (lotes JDBC que el
+     * driver reescribe, ver ProductoRepository.batchInsert), en una sola
+     * transacción: si un código ya existe no se guarda ninguno.
+     *
+     * Para cargas grandes con filas que pueden repetirse, usar la importación
+     * CSV, que descarta los duplicados y sigue.
+     *
+     * @param productos Productos a guardar
+     * @return número de productos guardados
+     * @throws IllegalArgumentException si algún producto es inválido, un
+     * código se repite en la lista o ya existe
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public int guardarProductos(List<Producto> productos) {
+        logger.debug("Guardando lote de {} productos", productos.size());
+
+        Set<String> codigos = new HashSet<>(productos.size() * 2);
+        for (Producto producto : productos) {
+            validarProducto(producto);
+            if (!codigos.add(producto.getCodigo().toUpperCase())) {
+                throw new IllegalArgumentException("Código repetido en el lote: " + producto.getCodigo());
+            }
+        }
+        if (productos.isEmpty()) {
+            return 0;
+        }
 
-        return productoRepository.save(producto);
+        int guardados;
+        try {
+            guardados = productoRepository.batchInsert(productos, tamanoLoteJdbc);
+        } catch (DuplicateKeyException e) {
+            String mensaje = "Ya existe un producto con alguno de los códigos del lote";
+            logger.error(mensaje);
+            throw new IllegalArgumentException(mensaje);
+        }
+        for (Producto producto : productos) {
+            filtroBloom.agregar(producto.getCodigo());
+            indiceCodigos.registrar(producto.getCodigo(), producto.getNombre());
+        }
+        return guardados;
     }
 
     /**
@@ -152,19 +526,28 @@ public class ProductoService {
      * @return Producto actualizado
      * @throws IllegalArgumentException si el producto es inválido
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     public Producto actualizarProducto(Producto producto) {
         logger.debug("Actualizando producto: {}", producto);
 
         validarProducto(producto);
 
-        // Verificar que el producto existe
-        if (producto.getId() == null || !productoRepository.findById(producto.getId()).isPresent()) {
+        // Verificar que el producto existe (en la primaria: el código
+        // anterior es el que sale del índice)
+        Optional<String> codigoAnterior = producto.getId() == null
+                ? Optional.empty()
+                : productoRepository.findCodigoById(producto.getId());
+        if (!codigoAnterior.isPresent()) {
             String mensaje = "No se puede actualizar un producto que no existe";
             logger.error(mensaje);
             throw new IllegalArgumentException(mensaje);
         }
 
-        return productoRepository.update(producto);
+        Producto actualizado = productoRepository.update(producto);
+        filtroBloom.agregar(actualizado.getCodigo());
+        indiceCodigos.eliminar(codigoAnterior.get());
+        indiceCodigos.registrar(actualizado.getCodigo(), actualizado.getNombre());
+        return actualizado;
     }
 
     /**
@@ -172,6 +555,7 @@ public class ProductoService {
      *
      * @param id ID del producto a eliminar
      */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
     public void eliminarProducto(Integer id) {
         logger.debug("Eliminando producto con ID: {}", id);
 
@@ -179,7 +563,185 @@ public class ProductoService {
             throw new IllegalArgumentException("ID inválido");
         }
 
-        productoRepository.deleteById(id);
+        // Un solo DELETE que además devuelve el código para el índice
+        productoRepository.deleteByIds(List.of(id)).forEach(indiceCodigos::eliminar);
+    }
+
+    /**
+     * Elimina varios productos por id. Se eliminan en bloques de
+     * verificador.masivo.tamano-bloque con un DELETE ... WHERE id IN (...)
+     * por bloque, cada uno en su transacción: si la operación se interrumpe,
+     * los bloques anteriores quedan eliminados y basta con repetirla.
+     *
+     * Los productos eliminados salen de la caché de segundo nivel y del
+     * índice en memoria. El filtro de Bloom conserva sus códigos (solo cuesta
+     * una consulta al verificarlos) y el snapshot, hasta regenerarlo.
+     *
+     * @param ids Ids a eliminar (los inexistentes, nulos o repetidos se
+     * ignoran)
+     * @return número de productos eliminados
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public int eliminarProductos(Collection<Integer> ids) {
+        logger.debug("Eliminando {} productos por id", ids.size());
+
+        Set<Integer> unicos = new LinkedHashSet<>(ids.size() * 2);
+        for (Integer id : ids) {
+            if (id != null && id > 0) {
+                unicos.add(id);
+            }
+        }
+        return porBloques(new ArrayList<>(unicos),
+                bloque -> quitarDelIndice(productoRepository.deleteByIds(bloque)), "eliminados por id");
+    }
+
+    /**
+     * Elimina varios productos por código, en bloques como
+     * eliminarProductos.
+     *
+     * @param codigos Códigos a eliminar (se normalizan; los inexistentes,
+     * vacíos o repetidos se ignoran)
+     * @return número de productos eliminados
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public int eliminarPorCodigos(Collection<String> codigos) {
+        logger.debug("Eliminando {} productos por código", codigos.size());
+
+        Set<String> unicos = new LinkedHashSet<>(codigos.size() * 2);
+        for (String codigo : codigos) {
+            if (codigo != null && !codigo.trim().isEmpty()) {
+                unicos.add(codigo.trim().toUpperCase());
+            }
+        }
+        return porBloques(new ArrayList<>(unicos),
+                bloque -> quitarDelIndice(productoRepository.deleteByCodigos(bloque)), "eliminados por código");
+    }
+
+    /**
+     * Elimina todos los productos cuyo código empieza por el prefijo, en
+     * bloques como eliminarProductos (un rango del índice único por bloque).
+     *
+     * Un prefijo corto puede abarcar buena parte del catálogo, así que los de
+     * menos de verificador.masivo.longitud-minima-prefijo caracteres solo se
+     * aceptan con esperados. Si se indica esperados, se cuentan antes los
+     * productos con el prefijo y no se elimina nada si no coinciden.
+     *
+     * @param prefijo Prefijo de código (se normaliza; solo letras y números)
+     * @param esperados Número de productos que se espera eliminar, o null
+     * @return número de productos eliminados
+     * @throws IllegalArgumentException si el prefijo está vacío, no es
+     * alfanumérico, es demasiado corto sin esperados, o esperados no coincide
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public int eliminarPorPrefijo(String prefijo, Integer esperados) {
+        logger.debug("Eliminando productos con prefijo: {}", prefijo);
+
+        // Un prefijo vacío eliminaría el catálogo completo
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo es obligatorio");
+        }
+        String normalizado = prefijo.trim().toUpperCase();
+        if (!esAlfanumerico(normalizado)) {
+            throw new IllegalArgumentException("El prefijo solo puede contener letras y números");
+        }
+        if (esperados == null && normalizado.length() < longitudMinimaPrefijo) {
+            throw new IllegalArgumentException("Un prefijo de menos de " + longitudMinimaPrefijo
+                    + " caracteres requiere indicar esperados");
+        }
+        if (esperados != null) {
+            long existentes = productoRepository.countByPrefijo(normalizado);
+            if (existentes != esperados) {
+                throw new IllegalArgumentException("Hay " + existentes + " productos con el prefijo "
+                        + normalizado + ", no " + esperados + "; no se eliminó ninguno");
+            }
+        }
+
+        long inicio = System.nanoTime();
+        int total = 0;
+        List<String> eliminados;
+        do {
+            eliminados = productoRepository.deleteByPrefijo(normalizado, tamanoBloqueMasivo);
+            total += quitarDelIndice(eliminados);
+        } while (eliminados.size() == tamanoBloqueMasivo);
+
+        logger.info("{} productos eliminados con prefijo {} en {} ms", total, normalizado,
+                (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Cambia el nombre de varios productos, en bloques como
+     * eliminarProductos (por bloque, un SELECT de ids y un lote JDBC de
+     * UPDATE por clave primaria; ver ProductoRepository.renombrar). El índice
+     * en memoria recibe los nombres nuevos.
+     *
+     * @param nombres Nuevo nombre por código (los códigos se normalizan; los
+     * inexistentes se ignoran)
+     * @return número de productos renombrados
+     * @throws IllegalArgumentException si algún código o nombre es inválido
+     */
+    @UsaPool(PoolesPorCarga.Clase.ADMINISTRACION)
+    public int renombrarProductos(Map<String, String> nombres) {
+        logger.debug("Renombrando {} productos", nombres.size());
+
+        List<Map.Entry<String, String>> cambios = new ArrayList<>(nombres.size());
+        Set<String> codigos = new HashSet<>(nombres.size() * 2);
+        for (Map.Entry<String, String> cambio : nombres.entrySet()) {
+            String codigo = cambio.getKey() == null ? "" : cambio.getKey().trim().toUpperCase();
+            String nombre = cambio.getValue();
+            if (codigo.isEmpty()) {
+                throw new IllegalArgumentException("El código del producto es obligatorio");
+            }
+            if (nombre == null || nombre.trim().isEmpty()) {
+                throw new IllegalArgumentException("El nombre del producto es obligatorio: " + codigo);
+            }
+            if (nombre.length() > 100) {
+                throw new IllegalArgumentException("El nombre no puede tener más de 100 caracteres: " + codigo);
+            }
+            if (!codigos.add(codigo)) {
+                throw new IllegalArgumentException("Código repetido: " + codigo);
+            }
+            cambios.add(Map.entry(codigo, nombre));
+        }
+
+        return porBloques(cambios, bloque -> {
+            Map<String, String> porCodigo = new LinkedHashMap<>(bloque.size() * 2);
+            for (Map.Entry<String, String> cambio : bloque) {
+                porCodigo.put(cambio.getKey(), cambio.getValue());
+            }
+            Map<String, String> renombrados = productoRepository.renombrar(porCodigo);
+            renombrados.forEach(indiceCodigos::registrar);
+            return renombrados.size();
+        }, "renombrados");
+    }
+
+    /**
+     * Aplica una operación masiva por bloques de tamanoBloqueMasivo. Cada
+     * bloque es una llamada al repositorio, y por tanto una transacción.
+     *
+     * @param elementos Ids, códigos o cambios a aplicar
+     * @param bloque Operación de un bloque; devuelve las filas afectadas
+     * @param descripcion Para el log
+     * @return total de filas afectadas
+     */
+    private <T> int porBloques(List<T> elementos, ToIntFunction<List<T>> bloque, String descripcion) {
+        long inicio = System.nanoTime();
+        int total = 0;
+        for (int desde = 0; desde < elementos.size(); desde += tamanoBloqueMasivo) {
+            total += bloque.applyAsInt(elementos.subList(desde, Math.min(desde + tamanoBloqueMasivo, elementos.size())));
+        }
+        logger.info("{} productos {} en {} ms", total, descripcion, (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Quita del índice los códigos eliminados.
+     *
+     * @return número de códigos eliminados
+     */
+    private int quitarDelIndice(List<String> eliminados) {
+        eliminados.forEach(indiceCodigos::eliminar);
+        return eliminados.size();
     }
 
     /**
@@ -191,6 +753,14 @@ public class ProductoService {
         return productoRepository.count();
     }
 
+    /**
+     * @return número de verificaciones que reutilizaron una consulta en curso
+     * del mismo código en lugar de lanzar otra
+     */
+    public long getVerificacionesAgrupadas() {
+        return busquedasEnVuelo.getAgrupadas();
+    }
+
     /**
      * Valida los datos básicos de un producto. Lógica de negocio centralizada.
      *
@@ -202,27 +772,80 @@ public class ProductoService {
             throw new IllegalArgumentException("El producto no puede ser nulo");
         }
 
-        if (producto.getCodigo() == null || producto.getCodigo().trim().isEmpty()) {
-            throw new IllegalArgumentException("El código del producto es obligatorio");
+        String error = validarDatos(producto.getCodigo(), producto.getNombre(), reglasDigitoControl);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
         }
+    }
 
-        if (producto.getNombre() == null || producto.getNombre().trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre del producto es obligatorio");
+    /**
+     * Motivo de rechazo de un código con el dígito de control incorrecto.
+     */
+    static final String DIGITO_CONTROL_INVALIDO = "El dígito de control del código no es válido";
+
+    /**
+     * Reglas de validación de código y nombre. Compartidas con la importación
+     * masiva para que ambos caminos acepten exactamente los mismos datos.
+     *
+     * @param codigo Código del producto
+     * @param nombre Nombre del producto
+     * @param reglasDigitoControl Reglas de dígito de control a aplicar
+     * @return mensaje de error, o null si los datos son válidos
+     */
+    static String validarDatos(String codigo, String nombre, ReglasDigitoControl reglasDigitoControl) {
+        String error = validarFormato(codigo, nombre);
+        if (error == null && !reglasDigitoControl.esValido(codigo)) {
+            return DIGITO_CONTROL_INVALIDO;
+        }
+        return error;
+    }
+
+    /**
+     * validarDatos sin el dígito de control, para quien lo comprueba por
+     * lotes con ReglasDigitoControl.validar.
+     *
+     * @param codigo Código del producto
+     * @param nombre Nombre del producto
+     * @return mensaje de error, o null si los datos son válidos
+     */
+    static String validarFormato(String codigo, String nombre) {
+        if (codigo == null || codigo.trim().isEmpty()) {
+            return "El código del producto es obligatorio";
+        }
+
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return "El nombre del producto es obligatorio";
         }
 
         // Validar longitud del código
-        if (producto.getCodigo().length() > 50) {
-            throw new IllegalArgumentException("El código no puede tener más de 50 caracteres");
+        if (codigo.length() > 50) {
+            return "El código no puede tener más de 50 caracteres";
         }
 
         // Validar longitud del nombre
-        if (producto.getNombre().length() > 100) {
-            throw new IllegalArgumentException("El nombre no puede tener más de 100 caracteres");
+        if (nombre.length() > 100) {
+            return "El nombre no puede tener más de 100 caracteres";
         }
 
         // Validar formato del código (solo alfanumérico)
-        if (!producto.getCodigo().matches("[A-Za-z0-9]+")) {
-            throw new IllegalArgumentException("El código solo puede contener letras y números");
+        if (!esAlfanumerico(codigo)) {
+            return "El código solo puede contener letras y números";
+        }
+
+        return null;
+    }
+
+    /**
+     * Equivale a codigo.matches("[A-Za-z0-9]+") sin compilar una expresión
+     * regular en cada llamada.
+     */
+    private static boolean esAlfanumerico(String codigo) {
+        for (int i = 0; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,131 @@
+package com.evidencia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de accesos: una sola línea estructurada (clave=valor) por
+ * petición, en lugar de varias líneas sueltas en servlet, service y
+ * repository.
+ *
+ * Las líneas se escriben en el logger "verificador.acceso", para poder
+ * enviarlas a su propio archivo (ver logback-produccion.xml). Ejemplo:
+ *
+ * servlet=CodigoServlet resultado=encontrado clave=PROD001 us=412
+ *
+ * Las peticiones correctas (encontrado / no_encontrado) se muestrean según
+ * verificador.log.acceso.muestreo; las de error, saturado o inválidas se
+ * registran siempre.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class RegistroAccesos {
+
+    private static final Logger logger = LoggerFactory.getLogger("verificador.acceso");
+
+    private final boolean habilitado;
+
+    /**
+     * Fracción (0..1) de peticiones correctas que se registran.
+     */
+    private final double muestreo;
+
+    private final LongAdder registrados = new LongAdder();
+    private final LongAdder omitidos = new LongAdder();
+
+    /**
+     * @param habilitado Valor de verificador.log.acceso.habilitado
+     * @param muestreo Valor de verificador.log.acceso.muestreo
+     * @throws IllegalArgumentException si el muestreo no está entre 0 y 1
+     */
+    public RegistroAccesos(@Value("${verificador.log.acceso.habilitado:true}") boolean habilitado,
+            @Value("${verificador.log.acceso.muestreo:1.0}") double muestreo) {
+        if (!(muestreo >= 0 && muestreo <= 1)) {
+            throw new IllegalArgumentException("verificador.log.acceso.muestreo debe estar entre 0 y 1: " + muestreo);
+        }
+        this.habilitado = habilitado;
+        this.muestreo = muestreo;
+    }
+
+    /**
+     * Registra una petición terminada.
+     *
+     * @param servlet Servlet que atendió la petición
+     * @param resultado Resultado (mismos valores que la etiqueta de la métrica)
+     * @param clave Código consultado o clave de la petición (puede ser null)
+     * @param duracionNanos Duración total de la petición
+     */
+    public void registrar(String servlet, String resultado, String clave, long duracionNanos) {
+        if (!habilitado || !logger.isInfoEnabled()) {
+            return;
+        }
+        boolean correcta = "encontrado".equals(resultado) || "no_encontrado".equals(resultado);
+        if (correcta && muestreo < 1 && ThreadLocalRandom.current().nextDouble() >= muestreo) {
+            omitidos.increment();
+            return;
+        }
+        registrados.increment();
+        logger.info("servlet={} resultado={} clave={} us={}",
+                servlet, resultado, valor(clave), duracionNanos / 1000);
+    }
+
+    /**
+     * Devuelve la clave tal cual si es alfanumérica; si no, entre comillas y
+     * sin caracteres de control, para que no pueda partir ni falsear la línea.
+     */
+    private static String valor(String clave) {
+        if (clave == null || clave.isEmpty()) {
+            return "-";
+        }
+        boolean simple = true;
+        for (int i = 0; i < clave.length() && simple; i++) {
+            char c = clave.charAt(i);
+            simple = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '/';
+        }
+        if (simple) {
+            return clave;
+        }
+        StringBuilder sb = new StringBuilder(clave.length() + 2).append('"');
+        for (int i = 0; i < clave.length(); i++) {
+            char c = clave.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (Character.isISOControl(c)) {
+                sb.append('?');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public double getMuestreo() {
+        return muestreo;
+    }
+
+    /**
+     * @return peticiones escritas en el registro de accesos
+     */
+    public long getRegistrados() {
+        return registrados.sum();
+    }
+
+    /**
+     * @return peticiones correctas que el muestreo dejó fuera
+     */
+    public long getOmitidos() {
+        return omitidos.sum();
+    }
+}
@@ -0,0 +1,204 @@
+package com.evidencia.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reglas de dígito de control por prefijo de código.
+ *
+ * Se configuran en verificador.digito-control.reglas como una lista
+ * PREFIJO=ALGORITMO separada por comas, por ejemplo
+ * "779=GS1,ISNI=MOD11_2,*=LUHN". A cada código se le aplica la regla de
+ * prefijo más largo que coincida (sin distinguir mayúsculas); "*" es la regla
+ * por defecto. Los códigos sin regla no se comprueban, así que sin
+ * configuración todo código se acepta como antes.
+ *
+ * ProductoService la consulta antes que el filtro de Bloom: un código con el
+ * dígito de control incorrecto no puede existir y se responde sin tocar el
+ * índice ni la base de datos. La comprobación no crea objetos.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class ReglasDigitoControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReglasDigitoControl.class);
+
+    private static final String PREFIJO_POR_DEFECTO = "*";
+
+    /**
+     * Regla de un prefijo. El prefijo vacío coincide con todos los códigos.
+     */
+    private record Regla(String prefijo, DigitoControl algoritmo) {
+    }
+
+    /**
+     * Reglas ordenadas de prefijo más largo a más corto. Se sustituye el array
+     * completo al registrar una regla, por lo que se puede leer sin bloqueo.
+     */
+    private volatile Regla[] reglas = new Regla[0];
+
+    private final LongAdder rechazados = new LongAdder();
+
+    /**
+     * @param configuracion Valor de verificador.digito-control.reglas
+     * @throws IllegalArgumentException si alguna regla está mal escrita o usa
+     * un algoritmo desconocido
+     */
+    public ReglasDigitoControl(@Value("${verificador.digito-control.reglas:}") String configuracion) {
+        for (String entrada : configuracion.split(",")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            int igual = entrada.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException(
+                        "Regla de dígito de control sin '=' (se espera PREFIJO=ALGORITMO): " + entrada.trim());
+            }
+            String prefijo = entrada.substring(0, igual).trim();
+            String nombre = entrada.substring(igual + 1).trim().toUpperCase();
+            AlgoritmoDigitoControl algoritmo;
+            try {
+                algoritmo = AlgoritmoDigitoControl.valueOf(nombre);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Algoritmo de dígito de control desconocido: " + nombre
+                        + " (disponibles: " + Arrays.toString(AlgoritmoDigitoControl.values()) + ")");
+            }
+            registrar(prefijo, algoritmo);
+        }
+
+        if (reglas.length == 0) {
+            logger.info("Sin reglas de dígito de control: no se comprueba ningún código");
+        } else {
+            for (Regla regla : reglas) {
+                logger.info("Dígito de control para prefijo '{}': {}",
+                        regla.prefijo().isEmpty() ? PREFIJO_POR_DEFECTO : regla.prefijo(), regla.algoritmo());
+            }
+        }
+    }
+
+    /**
+     * Añade o sustituye la regla de un prefijo. Permite usar algoritmos propios
+     * además de los de AlgoritmoDigitoControl.
+     *
+     * @param prefijo Prefijo de código ("*" o vacío para la regla por defecto)
+     * @param algoritmo Algoritmo a aplicar a los códigos con ese prefijo
+     */
+    public synchronized void registrar(String prefijo, DigitoControl algoritmo) {
+        String clave = PREFIJO_POR_DEFECTO.equals(prefijo) ? "" : prefijo.toUpperCase();
+        Regla[] nuevas = Arrays.stream(reglas)
+                .filter(r -> !r.prefijo().equals(clave))
+                .toArray(Regla[]::new);
+        nuevas = Arrays.copyOf(nuevas, nuevas.length + 1);
+        nuevas[nuevas.length - 1] = new Regla(clave, algoritmo);
+        Arrays.sort(nuevas, Comparator.comparingInt((Regla r) -> r.prefijo().length()).reversed());
+        reglas = nuevas;
+    }
+
+    /**
+     * @param codigo Código normalizado o tal como llegó
+     * @return algoritmo que corresponde al código, o null si ninguna regla
+     * coincide
+     */
+    public DigitoControl reglaPara(CharSequence codigo) {
+        for (Regla regla : reglas) {
+            if (empiezaPor(codigo, regla.prefijo())) {
+                return regla.algoritmo();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Comprueba el dígito de control de un código.
+     *
+     * @param codigo Código a comprobar (sin espacios alrededor)
+     * @return true si el código no tiene regla o su dígito de control es
+     * correcto
+     */
+    public boolean esValido(CharSequence codigo) {
+        DigitoControl algoritmo = reglaPara(codigo);
+        if (algoritmo == null || algoritmo.esValido(codigo)) {
+            return true;
+        }
+        rechazados.increment();
+        return false;
+    }
+
+    /**
+     * Comprueba un lote de códigos. Las posiciones null se marcan como no
+     * válidas pero no cuentan como rechazadas.
+     *
+     * @param codigos Códigos a comprobar
+     * @param validos Array de salida, de al menos codigos.length posiciones
+     * @return número de códigos rechazados por el dígito de control
+     */
+    public int validar(CharSequence[] codigos, boolean[] validos) {
+        Regla[] actuales = reglas;
+        int rechazadosLote = 0;
+        for (int i = 0; i < codigos.length; i++) {
+            CharSequence codigo = codigos[i];
+            if (codigo == null) {
+                validos[i] = false;
+                continue;
+            }
+            validos[i] = true;
+            for (Regla regla : actuales) {
+                if (empiezaPor(codigo, regla.prefijo())) {
+                    if (!regla.algoritmo().esValido(codigo)) {
+                        validos[i] = false;
+                        rechazadosLote++;
+                    }
+                    break;
+                }
+            }
+        }
+        if (rechazadosLote > 0) {
+            rechazados.add(rechazadosLote);
+        }
+        return rechazadosLote;
+    }
+
+    /**
+     * Compara el prefijo (ya en mayúsculas) sin distinguir mayúsculas en el
+     * código y sin crear cadenas intermedias.
+     */
+    private static boolean empiezaPor(CharSequence codigo, String prefijo) {
+        int longitud = prefijo.length();
+        if (codigo.length() < longitud) {
+            return false;
+        }
+        for (int i = 0; i < longitud; i++) {
+            char c = codigo.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c = (char) (c - ('a' - 'A'));
+            }
+            if (c != prefijo.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true si hay al menos una regla configurada
+     */
+    public boolean isHabilitado() {
+        return reglas.length > 0;
+    }
+
+    public int getNumeroReglas() {
+        return reglas.length;
+    }
+
+    public long getRechazados() {
+        return rechazados.sum();
+    }
+}
@@ -0,0 +1,673 @@
+package com.evidencia.service;
+
+import com.evidencia.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot del catálogo (codigo → nombre) en un archivo binario ordenado que
+ * se mapea en memoria (FileChannel.map). Pensado para los kioscos de
+ * verificación: con el snapshot cargado, las verificaciones se responden sin
+ * consultar MySQL.
+ *
+ * Formato (big-endian):
+ *
+ * - cabecera: int MAGIA, int VERSION, int entradas, long generado (epoch ms)
+ * - int[entradas]: posición de cada entrada, en orden de código
+ * - entradas (en el orden en que se leyeron): byte longitud del código,
+ *   código (ASCII), short longitud del nombre, nombre (UTF-8)
+ *
+ * La búsqueda es binaria directamente sobre el buffer mapeado y no crea
+ * objetos; solo se crea el String del nombre cuando el código existe. Los
+ * códigos con caracteres no ASCII no se incluyen en el snapshot.
+ *
+ * Nunca se escribe ni se renombra sobre un archivo mapeado (Windows no lo
+ * permite): cada snapshot que se pone en uso es una versión nueva con el
+ * nombre configurado más ".N" (codigos.snap.1, codigos.snap.2, ...).
+ * regenerar() escribe la siguiente versión desde la base de datos;
+ * recargar() renombra a la siguiente versión el archivo con el nombre
+ * configurado (por ejemplo, copiado desde otra máquina) o, si no lo hay,
+ * vuelve a mapear la última versión. En ambos casos el snapshot nuevo
+ * sustituye al anterior en una sola escritura volatile, sin reiniciar: las
+ * búsquedas en curso terminan sobre el mapeo anterior. Las versiones
+ * anteriores se borran después; si el sistema no deja borrarlas mientras
+ * siguen mapeadas, se reintenta en el siguiente cambio o arranque.
+ *
+ * El snapshot no sigue las altas, cambios y bajas: refleja el catálogo de la
+ * última regeneración. En modo autoritativo, un código ausente del snapshot
+ * se responde como inexistente sin consultar MySQL.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@Component
+public class SnapshotCodigos {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCodigos.class);
+
+    private static final int MAGIA = 0x56435331; // "VCS1"
+    private static final int VERSION = 1;
+    private static final int CABECERA = 20;
+
+    private final ProductoRepository productoRepository;
+
+    /**
+     * Archivo del snapshot, o null si está deshabilitado.
+     */
+    private final Path archivo;
+
+    private final boolean autoritativo;
+
+    /**
+     * Filas por viaje a la base de datos al regenerar.
+     */
+    @Value("${verificador.indice.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    /**
+     * Snapshot en uso. Se sustituye completo al regenerar o recargar.
+     */
+    private volatile Mapeo actual;
+
+    private final AtomicBoolean regenerando = new AtomicBoolean(false);
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder cargas = new LongAdder();
+
+    /**
+     * Archivo mapeado y los datos de su cabecera.
+     */
+    private record Mapeo(Path ruta, ByteBuffer buffer, int entradas, long generado) {
+    }
+
+    /**
+     * @param productoRepository Repository usado para regenerar el snapshot
+     * @param archivo Valor de verificador.snapshot.archivo (vacío = deshabilitado)
+     * @param autoritativo Valor de verificador.snapshot.autoritativo
+     */
+    @Autowired
+    public SnapshotCodigos(ProductoRepository productoRepository,
+            @Value("${verificador.snapshot.archivo:}") String archivo,
+            @Value("${verificador.snapshot.autoritativo:false}") boolean autoritativo) {
+        this.productoRepository = productoRepository;
+        this.archivo = archivo.isBlank() ? null : Paths.get(archivo.trim());
+        this.autoritativo = autoritativo;
+    }
+
+    /**
+     * Al arrancar mapea el archivo copiado o la última versión si existen; si
+     * no, genera el snapshot desde la base de datos.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void alIniciar() {
+        if (archivo == null) {
+            logger.info("Snapshot de códigos deshabilitado");
+            return;
+        }
+        try {
+            if (Files.exists(archivo) || ultimaVersion() > 0) {
+                recargar();
+            } else {
+                regenerar();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudo cargar el snapshot de códigos {}", archivo, e);
+        }
+    }
+
+    /**
+     * Genera el snapshot con los códigos de la base de datos, lo escribe como
+     * versión nueva y lo pone en uso. Si ya hay una regeneración en curso no
+     * hace nada.
+     *
+     * @return false si había otra regeneración en curso
+     * @throws IOException si no se puede escribir o mapear el archivo
+     */
+    public boolean regenerar() throws IOException {
+        exigirHabilitado();
+        if (!regenerando.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            long inicio = System.nanoTime();
+            int previstas = (int) Math.min(productoRepository.count(), Integer.MAX_VALUE - 8);
+            int escritas;
+            synchronized (this) {
+                long version = ultimaVersion() + 1;
+                Path destino = version(version);
+                escritas = escribir(
+                        consumidor -> productoRepository.forEachCodigoYNombre(fetchSize, consumidor),
+                        previstas, destino);
+                usar(destino, version);
+            }
+            logger.info("Snapshot de códigos regenerado: {} entradas en {} ms", escritas,
+                    (System.nanoTime() - inicio) / 1_000_000);
+            return true;
+        } finally {
+            regenerando.set(false);
+        }
+    }
+
+    /**
+     * Pone en uso el archivo con el nombre configurado, renombrándolo a la
+     * siguiente versión, o si no existe vuelve a mapear la última versión.
+     * Si el archivo no es un snapshot válido se mantiene el anterior y el
+     * archivo vuelve a su nombre.
+     *
+     * @throws IOException si no hay archivo, no se puede leer o no es válido
+     */
+    public synchronized void recargar() throws IOException {
+        exigirHabilitado();
+        long version = ultimaVersion();
+        if (!Files.exists(archivo)) {
+            if (version == 0) {
+                throw new NoSuchFileException(archivo.toString());
+            }
+            usar(version(version), version);
+            return;
+        }
+        version++;
+        Path destino = version(version);
+        Files.move(archivo, destino, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            usar(destino, version);
+        } catch (IOException e) {
+            try {
+                Files.move(destino, archivo, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ignorada) {
+                logger.warn("No se pudo devolver {} a su nombre: {}", destino, ignorada.toString());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Mapea una versión, la pone en uso y borra las anteriores.
+     */
+    private void usar(Path ruta, long version) throws IOException {
+        actual = mapear(ruta);
+        cargas.increment();
+        logger.info("Snapshot de códigos cargado: {} ({} entradas)", ruta, actual.entradas());
+        borrarVersionesAnteriores(version);
+    }
+
+    /**
+     * Ruta de la versión N del snapshot: el archivo configurado más ".N".
+     */
+    private Path version(long numero) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + numero);
+    }
+
+    /**
+     * @return número de versión de un archivo del directorio, o -1 si no es
+     * una versión del snapshot
+     */
+    private long numeroVersion(Path ruta) {
+        String nombre = ruta.getFileName().toString();
+        String prefijo = archivo.getFileName() + ".";
+        if (!nombre.startsWith(prefijo) || nombre.length() == prefijo.length()
+                || nombre.length() - prefijo.length() > 18) {
+            return -1;
+        }
+        for (int i = prefijo.length(); i < nombre.length(); i++) {
+            if (nombre.charAt(i) < '0' || nombre.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(nombre.substring(prefijo.length()));
+    }
+
+    /**
+     * @return la versión más alta que hay en el directorio, o 0 si no hay
+     */
+    private long ultimaVersion() throws IOException {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        long ultima = 0;
+        if (!Files.isDirectory(directorio)) {
+            return ultima;
+        }
+        try (DirectoryStream<Path> rutas = Files.newDirectoryStream(directorio)) {
+            for (Path ruta : rutas) {
+                ultima = Math.max(ultima, numeroVersion(ruta));
+            }
+        }
+        return ultima;
+    }
+
+    /**
+     * Borra las versiones anteriores a la que está en uso. En Windows un
+     * archivo no se puede borrar mientras siga mapeado (hasta que el
+     * recolector libere el buffer), así que los fallos solo se registran.
+     */
+    private void borrarVersionesAnteriores(long enUso) {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> rutas = Files.newDirectoryStream(directorio)) {
+            for (Path ruta : rutas) {
+                long numero = numeroVersion(ruta);
+                if (numero >= 0 && numero < enUso) {
+                    try {
+                        Files.deleteIfExists(ruta);
+                    } catch (IOException e) {
+                        logger.debug("Versión anterior del snapshot sin borrar todavía: {}", ruta);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudieron borrar las versiones anteriores del snapshot: {}", e.toString());
+        }
+    }
+
+    /**
+     * Busca el nombre de un código normalizado en el snapshot.
+     *
+     * @param codigoNormalizado Código en mayúsculas y sin espacios
+     * @return el nombre, o null si el código no está en el snapshot (o no hay
+     * snapshot cargado)
+     */
+    public String buscarNombre(CharSequence codigoNormalizado) {
+        Mapeo mapeo = actual;
+        if (mapeo == null) {
+            return null;
+        }
+        int posicion = buscar(mapeo, codigoNormalizado);
+        if (posicion < 0) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        ByteBuffer buffer = mapeo.buffer();
+        int inicioNombre = posicion + 1 + (buffer.get(posicion) & 0xFF);
+        byte[] nombre = new byte[buffer.getShort(inicioNombre) & 0xFFFF];
+        buffer.get(inicioNombre + 2, nombre);
+        return new String(nombre, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indica si un código normalizado está en el snapshot, sin crear objetos.
+     *
+     * @param codigoNormalizado Código en mayúsculas y sin espacios
+     * @return true si está
+     */
+    public boolean contiene(CharSequence codigoNormalizado) {
+        Mapeo mapeo = actual;
+        return mapeo != null && buscar(mapeo, codigoNormalizado) >= 0;
+    }
+
+    /**
+     * Búsqueda binaria sobre la tabla de posiciones.
+     *
+     * @return posición de la entrada en el buffer, o -1 si no está
+     */
+    private static int buscar(Mapeo mapeo, CharSequence codigo) {
+        ByteBuffer buffer = mapeo.buffer();
+        int bajo = 0;
+        int alto = mapeo.entradas() - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int posicion = buffer.getInt(CABECERA + 4 * medio);
+            int comparacion = comparar(buffer, posicion, codigo);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return posicion;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compara el código de la entrada con el buscado, byte a carácter. Los
+     * códigos del snapshot son ASCII, así que el orden coincide con el de los
+     * bytes con que se ordenó al escribir.
+     */
+    private static int comparar(ByteBuffer buffer, int posicion, CharSequence codigo) {
+        int longitud = buffer.get(posicion) & 0xFF;
+        int minimo = Math.min(longitud, codigo.length());
+        for (int i = 0; i < minimo; i++) {
+            int diferencia = (buffer.get(posicion + 1 + i) & 0xFF) - codigo.charAt(i);
+            if (diferencia != 0) {
+                return diferencia;
+            }
+        }
+        return longitud - codigo.length();
+    }
+
+    /**
+     * Escribe un snapshot en un archivo temporal del mismo directorio y lo
+     * renombra de forma atómica al destino, que no debe estar mapeado.
+     *
+     * Las filas no se guardan en memoria: cada entrada se añade a un archivo
+     * de entradas en el orden en que llega y solo se recuerda su posición
+     * (4 bytes por código). Las posiciones se ordenan comparando los códigos
+     * sobre ese archivo mapeado, y el snapshot es la cabecera, la tabla de
+     * posiciones y una copia del archivo de entradas. Los duplicados quedan
+     * en la zona de entradas pero la tabla no apunta a ellos.
+     *
+     * @param recorrido Recorre las filas pasando codigo y nombre al consumidor
+     * @param previstas Número de filas previsto (solo dimensiona la tabla)
+     * @param destino Archivo del snapshot
+     * @return número de entradas escritas
+     * @throws IOException si no se puede escribir
+     */
+    static int escribir(Consumer<BiConsumer<String, String>> recorrido, int previstas, Path destino)
+            throws IOException {
+        Path directorio = destino.toAbsolutePath().getParent();
+        Files.createDirectories(directorio);
+        String nombreDestino = destino.getFileName().toString();
+        Path archivoEntradas = Files.createTempFile(directorio, nombreDestino, ".entradas");
+        Path temporal = Files.createTempFile(directorio, nombreDestino, ".tmp");
+        try {
+            Entradas entradas;
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(archivoEntradas), 1 << 16))) {
+                entradas = new Entradas(salida, previstas);
+                try {
+                    recorrido.accept(entradas);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+
+            int[] posiciones = entradas.posiciones;
+            int unicos;
+            try (FileChannel canal = FileChannel.open(archivoEntradas, StandardOpenOption.READ)) {
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, entradas.bytes);
+                ordenar(datos, posiciones, 0, entradas.total);
+
+                // Sin duplicados (códigos que solo difieren en mayúsculas/minúsculas)
+                unicos = 0;
+                for (int i = 0; i < entradas.total; i++) {
+                    if (unicos == 0 || compararEntradas(datos, posiciones[unicos - 1], posiciones[i]) != 0) {
+                        posiciones[unicos++] = posiciones[i];
+                    }
+                }
+            }
+            int omitidas = entradas.omitidas + entradas.total - unicos;
+            if (omitidas > 0) {
+                logger.warn("Snapshot de códigos: {} filas omitidas (vacías, duplicadas o con caracteres no ASCII)",
+                        omitidas);
+            }
+
+            try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+                    DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16))) {
+                salida.writeInt(MAGIA);
+                salida.writeInt(VERSION);
+                salida.writeInt(unicos);
+                salida.writeLong(System.currentTimeMillis());
+
+                int inicioEntradas = CABECERA + 4 * unicos;
+                for (int i = 0; i < unicos; i++) {
+                    salida.writeInt(inicioEntradas + posiciones[i]);
+                }
+                Files.copy(archivoEntradas, salida);
+                salida.flush();
+                archivo.getFD().sync();
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return unicos;
+        } finally {
+            Files.deleteIfExists(temporal);
+            Files.deleteIfExists(archivoEntradas);
+        }
+    }
+
+    /**
+     * Escribe cada fila válida como entrada y guarda su posición relativa al
+     * inicio de la zona de entradas.
+     */
+    private static final class Entradas implements BiConsumer<String, String> {
+
+        private final DataOutputStream salida;
+        int[] posiciones;
+        int total;
+        int omitidas;
+        long bytes;
+
+        Entradas(DataOutputStream salida, int previstas) {
+            this.salida = salida;
+            this.posiciones = new int[Math.max(previstas, 16)];
+        }
+
+        @Override
+        public void accept(String codigoFila, String nombreFila) {
+            String codigo = codigoFila.trim().toUpperCase();
+            byte[] nombre = nombreFila.getBytes(StandardCharsets.UTF_8);
+            if (codigo.isEmpty() || codigo.length() > 255 || nombre.length > 0xFFFF || !esAscii(codigo)) {
+                omitidas++;
+                return;
+            }
+            int largo = 1 + codigo.length() + 2 + nombre.length;
+            // Cabecera + tabla de posiciones + entradas deben caber en un int
+            if (CABECERA + 4L * (total + 1) + bytes + largo > Integer.MAX_VALUE) {
+                throw new UncheckedIOException(new IOException("El snapshot supera 2 GB"));
+            }
+            if (total == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, total + (total >> 1));
+            }
+            posiciones[total++] = (int) bytes;
+            try {
+                salida.writeByte(codigo.length());
+                salida.writeBytes(codigo); // ASCII: un byte por carácter
+                salida.writeShort(nombre.length);
+                salida.write(nombre);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes += largo;
+        }
+    }
+
+    /**
+     * Quicksort de las posiciones [desde, hasta) por el código de la entrada,
+     * sin crear objetos por comparación.
+     */
+    private static void ordenar(ByteBuffer datos, int[] posiciones, int desde, int hasta) {
+        while (hasta - desde > 16) {
+            int pivote = mediana(datos, posiciones[desde], posiciones[(desde + hasta) >>> 1], posiciones[hasta - 1]);
+            int i = desde;
+            int j = hasta - 1;
+            while (i <= j) {
+                while (compararEntradas(datos, posiciones[i], pivote) < 0) {
+                    i++;
+                }
+                while (compararEntradas(datos, posiciones[j], pivote) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = posiciones[i];
+                    posiciones[i++] = posiciones[j];
+                    posiciones[j--] = t;
+                }
+            }
+            // Recursión sobre la parte menor para acotar la pila
+            if (j + 1 - desde < hasta - i) {
+                ordenar(datos, posiciones, desde, j + 1);
+                desde = i;
+            } else {
+                ordenar(datos, posiciones, i, hasta);
+                hasta = j + 1;
+            }
+        }
+        for (int i = desde + 1; i < hasta; i++) {
+            int actual = posiciones[i];
+            int j = i - 1;
+            while (j >= desde && compararEntradas(datos, posiciones[j], actual) > 0) {
+                posiciones[j + 1] = posiciones[j];
+                j--;
+            }
+            posiciones[j + 1] = actual;
+        }
+    }
+
+    private static int mediana(ByteBuffer datos, int a, int b, int c) {
+        if (compararEntradas(datos, a, b) > 0) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (compararEntradas(datos, b, c) > 0) {
+            b = c;
+            if (compararEntradas(datos, a, b) > 0) {
+                b = a;
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Compara los códigos de dos entradas byte a byte sin signo, el mismo
+     * orden que usa comparar() en las búsquedas.
+     */
+    private static int compararEntradas(ByteBuffer datos, int a, int b) {
+        int longitudA = datos.get(a) & 0xFF;
+        int longitudB = datos.get(b) & 0xFF;
+        int minimo = Math.min(longitudA, longitudB);
+        for (int i = 1; i <= minimo; i++) {
+            int diferencia = (datos.get(a + i) & 0xFF) - (datos.get(b + i) & 0xFF);
+            if (diferencia != 0) {
+                return diferencia;
+            }
+        }
+        return longitudA - longitudB;
+    }
+
+    /**
+     * Mapea un archivo de snapshot en memoria y valida la cabecera, la tabla
+     * de posiciones y que cada entrada quede dentro del archivo, para que un
+     * archivo truncado o corrupto no sustituya al snapshot en uso.
+     */
+    private static Mapeo mapear(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < CABECERA || tamano > Integer.MAX_VALUE) {
+                throw new IOException("Tamaño de snapshot inválido: " + tamano);
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            if (buffer.getInt(0) != MAGIA || buffer.getInt(4) != VERSION) {
+                throw new IOException("El archivo no es un snapshot de códigos (versión " + VERSION + ")");
+            }
+            int entradas = buffer.getInt(8);
+            if (entradas < 0 || CABECERA + 4L * entradas > tamano) {
+                throw new IOException("Snapshot truncado: " + entradas + " entradas en " + tamano + " bytes");
+            }
+            long inicioEntradas = CABECERA + 4L * entradas;
+            for (int i = 0; i < entradas; i++) {
+                int posicion = buffer.getInt(CABECERA + 4 * i);
+                // Byte de longitud del código y short de longitud del nombre
+                if (posicion < inicioEntradas || posicion + 3L > tamano) {
+                    throw new IOException("Snapshot corrupto: la entrada " + i + " apunta fuera del archivo");
+                }
+                long inicioNombre = posicion + 1L + (buffer.get(posicion) & 0xFF);
+                if (inicioNombre + 2 > tamano
+                        || inicioNombre + 2 + (buffer.getShort((int) inicioNombre) & 0xFFFF) > tamano) {
+                    throw new IOException("Snapshot truncado: la entrada " + i + " termina fuera del archivo");
+                }
+            }
+            return new Mapeo(ruta, buffer, entradas, buffer.getLong(12));
+        }
+    }
+
+    private static boolean esAscii(String codigo) {
+        for (int i = 0; i < codigo.length(); i++) {
+            if (codigo.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void exigirHabilitado() {
+        if (archivo == null) {
+            throw new IllegalStateException("Snapshot de códigos deshabilitado (verificador.snapshot.archivo)");
+        }
+    }
+
+    public boolean isHabilitado() {
+        return archivo != null;
+    }
+
+    /**
+     * @return true si hay un snapshot mapeado en uso
+     */
+    public boolean isCargado() {
+        return actual != null;
+    }
+
+    /**
+     * @return true si un código ausente del snapshot se da por inexistente
+     */
+    public boolean isAutoritativo() {
+        return autoritativo;
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * @return versión del archivo mapeada en uso, o null si no hay
+     */
+    public Path getArchivoEnUso() {
+        Mapeo mapeo = actual;
+        return mapeo == null ? null : mapeo.ruta();
+    }
+
+    public int getEntradas() {
+        Mapeo mapeo = actual;
+        return mapeo == null ? 0 : mapeo.entradas();
+    }
+
+    /**
+     * @return fecha de generación del snapshot en uso (epoch ms), o 0
+     */
+    public long getGenerado() {
+        Mapeo mapeo = actual;
+        return mapeo == null ? 0 : mapeo.generado();
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * @return número de veces que se ha puesto en uso un snapshot
+     */
+    public long getCargas() {
+        return cargas.sum();
+    }
+}
@@ -0,0 +1,536 @@
+package com.evidencia.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tabla hash codigo → nombre sobre arrays primitivos, para catálogos de
+ * decenas de millones de códigos. Sustituye al ConcurrentHashMap de
+ * IndiceCodigos con verificador.indice.compacto=true.
+ *
+ * En lugar de un String, una entrada de mapa y un nodo por código, usa:
+ *
+ * - slots: long[] con direccionamiento abierto y sondeo lineal. Cada slot
+ *   guarda 23 bits del hash (para descartar sin leer el código) y la
+ *   posición de la entrada en la arena de códigos
+ * - arena de códigos: longitud, código empaquetado a 6 bits por carácter
+ *   ([A-Za-z0-9], sin distinguir mayúsculas) y posición del nombre
+ * - arena de nombres: longitud y nombre en UTF-8
+ *
+ * Las arenas son páginas de 1 MB, así que el GC solo ve unos pocos arrays
+ * grandes en vez de varios objetos por código. Con un código de 10
+ * caracteres y un nombre de 20 bytes, una entrada ocupa unos 45 bytes.
+ *
+ * Los códigos que no son alfanuméricos o tienen más de 50 caracteres no se
+ * guardan (agregar devuelve false). Las búsquedas no bloquean ni crean
+ * objetos, salvo el String del nombre cuando el código existe. Las escrituras
+ * se serializan; un cambio o baja deja la entrada anterior como basura en las
+ * arenas, que se recupera al redimensionar.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+public class TablaCodigosCompacta {
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Longitud máxima de código (la misma que valida ProductoService). */
+    public static final int LONGITUD_MAXIMA = 50;
+
+    private static final long VACIO = 0;
+    private static final long BORRADO = -1;
+    private static final long MASCARA_POSICION = (1L << 40) - 1;
+    private static final double CARGA_MAXIMA = 0.75;
+
+    /**
+     * Estado completo de la tabla. Redimensionar crea uno nuevo y lo publica
+     * en una escritura volatile.
+     */
+    private static final class Estado {
+        final long[] slots;
+        final Arena codigos = new Arena();
+        final Arena nombres = new Arena();
+        /** Slots no vacíos (vivos o borrados). */
+        int ocupados;
+        int vivos;
+
+        Estado(int capacidad) {
+            slots = new long[capacidad];
+        }
+    }
+
+    private volatile Estado actual;
+
+    /**
+     * @param capacidadInicial Número de códigos previsto
+     */
+    public TablaCodigosCompacta(int capacidadInicial) {
+        actual = new Estado(capacidadPara(capacidadInicial));
+    }
+
+    /**
+     * Busca el nombre de un código.
+     *
+     * @param codigo Código (se ignoran mayúsculas/minúsculas)
+     * @return el nombre, o null si no está
+     */
+    public String buscarNombre(CharSequence codigo) {
+        Estado estado = actual;
+        long entrada = buscar(estado, codigo);
+        return entrada < 0 ? null : leerNombre(estado, entrada);
+    }
+
+    /**
+     * Indica si un código está en la tabla, sin crear objetos.
+     *
+     * @param codigo Código (se ignoran mayúsculas/minúsculas)
+     * @return true si está
+     */
+    public boolean contiene(CharSequence codigo) {
+        return buscar(actual, codigo) >= 0;
+    }
+
+    /**
+     * Agrega o reemplaza un código.
+     *
+     * @param codigo Código del producto
+     * @param nombre Nombre del producto
+     * @return false si el código no se puede guardar (no alfanumérico o
+     * demasiado largo)
+     */
+    public synchronized boolean agregar(CharSequence codigo, String nombre) {
+        long hash = hash(codigo);
+        if (hash == 0) {
+            return false;
+        }
+        Estado estado = actual;
+        if (estado.ocupados + 1 > estado.slots.length * CARGA_MAXIMA) {
+            estado = redimensionar(estado);
+            actual = estado;
+        }
+        insertar(estado, codigo, nombre, hash);
+        return true;
+    }
+
+    /**
+     * Inserta o reemplaza un código en un estado con sitio libre.
+     */
+    private static void insertar(Estado estado, CharSequence codigo, String nombre, long hash) {
+        long slot = escribirEntrada(estado, codigo, nombre.getBytes(StandardCharsets.UTF_8), hash);
+
+        int i = indice(hash, estado.slots.length);
+        int libre = -1;
+        while (true) {
+            long valor = estado.slots[i];
+            if (valor == VACIO) {
+                break;
+            }
+            if (valor == BORRADO) {
+                if (libre < 0) {
+                    libre = i;
+                }
+            } else if (coincide(estado, valor, hash, codigo)) {
+                SLOT.setRelease(estado.slots, i, slot);
+                return;
+            }
+            i = siguiente(i, estado.slots.length);
+        }
+        if (libre < 0) {
+            libre = i;
+            estado.ocupados++;
+        }
+        estado.vivos++;
+        SLOT.setRelease(estado.slots, libre, slot);
+    }
+
+    /**
+     * Quita un código.
+     *
+     * @param codigo Código del producto
+     * @return true si estaba
+     */
+    public synchronized boolean eliminar(CharSequence codigo) {
+        long hash = hash(codigo);
+        if (hash == 0) {
+            return false;
+        }
+        return quitar(actual, codigo, hash);
+    }
+
+    /**
+     * Marca como borrado el slot de un código, si está.
+     */
+    private static boolean quitar(Estado estado, CharSequence codigo, long hash) {
+        for (int i = indice(hash, estado.slots.length);; i = siguiente(i, estado.slots.length)) {
+            long valor = estado.slots[i];
+            if (valor == VACIO) {
+                return false;
+            }
+            if (valor != BORRADO && coincide(estado, valor, hash, codigo)) {
+                SLOT.setRelease(estado.slots, i, BORRADO);
+                estado.vivos--;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Empieza una carga que reemplazará todo el contenido. Las búsquedas y
+     * escrituras siguen usando el contenido anterior hasta Carga.publicar().
+     *
+     * @param previstos Número de códigos previsto (si se supera, la carga
+     * redimensiona)
+     * @return carga vacía, para usar desde un solo hilo
+     */
+    public Carga iniciarCarga(int previstos) {
+        return new Carga(previstos);
+    }
+
+    /**
+     * Contenido nuevo que se llena par a par mientras se leen las filas, sin
+     * tenerlas todas en memoria.
+     */
+    public final class Carga {
+
+        private Estado nuevo;
+        private int omitidos;
+
+        private Carga(int previstos) {
+            nuevo = new Estado(capacidadPara(previstos));
+        }
+
+        /**
+         * @param codigo Código del producto
+         * @param nombre Nombre del producto
+         * @return false si el código no se puede guardar
+         */
+        public boolean agregar(CharSequence codigo, String nombre) {
+            long hash = hash(codigo);
+            if (hash == 0) {
+                omitidos++;
+                return false;
+            }
+            if (nuevo.ocupados + 1 > nuevo.slots.length * CARGA_MAXIMA) {
+                nuevo = redimensionar(nuevo);
+            }
+            insertar(nuevo, codigo, nombre, hash);
+            return true;
+        }
+
+        /**
+         * Quita un código ya agregado a la carga.
+         *
+         * @param codigo Código del producto
+         * @return true si estaba
+         */
+        public boolean eliminar(CharSequence codigo) {
+            long hash = hash(codigo);
+            return hash != 0 && quitar(nuevo, codigo, hash);
+        }
+
+        /**
+         * @return número de códigos que no se pudieron guardar
+         */
+        public int getOmitidos() {
+            return omitidos;
+        }
+
+        /**
+         * Sustituye el contenido de la tabla por el de la carga.
+         */
+        public void publicar() {
+            synchronized (TablaCodigosCompacta.this) {
+                actual = nuevo;
+            }
+        }
+    }
+
+    public int getTamano() {
+        return actual.vivos;
+    }
+
+    /**
+     * @return bytes reservados por slots y arenas
+     */
+    public long getBytes() {
+        Estado estado = actual;
+        return 8L * estado.slots.length + estado.codigos.getBytes() + estado.nombres.getBytes();
+    }
+
+    // ---------------------------------------------------------------------
+    // Búsqueda
+    // ---------------------------------------------------------------------
+
+    private static long buscar(Estado estado, CharSequence codigo) {
+        long hash = hash(codigo);
+        if (hash == 0) {
+            return -1;
+        }
+        long[] slots = estado.slots;
+        for (int i = indice(hash, slots.length);; i = siguiente(i, slots.length)) {
+            long valor = (long) SLOT.getAcquire(slots, i);
+            if (valor == VACIO) {
+                return -1;
+            }
+            if (valor != BORRADO && coincide(estado, valor, hash, codigo)) {
+                return (valor & MASCARA_POSICION) - 1;
+            }
+        }
+    }
+
+    private static boolean coincide(Estado estado, long valor, long hash, CharSequence codigo) {
+        if ((valor >>> 40) != huella(hash)) {
+            return false;
+        }
+        // Una entrada nunca cruza de página: se compara directamente sobre ella,
+        // empaquetando el código buscado byte a byte
+        long posicion = (valor & MASCARA_POSICION) - 1;
+        byte[] pagina = estado.codigos.pagina(posicion);
+        int p = Arena.desplazamiento(posicion);
+        int longitud = codigo.length();
+        if ((pagina[p++] & 0xFF) != longitud) {
+            return false;
+        }
+        int acumulado = 0;
+        int bits = 0;
+        for (int i = 0; i < longitud; i++) {
+            acumulado = (acumulado << 6) | simbolo(codigo.charAt(i));
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (pagina[p++] != (byte) (acumulado >>> bits)) {
+                    return false;
+                }
+            }
+        }
+        return bits == 0 || pagina[p] == (byte) (acumulado << (8 - bits));
+    }
+
+    /**
+     * Lee el símbolo i-ésimo (6 bits) del código empaquetado que empieza en
+     * inicio. Siempre hay un byte más después del código (la posición del
+     * nombre), así que se pueden leer dos bytes sin salir de la entrada.
+     */
+    private static int leerSimbolo(Arena arena, long inicio, int i) {
+        int bit = 6 * i;
+        long byteInicio = inicio + (bit >>> 3);
+        int dos = ((arena.get(byteInicio) & 0xFF) << 8) | (arena.get(byteInicio + 1) & 0xFF);
+        return (dos >>> (10 - (bit & 7))) & 0x3F;
+    }
+
+    private static String leerNombre(Estado estado, long entrada) {
+        Arena codigos = estado.codigos;
+        int longitud = codigos.get(entrada) & 0xFF;
+        long p = entrada + 1 + bytesEmpaquetados(longitud);
+        long posicionNombre = 0;
+        for (int i = 0; i < 5; i++) {
+            posicionNombre = (posicionNombre << 8) | (codigos.get(p + i) & 0xFF);
+        }
+        Arena nombres = estado.nombres;
+        int largo = ((nombres.get(posicionNombre) & 0xFF) << 8) | (nombres.get(posicionNombre + 1) & 0xFF);
+        return nombres.leerString(posicionNombre + 2, largo);
+    }
+
+    // ---------------------------------------------------------------------
+    // Escritura
+    // ---------------------------------------------------------------------
+
+    /**
+     * Escribe el código y el nombre en las arenas.
+     *
+     * @return valor del slot que apunta a la entrada
+     */
+    private static long escribirEntrada(Estado estado, CharSequence codigo, byte[] nombre, long hash) {
+        int largo = Math.min(nombre.length, 0xFFFF);
+        long posicionNombre = estado.nombres.reservar(2 + largo);
+        estado.nombres.put(posicionNombre, (byte) (largo >>> 8));
+        estado.nombres.put(posicionNombre + 1, (byte) largo);
+        estado.nombres.escribir(posicionNombre + 2, nombre, largo);
+
+        int longitud = codigo.length();
+        int empaquetados = bytesEmpaquetados(longitud);
+        long posicion = estado.codigos.reservar(1 + empaquetados + 5);
+        estado.codigos.put(posicion, (byte) longitud);
+        int acumulado = 0;
+        int bits = 0;
+        long p = posicion + 1;
+        for (int i = 0; i < longitud; i++) {
+            acumulado = (acumulado << 6) | simbolo(codigo.charAt(i));
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                estado.codigos.put(p++, (byte) (acumulado >>> bits));
+            }
+        }
+        if (bits > 0) {
+            estado.codigos.put(p++, (byte) (acumulado << (8 - bits)));
+        }
+        for (int i = 4; i >= 0; i--) {
+            estado.codigos.put(p++, (byte) (posicionNombre >>> (8 * i)));
+        }
+        return (huella(hash) << 40) | (posicion + 1);
+    }
+
+    /**
+     * Copia las entradas vivas a un estado nuevo con el doble de capacidad
+     * para ellas, sin la basura de cambios y bajas.
+     */
+    private static Estado redimensionar(Estado anterior) {
+        Estado nuevo = new Estado(capacidadPara(Math.max(anterior.vivos + 1, 16) * 2));
+        for (long valor : anterior.slots) {
+            if (valor == VACIO || valor == BORRADO) {
+                continue;
+            }
+            long entrada = (valor & MASCARA_POSICION) - 1;
+            String codigo = leerCodigo(anterior.codigos, entrada);
+            byte[] nombre = leerNombre(anterior, entrada).getBytes(StandardCharsets.UTF_8);
+            long hash = hash(codigo);
+            long slot = escribirEntrada(nuevo, codigo, nombre, hash);
+            int i = indice(hash, nuevo.slots.length);
+            while (nuevo.slots[i] != VACIO) {
+                i = siguiente(i, nuevo.slots.length);
+            }
+            nuevo.slots[i] = slot;
+            nuevo.ocupados++;
+            nuevo.vivos++;
+        }
+        return nuevo;
+    }
+
+    private static String leerCodigo(Arena arena, long entrada) {
+        int longitud = arena.get(entrada) & 0xFF;
+        char[] caracteres = new char[longitud];
+        for (int i = 0; i < longitud; i++) {
+            int s = leerSimbolo(arena, entrada + 1, i);
+            caracteres[i] = (char) (s <= 10 ? '0' + s - 1 : 'A' + s - 11);
+        }
+        return new String(caracteres);
+    }
+
+    // ---------------------------------------------------------------------
+    // Hash y símbolos
+    // ---------------------------------------------------------------------
+
+    /**
+     * '0'..'9' → 1..10, 'A'..'Z' y 'a'..'z' → 11..36, cualquier otro → 0.
+     */
+    private static int simbolo(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return 0;
+    }
+
+    /**
+     * @return hash del código (sin distinguir mayúsculas), o 0 si el código
+     * no se puede guardar
+     */
+    private static long hash(CharSequence codigo) {
+        int longitud = codigo.length();
+        if (longitud == 0 || longitud > LONGITUD_MAXIMA) {
+            return 0;
+        }
+        long h = longitud;
+        for (int i = 0; i < longitud; i++) {
+            int s = simbolo(codigo.charAt(i));
+            if (s == 0) {
+                return 0;
+            }
+            h = (h ^ s) * 0x9E3779B97F4A7C15L;
+        }
+        h ^= h >>> 29;
+        return h == 0 ? 1 : h;
+    }
+
+    private static long huella(long hash) {
+        return hash >>> 41;
+    }
+
+    /**
+     * Reduce el hash al rango [0, capacidad) sin exigir potencia de dos, para
+     * poder dimensionar la tabla justo al factor de carga.
+     */
+    private static int indice(long hash, int capacidad) {
+        return (int) (((hash & 0xFFFFFFFFL) * capacidad) >>> 32);
+    }
+
+    private static int siguiente(int i, int capacidad) {
+        return i + 1 == capacidad ? 0 : i + 1;
+    }
+
+    private static int bytesEmpaquetados(int longitud) {
+        return (6 * longitud + 7) >>> 3;
+    }
+
+    private static int capacidadPara(int entradas) {
+        long capacidad = (long) Math.ceil(Math.max(entradas, 16) / CARGA_MAXIMA) + 1;
+        if (capacidad > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Demasiados códigos para la tabla compacta: " + entradas);
+        }
+        return (int) capacidad;
+    }
+
+    /**
+     * Memoria de solo-añadir en páginas de 1 MB. Una reserva nunca cruza de
+     * página.
+     */
+    private static final class Arena {
+
+        private static final int BITS_PAGINA = 20;
+        private static final int TAMANO_PAGINA = 1 << BITS_PAGINA;
+        private static final int MASCARA_PAGINA = TAMANO_PAGINA - 1;
+
+        private byte[][] paginas = new byte[0][];
+        private long siguiente;
+
+        long reservar(int bytes) {
+            long inicio = siguiente;
+            if ((inicio & MASCARA_PAGINA) + bytes > TAMANO_PAGINA || inicio >>> BITS_PAGINA >= paginas.length) {
+                // Página nueva
+                inicio = (long) paginas.length << BITS_PAGINA;
+                paginas = Arrays.copyOf(paginas, paginas.length + 1);
+                paginas[paginas.length - 1] = new byte[TAMANO_PAGINA];
+            }
+            siguiente = inicio + bytes;
+            return inicio;
+        }
+
+        byte[] pagina(long posicion) {
+            return paginas[(int) (posicion >>> BITS_PAGINA)];
+        }
+
+        static int desplazamiento(long posicion) {
+            return (int) (posicion & MASCARA_PAGINA);
+        }
+
+        byte get(long posicion) {
+            return paginas[(int) (posicion >>> BITS_PAGINA)][(int) (posicion & MASCARA_PAGINA)];
+        }
+
+        void put(long posicion, byte valor) {
+            paginas[(int) (posicion >>> BITS_PAGINA)][(int) (posicion & MASCARA_PAGINA)] = valor;
+        }
+
+        void escribir(long posicion, byte[] datos, int largo) {
+            System.arraycopy(datos, 0, paginas[(int) (posicion >>> BITS_PAGINA)],
+                    (int) (posicion & MASCARA_PAGINA), largo);
+        }
+
+        String leerString(long posicion, int largo) {
+            return new String(paginas[(int) (posicion >>> BITS_PAGINA)],
+                    (int) (posicion & MASCARA_PAGINA), largo, StandardCharsets.UTF_8);
+        }
+
+        long getBytes() {
+            return (long) paginas.length * TAMANO_PAGINA;
+        }
+    }
+}
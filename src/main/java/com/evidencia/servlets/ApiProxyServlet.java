@@ -1,57 +1,134 @@
 package com.evidencia.servlets;
 
+import com.evidencia.model.RespuestaApi;
+import com.evidencia.service.ApiEstudiantesService;
+import com.evidencia.service.RegistroAccesos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 import java.io.*;
-import java.net.*;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
 
-@WebServlet("/apiProxy")
+/**
+ * Proxy hacia la API de estudiantes. Procesa cada petición en modo asíncrono
+ * (AsyncContext): el hilo de Tomcat se libera mientras la API externa responde
+ * y la respuesta se escribe cuando termina la llamada.
+ *
+ * Cada petición se mide en el timer verificador.http.peticiones
+ * (servlet=ApiProxyServlet) hasta que se escribe la respuesta, con la
+ * etiqueta resultado: encontrado (2xx), no_encontrado (404), saturado (503,
+ * límite de llamadas concurrentes) o error (resto, incluido el 504), y
+ * deja una línea en el registro de accesos con la clave mode/id.
+ */
+@WebServlet(value = "/apiProxy", asyncSupported = true)
 public class ApiProxyServlet extends HttpServlet {
 
-    private static final String API_URL_PUBLIC  = "https://escueladecapacitacionpetrolera.edu.co/sena/api.php";
-    private static final String API_URL_PRIVATE = "https://escueladecapacitacionpetrolera.edu.co/sena/api2.php";
-    private static final String API_KEY  = "abcd-1234-efgh-5678";
-    private static final String USER_ID  = "1";
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiProxyServlet.class);
+
+    private static final RespuestaApi TIEMPO_AGOTADO =
+            new RespuestaApi(504, "{\"ok\":false,\"error\":\"Tiempo de espera agotado\"}");
+
+    private ApiEstudiantesService apiEstudiantesService;
+    private MeterRegistry meterRegistry;
+    private RegistroAccesos registroAccesos;
+    private long timeoutAsyncMs;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        apiEstudiantesService = context.getBean(ApiEstudiantesService.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+        registroAccesos = context.getBean(RegistroAccesos.class);
+        // Margen sobre el timeout de la petición HTTP, que normalmente vence antes
+        timeoutAsyncMs = context.getEnvironment().getProperty("verificador.proxy.timeout-ms", Long.class, 10000L) + 2000;
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
 
+        Timer.Sample muestra = Timer.start(meterRegistry);
         String mode = req.getParameter("mode");   // "public" o "auth"
         String id   = req.getParameter("id");     // opcional
+        String clave = id == null ? mode : mode + "/" + id;
 
-        boolean isAuth = "auth".equals(mode);
-        String targetUrl = isAuth ? API_URL_PRIVATE : API_URL_PUBLIC;
+        AsyncContext async = req.startAsync();
+        async.setTimeout(timeoutAsyncMs);
+        AtomicBoolean respondida = new AtomicBoolean(false);
 
-        if (id != null && !id.isBlank()) {
-            if (isAuth) {
-                targetUrl += "/" + URLEncoder.encode(id.trim(), StandardCharsets.UTF_8);
-            } else {
-                targetUrl += "?id=" + URLEncoder.encode(id.trim(), StandardCharsets.UTF_8);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (respondida.compareAndSet(false, true)) {
+                    escribir((HttpServletResponse) event.getAsyncContext().getResponse(), TIEMPO_AGOTADO);
+                    event.getAsyncContext().complete();
+                    registrarTiempo(muestra, TIEMPO_AGOTADO.status(), clave);
+                }
             }
-        }
 
-        HttpURLConnection conn = (HttpURLConnection) new URL(targetUrl).openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setConnectTimeout(10000);
-        conn.setReadTimeout(10000);
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
 
-        if (isAuth) {
-            conn.setRequestProperty("X-API-KEY", API_KEY);
-            conn.setRequestProperty("X-USER-ID", USER_ID);
-        }
+            @Override
+            public void onError(AsyncEvent event) {
+            }
 
-        int status = conn.getResponseCode();
-        InputStream is = (status >= 400) ? conn.getErrorStream() : conn.getInputStream();
-        String body = is == null ? "{\"ok\":false,\"error\":\"Sin respuesta\"}"
-                                 : new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        apiEstudiantesService.consultarAsync(mode, id).thenAccept(respuesta -> {
+            if (!respondida.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                escribir((HttpServletResponse) async.getResponse(), respuesta);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("No se pudo escribir la respuesta del proxy: {}", e.getMessage());
+            } finally {
+                async.complete();
+                registrarTiempo(muestra, respuesta.status(), clave);
+            }
+        });
+    }
+
+    private void registrarTiempo(Timer.Sample muestra, int status, String clave) {
+        String resultado = status == 404 ? "no_encontrado"
+                : status == 503 ? "saturado"
+                : (status >= 200 && status < 300) ? "encontrado"
+                : "error";
+        long duracion = muestra.stop(Timer.builder("verificador.http.peticiones")
+                .description("Tiempo de respuesta de los servlets")
+                .tag("servlet", "ApiProxyServlet")
+                .tag("resultado", resultado)
+                .register(meterRegistry));
+        registroAccesos.registrar("ApiProxyServlet", resultado, clave, duracion);
+    }
 
-        resp.setStatus(status);
+    private static void escribir(HttpServletResponse resp, RespuestaApi respuesta) throws IOException {
+        resp.setStatus(respuesta.status());
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
         resp.addHeader("Access-Control-Allow-Origin", "*");
-        resp.getWriter().write(body);
+        resp.getWriter().write(respuesta.cuerpo());
     }
 }
@@ -2,6 +2,12 @@ package com.evidencia.servlets;
 
 import com.evidencia.model.Producto;
 import com.evidencia.service.ProductoService;
+import com.evidencia.service.RegistroAccesos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -9,11 +15,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Servlet que maneja la verificación de códigos de productos.
@@ -34,10 +43,22 @@ import java.util.Optional;
  * 5. Repository consulta con Hibernate
  * 6. Servlet muestra resultado en JSP
  * 
+ * MODO ASÍNCRONO (verificador.verificacion.async.habilitada=true):
+ * La consulta se ejecuta en el executor "executorVerificacion" (tantos hilos
+ * como conexiones del pool, cola acotada) y el hilo de Tomcat queda libre.
+ * Si la cola está llena se responde 503 de inmediato.
+ * 
+ * MÉTRICAS: cada POST se mide en el timer verificador.http.peticiones
+ * (servlet=CodigoServlet) con la etiqueta resultado: encontrado,
+ * no_encontrado, invalido (código vacío), saturado (503) o error.
+ * 
+ * REGISTRO: cada petición deja una sola línea en el registro de accesos
+ * (RegistroAccesos, muestreado); el detalle por consulta queda en DEBUG.
+ * 
  * @author Tu Nombre
  * @version 2.0 - Con Spring + Hibernate
  */
-@WebServlet("/verificarCodigo")
+@WebServlet(value = "/verificarCodigo", asyncSupported = true)
 public class CodigoServlet extends HttpServlet {
     
     private static final long serialVersionUID = 1L;
@@ -51,6 +72,18 @@ public class CodigoServlet extends HttpServlet {
      */
     private ProductoService productoService;
     
+    /**
+     * Executor acotado para el modo asíncrono (ver AppConfig).
+     */
+    private ThreadPoolTaskExecutor executorVerificacion;
+    
+    private MeterRegistry meterRegistry;
+    
+    private RegistroAccesos registroAccesos;
+    
+    private boolean modoAsync;
+    private long timeoutAsyncMs;
+    
     /**
      * Se ejecuta cuando el servlet es inicializado.
      * 
@@ -87,7 +120,15 @@ public class CodigoServlet extends HttpServlet {
                 throw new ServletException(error);
             }
             
-            logger.info("CodigoServlet inicializado correctamente con Spring");
+            executorVerificacion = context.getBean("executorVerificacion", ThreadPoolTaskExecutor.class);
+            meterRegistry = context.getBean(MeterRegistry.class);
+            registroAccesos = context.getBean(RegistroAccesos.class);
+            modoAsync = context.getEnvironment()
+                    .getProperty("verificador.verificacion.async.habilitada", Boolean.class, false);
+            timeoutAsyncMs = context.getEnvironment()
+                    .getProperty("verificador.verificacion.async.timeout-ms", Long.class, 5000L);
+            
+            logger.info("CodigoServlet inicializado correctamente con Spring (modo asíncrono: {})", modoAsync);
             logger.info("ProductoService inyectado: {}", productoService.getClass().getName());
             
         } catch (Exception e) {
@@ -117,19 +158,22 @@ public class CodigoServlet extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        
         // Configurar encoding
         request.setCharacterEncoding("UTF-8");
         response.setContentType("text/html; charset=UTF-8");
         
         // 1. OBTENER CÓDIGO DEL FORMULARIO
         String codigo = request.getParameter("codigo");
-        logger.info("Petición recibida para verificar código: {}", codigo);
+        logger.debug("Petición recibida para verificar código: {}", codigo);
         
         // 2. VALIDAR ENTRADA
         if (codigo == null || codigo.trim().isEmpty()) {
             logger.warn("Código vacío o nulo recibido");
             request.setAttribute("error", "El código no puede estar vacío");
             request.getRequestDispatcher("resultado.jsp").forward(request, response);
+            registrarTiempo(muestra, "invalido", codigo);
             return;
         }
         
@@ -137,46 +181,180 @@ public class CodigoServlet extends HttpServlet {
         codigo = codigo.trim().toUpperCase();
         logger.debug("Código normalizado: {}", codigo);
         
-        try {
-            // 3. VERIFICAR CÓDIGO USANDO EL SERVICE
-            // Esta es la ÚNICA línea que accede a la base de datos
-            // Todo el resto lo maneja Spring + Hibernate automáticamente
-            Optional<Producto> productoOpt = productoService.verificarCodigo(codigo);
+        if (modoAsync) {
+            verificarAsync(request, response, codigo, muestra);
+            return;
+        }
+        
+        // 3. VERIFICAR CÓDIGO USANDO EL SERVICE
+        // Esta es la ÚNICA línea que accede a la base de datos
+        // Todo el resto lo maneja Spring + Hibernate automáticamente
+        Resultado resultado = verificar(codigo);
+        
+        // 4. PREPARAR RESULTADO Y 5. REDIRIGIR AL JSP
+        prepararResultado(request, codigo, resultado);
+        request.getRequestDispatcher("resultado.jsp").forward(request, response);
+        registrarTiempo(muestra, resultado.etiqueta(), codigo);
+    }
+    
+    /**
+     * Verificación en modo asíncrono: la consulta corre en el executor acotado
+     * y, al terminar, se despacha a resultado.jsp. El resultado se calcula sin
+     * tocar la petición; solo quien gane (la tarea o el timeout) la modifica
+     * y registra el tiempo.
+     */
+    private void verificarAsync(HttpServletRequest request, HttpServletResponse response, String codigo,
+            Timer.Sample muestra) throws IOException {
+        
+        AsyncContext async = request.startAsync();
+        async.setTimeout(timeoutAsyncMs);
+        AtomicBoolean terminada = new AtomicBoolean(false);
+        
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (terminada.compareAndSet(false, true)) {
+                    logger.warn("Tiempo agotado verificando código: {}", codigo);
+                    responderSaturado((HttpServletResponse) event.getAsyncContext().getResponse());
+                    event.getAsyncContext().complete();
+                    registrarTiempo(muestra, "saturado", codigo);
+                }
+            }
             
-            // 4. PREPARAR RESULTADO
-            if (productoOpt.isPresent()) {
-                // Código EXISTE
-                Producto producto = productoOpt.get();
-                
-                logger.info("✅ Código encontrado: {} - {}", producto.getCodigo(), producto.getNombre());
-                
-                request.setAttribute("codigoExiste", true);
-                request.setAttribute("codigo", producto.getCodigo());
-                request.setAttribute("nombreProducto", producto.getNombre());
-                request.setAttribute("producto", producto); // Objeto completo
-                
-            } else {
-                // Código NO EXISTE
-                logger.info("❌ Código no encontrado: {}", codigo);
-                
-                request.setAttribute("codigoExiste", false);
-                request.setAttribute("codigo", codigo);
-                request.setAttribute("nombreProducto", null);
+            @Override
+            public void onComplete(AsyncEvent event) {
             }
             
-            // 5. REDIRIGIR AL JSP
-            request.getRequestDispatcher("resultado.jsp").forward(request, response);
+            @Override
+            public void onError(AsyncEvent event) {
+                // Cliente desconectado o error de E/S: no hay a quién responder,
+                // pero la petición cuenta en el timer y en el registro de accesos
+                if (terminada.compareAndSet(false, true)) {
+                    logger.warn("Error en la verificación asíncrona del código: {}", codigo, event.getThrowable());
+                    event.getAsyncContext().complete();
+                    registrarTiempo(muestra, "error", codigo);
+                }
+            }
             
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        
+        try {
+            executorVerificacion.execute(() -> {
+                // Si esperó en la cola más que el timeout ya se respondió 503:
+                // no ocupar la base de datos con una consulta que nadie leerá
+                if (terminada.get()) {
+                    return;
+                }
+                Resultado resultado = verificar(codigo);
+                if (terminada.compareAndSet(false, true)) {
+                    prepararResultado(request, codigo, resultado);
+                    async.dispatch("/resultado.jsp");
+                    registrarTiempo(muestra, resultado.etiqueta(), codigo);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Cola llena: degradar rápido en lugar de acumular hilos esperando
+            if (terminada.compareAndSet(false, true)) {
+                logger.warn("Executor de verificación saturado, respondiendo 503");
+                responderSaturado(response);
+                async.complete();
+                registrarTiempo(muestra, "saturado", codigo);
+            }
+        }
+    }
+    
+    /**
+     * Consulta el código en el service.
+     * 
+     * @return el producto, o la excepción si la consulta falló
+     */
+    private Resultado verificar(String codigo) {
+        try {
+            return new Resultado(productoService.verificarCodigo(codigo), null);
         } catch (Exception e) {
+            return new Resultado(Optional.empty(), e);
+        }
+    }
+    
+    /**
+     * Guarda en la petición los atributos que usa resultado.jsp.
+     */
+    private void prepararResultado(HttpServletRequest request, String codigo, Resultado resultado) {
+        if (resultado.error() != null) {
+            Exception e = resultado.error();
             // Manejo de errores
             logger.error("Error al verificar código: {}", codigo, e);
             
             request.setAttribute("error", "Error al consultar la base de datos: " + e.getMessage());
             request.setAttribute("codigo", codigo);
-            request.getRequestDispatcher("resultado.jsp").forward(request, response);
+            return;
+        }
+        
+        Optional<Producto> productoOpt = resultado.producto();
+        if (productoOpt.isPresent()) {
+            // Código EXISTE
+            Producto producto = productoOpt.get();
+            
+            logger.debug("✅ Código encontrado: {} - {}", producto.getCodigo(), producto.getNombre());
+            
+            request.setAttribute("codigoExiste", true);
+            request.setAttribute("codigo", producto.getCodigo());
+            request.setAttribute("nombreProducto", producto.getNombre());
+            request.setAttribute("producto", producto); // Objeto completo
+            
+        } else {
+            // Código NO EXISTE
+            logger.debug("❌ Código no encontrado: {}", codigo);
+            
+            request.setAttribute("codigoExiste", false);
+            request.setAttribute("codigo", codigo);
+            request.setAttribute("nombreProducto", null);
         }
     }
     
+    /**
+     * Resultado de la verificación: el producto encontrado (o vacío) o el
+     * error de la consulta.
+     */
+    private record Resultado(Optional<Producto> producto, Exception error) {
+        
+        /**
+         * @return valor de la etiqueta "resultado" de la métrica
+         */
+        String etiqueta() {
+            if (error != null) {
+                return "error";
+            }
+            return producto.isPresent() ? "encontrado" : "no_encontrado";
+        }
+    }
+    
+    /**
+     * Registra el tiempo total de la petición con su resultado, en la métrica
+     * y en el registro de accesos.
+     */
+    private void registrarTiempo(Timer.Sample muestra, String resultado, String codigo) {
+        long duracion = muestra.stop(Timer.builder("verificador.http.peticiones")
+                .description("Tiempo de respuesta de los servlets")
+                .tag("servlet", "CodigoServlet")
+                .tag("resultado", resultado)
+                .register(meterRegistry));
+        registroAccesos.registrar("CodigoServlet", resultado, codigo, duracion);
+    }
+    
+    /**
+     * Respuesta 503 cuando no hay capacidad para atender la verificación.
+     */
+    private static void responderSaturado(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("text/html; charset=UTF-8");
+        response.getWriter().write("<p>El servicio está ocupado. Intente de nuevo en unos segundos.</p>");
+    }
+    
     /**
      * Maneja las peticiones GET.
      * Redirige a la página principal.
@@ -0,0 +1,189 @@
+package com.evidencia.servlets;
+
+import com.evidencia.config.PoolesPorCarga;
+import com.evidencia.config.ReplicasLectura;
+import com.evidencia.service.ApiEstudiantesService;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.IndiceCodigos;
+import com.evidencia.service.LimitadorPeticiones;
+import com.evidencia.service.ProductoService;
+import com.evidencia.service.RegistroAccesos;
+import com.evidencia.service.ReglasDigitoControl;
+import com.evidencia.service.SnapshotCodigos;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+
+/**
+ * Expone en JSON los contadores internos de la aplicación (dígito de control,
+ * snapshot e índice de códigos, filtro de Bloom, caché de segundo nivel, réplicas de
+ * lectura, pools de conexiones por clase de carga, caché del proxy, límite por cliente, registro de accesos) para poder comprobar
+ * cuántas peticiones se resuelven sin MySQL ni la API externa.
+ *
+ * GET /estadisticas
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/estadisticas")
+public class EstadisticasServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private IndiceCodigos indiceCodigos;
+    private FiltroBloomCodigos filtroBloom;
+    private ReglasDigitoControl reglasDigitoControl;
+    private ApiEstudiantesService apiEstudiantesService;
+    private ProductoService productoService;
+    private ThreadPoolTaskExecutor executorVerificacion;
+    private RegistroAccesos registroAccesos;
+    private Statistics estadisticasHibernate;
+    private ReplicasLectura replicasLectura;
+    private SnapshotCodigos snapshotCodigos;
+    private LimitadorPeticiones limitador;
+    private PoolesPorCarga poolesPorCarga;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        indiceCodigos = context.getBean(IndiceCodigos.class);
+        filtroBloom = context.getBean(FiltroBloomCodigos.class);
+        reglasDigitoControl = context.getBean(ReglasDigitoControl.class);
+        apiEstudiantesService = context.getBean(ApiEstudiantesService.class);
+        productoService = context.getBean(ProductoService.class);
+        executorVerificacion = context.getBean("executorVerificacion", ThreadPoolTaskExecutor.class);
+        registroAccesos = context.getBean(RegistroAccesos.class);
+        estadisticasHibernate = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class).getStatistics();
+        replicasLectura = context.getBean(ReplicasLectura.class);
+        snapshotCodigos = context.getBean(SnapshotCodigos.class);
+        limitador = context.getBean(LimitadorPeticiones.class);
+        poolesPorCarga = context.getBean(PoolesPorCarga.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        StringBuilder json = new StringBuilder(256);
+        json.append('{');
+        json.append("\"verificacion\":{")
+                .append("\"agrupadas\":").append(productoService.getVerificacionesAgrupadas())
+                .append(",\"executorActivos\":").append(executorVerificacion.getActiveCount())
+                .append(",\"executorEnCola\":").append(executorVerificacion.getQueueSize())
+                .append('}');
+        json.append(",\"digitoControl\":{")
+                .append("\"reglas\":").append(reglasDigitoControl.getNumeroReglas())
+                .append(",\"rechazados\":").append(reglasDigitoControl.getRechazados())
+                .append('}');
+        json.append(",\"snapshot\":{")
+                .append("\"habilitado\":").append(snapshotCodigos.isHabilitado())
+                .append(",\"cargado\":").append(snapshotCodigos.isCargado())
+                .append(",\"autoritativo\":").append(snapshotCodigos.isAutoritativo())
+                .append(",\"entradas\":").append(snapshotCodigos.getEntradas())
+                .append(",\"generado\":").append(snapshotCodigos.getGenerado())
+                .append(",\"aciertos\":").append(snapshotCodigos.getAciertos())
+                .append(",\"fallos\":").append(snapshotCodigos.getFallos())
+                .append(",\"cargas\":").append(snapshotCodigos.getCargas())
+                .append('}');
+        json.append(",\"indice\":{")
+                .append("\"habilitado\":").append(indiceCodigos.isHabilitado())
+                .append(",\"compacto\":").append(indiceCodigos.isCompacto())
+                .append(",\"tamano\":").append(indiceCodigos.getTamano())
+                .append(",\"bytesTablaCompacta\":").append(indiceCodigos.getBytesTablaCompacta())
+                .append(",\"aciertos\":").append(indiceCodigos.getAciertos())
+                .append(",\"fallos\":").append(indiceCodigos.getFallos())
+                .append(",\"recargas\":").append(indiceCodigos.getRecargas())
+                .append(",\"actualizaciones\":").append(indiceCodigos.getActualizaciones())
+                .append('}');
+        json.append(",\"bloom\":{")
+                .append("\"habilitado\":").append(filtroBloom.isHabilitado())
+                .append(",\"bits\":").append(filtroBloom.getTamanoBits())
+                .append(",\"funcionesHash\":").append(filtroBloom.getFuncionesHash())
+                .append(",\"elementos\":").append(filtroBloom.getElementos())
+                .append(",\"tasaFalsosPositivosEstimada\":").append(filtroBloom.getTasaFalsosPositivosEstimada())
+                .append(",\"descartes\":").append(filtroBloom.getDescartes())
+                .append('}');
+        json.append(",\"cacheSegundoNivel\":{")
+                .append("\"estadisticas\":").append(estadisticasHibernate.isStatisticsEnabled())
+                .append(",\"naturalIdAciertos\":").append(estadisticasHibernate.getNaturalIdCacheHitCount())
+                .append(",\"naturalIdFallos\":").append(estadisticasHibernate.getNaturalIdCacheMissCount())
+                .append(",\"naturalIdConsultas\":").append(estadisticasHibernate.getNaturalIdQueryExecutionCount())
+                .append(",\"entidadAciertos\":").append(estadisticasHibernate.getSecondLevelCacheHitCount())
+                .append(",\"entidadFallos\":").append(estadisticasHibernate.getSecondLevelCacheMissCount())
+                .append('}');
+        json.append(",\"replicas\":{")
+                .append("\"configuradas\":").append(replicasLectura.getNumeroReplicas())
+                .append(",\"caidas\":").append(replicasLectura.getReplicasCaidas())
+                .append(",\"desviadasAPrimaria\":").append(replicasLectura.getDesviadasAPrimaria())
+                .append('}');
+        json.append(",\"pools\":{");
+        for (PoolesPorCarga.Clase clase : PoolesPorCarga.Clase.values()) {
+            if (clase.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(clase.name().toLowerCase()).append("\":{")
+                    .append("\"pool\":\"").append(poolesPorCarga.getNombrePool(clase)).append('"')
+                    .append(",\"separado\":").append(poolesPorCarga.isSeparado(clase))
+                    .append(",\"maxConexiones\":").append(poolesPorCarga.getMaxConexiones(clase))
+                    .append(",\"maxCola\":").append(poolesPorCarga.getMaxCola(clase))
+                    .append(",\"activas\":").append(poolesPorCarga.getActivas(clase))
+                    .append(",\"esperando\":").append(poolesPorCarga.getEsperando(clase))
+                    .append(",\"obtenidas\":").append(poolesPorCarga.getObtenidas(clase))
+                    .append(",\"rechazadas\":").append(poolesPorCarga.getRechazadas(clase))
+                    .append('}');
+        }
+        json.append('}');
+        json.append(",\"proxy\":{")
+                .append("\"cacheHabilitada\":").append(apiEstudiantesService.isCacheHabilitada())
+                .append(",\"tamanoCache\":").append(apiEstudiantesService.getTamanoCache())
+                .append(",\"aciertos\":").append(apiEstudiantesService.getAciertos())
+                .append(",\"aciertosObsoletos\":").append(apiEstudiantesService.getAciertosObsoletos())
+                .append(",\"fallos\":").append(apiEstudiantesService.getFallos())
+                .append(",\"llamadasApi\":").append(apiEstudiantesService.getLlamadasApi())
+                .append(",\"enCurso\":").append(apiEstudiantesService.getEnCurso())
+                .append(",\"maxConcurrentes\":").append(apiEstudiantesService.getMaxConcurrentes())
+                .append(",\"rechazadas\":").append(apiEstudiantesService.getRechazadas())
+                .append(",\"agrupadas\":").append(apiEstudiantesService.getAgrupadas())
+                .append('}');
+        json.append(",\"limite\":{")
+                .append("\"habilitado\":").append(limitador.isHabilitado())
+                .append(",\"cliente\":\"").append(limitador.getCliente()).append('"')
+                .append(",\"tasa\":").append(limitador.getTasa())
+                .append(",\"rafaga\":").append(limitador.getRafaga())
+                .append(",\"clientes\":").append(limitador.getClientes())
+                .append(",\"maxClientes\":").append(limitador.getMaxClientes())
+                .append(",\"admitidas\":").append(limitador.getAdmitidas())
+                .append(",\"rechazadas\":").append(limitador.getRechazadas())
+                .append(",\"desalojados\":").append(limitador.getDesalojados())
+                .append('}');
+        json.append(",\"registroAccesos\":{")
+                .append("\"habilitado\":").append(registroAccesos.isHabilitado())
+                .append(",\"muestreo\":").append(registroAccesos.getMuestreo())
+                .append(",\"registrados\":").append(registroAccesos.getRegistrados())
+                .append(",\"omitidos\":").append(registroAccesos.getOmitidos())
+                .append('}');
+        json.append('}');
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getWriter().write(json.toString());
+    }
+}
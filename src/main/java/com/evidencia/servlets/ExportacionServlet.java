@@ -0,0 +1,150 @@
+package com.evidencia.servlets;
+
+import com.evidencia.service.ProductoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exporta el catálogo completo en streaming: cada fila se escribe en la
+ * respuesta a medida que llega de la base de datos, así que el uso de memoria
+ * no depende del tamaño de la tabla.
+ *
+ * GET /api/exportarProductos?formato=csv (por defecto)
+ * GET /api/exportarProductos?formato=jsonl (JSON Lines: un objeto por línea)
+ *
+ * Devuelve el catálogo completo, así que requiere el rol admin por HTTPS
+ * (security-constraint de web.xml).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/api/exportarProductos")
+public class ExportacionServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionServlet.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ProductoService productoService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        productoService = context.getBean(ProductoService.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        String formato = req.getParameter("formato");
+        boolean jsonl = "jsonl".equalsIgnoreCase(formato);
+        if (formato != null && !jsonl && !"csv".equalsIgnoreCase(formato)) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "formato debe ser csv o jsonl");
+            return;
+        }
+
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType(jsonl ? "application/x-ndjson" : "text/csv");
+        resp.setHeader("Content-Disposition",
+                "attachment; filename=\"productos." + (jsonl ? "jsonl" : "csv") + "\"");
+
+        long inicio = System.nanoTime();
+        try {
+            long total = jsonl ? exportarJsonLines(resp) : exportarCsv(resp);
+            logger.info("Exportación {} terminada: {} productos en {} ms", jsonl ? "jsonl" : "csv",
+                    total, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad de la descarga
+            logger.warn("Exportación interrumpida por el cliente: {}", e.getCause().getMessage());
+        }
+    }
+
+    private long exportarCsv(HttpServletResponse resp) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8));
+        out.write("id,codigo,nombre,fecha_registro\n");
+
+        long total = productoService.exportarTodos(producto -> {
+            try {
+                out.write(String.valueOf(producto.getId()));
+                out.write(',');
+                escribirCampoCsv(out, producto.getCodigo());
+                out.write(',');
+                escribirCampoCsv(out, producto.getNombre());
+                out.write(',');
+                if (producto.getFechaRegistro() != null) {
+                    out.write(producto.getFechaRegistro().toString());
+                }
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+        return total;
+    }
+
+    private long exportarJsonLines(HttpServletResponse resp) throws IOException {
+        JsonGenerator gen = JSON.createGenerator(resp.getOutputStream());
+        gen.setRootValueSeparator(null);
+
+        long total = productoService.exportarTodos(producto -> {
+            try {
+                gen.writeStartObject();
+                gen.writeNumberField("id", producto.getId());
+                gen.writeStringField("codigo", producto.getCodigo());
+                gen.writeStringField("nombre", producto.getNombre());
+                if (producto.getFechaRegistro() != null) {
+                    gen.writeStringField("fechaRegistro", producto.getFechaRegistro().toString());
+                }
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        gen.flush();
+        return total;
+    }
+
+    /**
+     * Escribe un campo CSV, entre comillas si contiene comas, comillas o
+     * saltos de línea (\n o \r, que un lector CSV tomaría como fin de fila).
+     */
+    private static void escribirCampoCsv(Writer out, String valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0
+                && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            out.write(valor);
+            return;
+        }
+        out.write('"');
+        out.write(valor.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,119 @@
+package com.evidencia.servlets;
+
+import com.evidencia.model.ResultadoImportacion;
+import com.evidencia.service.ImportacionProductosService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Importación masiva de productos: recibe un CSV (codigo,nombre) en el cuerpo
+ * de la petición y lo procesa en streaming.
+ *
+ * POST /admin/importarProductos[?desdeLinea=N]
+ *
+ * Ejemplo:
+ * curl -u admin -X POST --data-binary @catalogo.csv -H "Content-Type: text/csv" \
+ *      https://localhost:8443/verificador-codigos/admin/importarProductos
+ *
+ * Devuelve un informe JSON con filas leídas/insertadas/rechazadas, filas por
+ * segundo, los rechazos con su motivo y "ultimaLineaConfirmada". Si la
+ * importación se interrumpe (status 500), se reanuda enviando el mismo archivo
+ * con ?desdeLinea=ultimaLineaConfirmada; los contadores del informe
+ * interrumpido llegan solo hasta esa línea y no se solapan con los de la
+ * reanudación.
+ *
+ * Requiere el rol admin por HTTPS (security-constraint de web.xml).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/admin/importarProductos")
+public class ImportacionServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ImportacionProductosService importacionService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        importacionService = context.getBean(ImportacionProductosService.class);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        // Con un cuerpo form-urlencoded getParameter() consumiría el CSV
+        String tipo = req.getContentType();
+        if (tipo != null && tipo.startsWith("application/x-www-form-urlencoded")) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Enviar el CSV como text/csv");
+            return;
+        }
+
+        long desdeLinea = 0;
+        String parametro = req.getParameter("desdeLinea");
+        if (parametro != null && !parametro.isBlank()) {
+            try {
+                desdeLinea = Math.max(0, Long.parseLong(parametro.trim()));
+            } catch (NumberFormatException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "desdeLinea inválido");
+                return;
+            }
+        }
+
+        ResultadoImportacion resultado;
+        try (BufferedReader lector = req.getReader()) {
+            resultado = importacionService.importarCsv(lector, desdeLinea);
+        }
+
+        resp.setStatus(resultado.isCompleta()
+                ? HttpServletResponse.SC_OK
+                : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("ok", resultado.isCompleta());
+            if (resultado.getError() != null) {
+                gen.writeStringField("error", resultado.getError());
+            }
+            gen.writeNumberField("lineaInicial", resultado.getLineaInicial());
+            gen.writeNumberField("ultimaLineaConfirmada", resultado.getUltimaLineaConfirmada());
+            gen.writeNumberField("leidas", resultado.getLeidas());
+            gen.writeNumberField("insertadas", resultado.getInsertadas());
+            gen.writeNumberField("rechazadas", resultado.getRechazadas());
+            gen.writeNumberField("duracionMs", resultado.getDuracionMillis());
+            gen.writeNumberField("filasPorSegundo", Math.round(resultado.getFilasPorSegundo()));
+            gen.writeArrayFieldStart("rechazos");
+            for (ResultadoImportacion.Rechazo rechazo : resultado.getRechazos()) {
+                gen.writeStartObject();
+                gen.writeNumberField("linea", rechazo.linea());
+                gen.writeStringField("codigo", rechazo.codigo());
+                gen.writeStringField("motivo", rechazo.motivo());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
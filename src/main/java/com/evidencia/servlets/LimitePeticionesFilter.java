@@ -0,0 +1,89 @@
+package com.evidencia.servlets;
+
+import com.evidencia.service.LimitadorPeticiones;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+
+/**
+ * Aplica el límite de peticiones por cliente (LimitadorPeticiones) a los
+ * endpoints públicos que consultan MySQL o la API de estudiantes. Las
+ * peticiones que superan el límite reciben 429 con Retry-After (segundos
+ * hasta que el cliente vuelve a tener una ficha) sin llegar al servlet.
+ *
+ * El cliente es la dirección remota o, con verificador.limite.cliente=API_KEY,
+ * la cabecera X-API-KEY. Detrás de un proxy inverso, la dirección remota es
+ * la del proxy salvo que Tomcat la corrija (RemoteIpValve).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebFilter(urlPatterns = {"/verificarCodigo", "/apiProxy", "/api/verificar", "/api/verificarCodigos",
+        "/api/productos", "/api/exportarProductos"}, asyncSupported = true)
+public class LimitePeticionesFilter extends HttpFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    private LimitadorPeticiones limitador;
+    private boolean porApiKey;
+
+    @Override
+    public void init() throws ServletException {
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        limitador = context.getBean(LimitadorPeticiones.class);
+        porApiKey = limitador.getCliente() == LimitadorPeticiones.Cliente.API_KEY;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!limitador.isHabilitado()) {
+            chain.doFilter(req, resp);
+            return;
+        }
+        String clave = null;
+        if (porApiKey) {
+            clave = req.getHeader("X-API-KEY");
+        }
+        if (clave == null || clave.isEmpty()) {
+            clave = req.getRemoteAddr();
+        }
+
+        long esperaNanos = limitador.intentar(clave);
+        if (esperaNanos == 0) {
+            chain.doFilter(req, resp);
+            return;
+        }
+        responderLimitado(req, resp, (esperaNanos + 999_999_999) / 1_000_000_000);
+    }
+
+    /**
+     * Respuesta 429: HTML para el formulario de /verificarCodigo, JSON para el
+     * resto.
+     */
+    private static void responderLimitado(HttpServletRequest req, HttpServletResponse resp, long segundos)
+            throws IOException {
+        resp.setStatus(429);
+        resp.setHeader("Retry-After", String.valueOf(segundos));
+        resp.setCharacterEncoding("UTF-8");
+        if ("/verificarCodigo".equals(req.getServletPath())) {
+            resp.setContentType("text/html; charset=UTF-8");
+            resp.getWriter().write("<p>Demasiadas peticiones. Intente de nuevo en unos segundos.</p>");
+        } else {
+            resp.setContentType("application/json");
+            resp.getWriter().write("{\"ok\":false,\"error\":\"Demasiadas peticiones\"}");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.evidencia.servlets;
+
+import com.evidencia.model.PaginaProductos;
+import com.evidencia.model.Producto;
+import com.evidencia.service.ProductoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+
+/**
+ * Listado paginado del catálogo para las pantallas de administración.
+ *
+ * GET /api/productos?tamano=50[&cursor=...]
+ *
+ * Salida:
+ * {"productos":[{"id":1,"codigo":"PROD001","nombre":"...","fechaRegistro":"..."}],
+ *  "siguienteCursor":"..."}
+ *
+ * Para pedir la página siguiente se envía el "siguienteCursor" recibido; si es
+ * null no hay más productos. Paginación por cursor (keyset), no por OFFSET:
+ * todas las páginas cuestan lo mismo.
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/api/productos")
+public class ListadoProductosServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(ListadoProductosServlet.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int TAMANO_POR_DEFECTO = 50;
+
+    private ProductoService productoService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        productoService = context.getBean(ProductoService.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        PaginaProductos pagina;
+        try {
+            String tamano = req.getParameter("tamano");
+            pagina = productoService.listarPagina(req.getParameter("cursor"),
+                    tamano == null || tamano.isBlank() ? TAMANO_POR_DEFECTO : Integer.parseInt(tamano.trim()));
+        } catch (IllegalArgumentException e) {
+            // Incluye NumberFormatException
+            escribirError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } catch (Exception e) {
+            logger.error("Error al listar productos", e);
+            escribirError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error al consultar la base de datos");
+            return;
+        }
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("productos");
+            for (Producto producto : pagina.productos()) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", producto.getId());
+                gen.writeStringField("codigo", producto.getCodigo());
+                gen.writeStringField("nombre", producto.getNombre());
+                if (producto.getFechaRegistro() != null) {
+                    gen.writeStringField("fechaRegistro", producto.getFechaRegistro().toString());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeStringField("siguienteCursor", pagina.siguienteCursor());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void escribirError(HttpServletResponse resp, int status, String mensaje) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("ok", false);
+            gen.writeStringField("error", mensaje);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.evidencia.servlets;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+
+/**
+ * Endpoint de métricas en formato de texto de Prometheus (o OpenMetrics si el
+ * cliente lo pide en Accept), para configurarlo como destino de scrape.
+ *
+ * GET /metricas
+ *
+ * Métricas principales:
+ * - verificador_http_peticiones_seconds{servlet, resultado}
+ * - verificador_repositorio_seconds{metodo, resultado}
+ * - hikaricp_connections_active / idle / pending / acquire_seconds
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/metricas")
+public class MetricasServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private PrometheusMeterRegistry meterRegistry;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        meterRegistry = context.getBean(PrometheusMeterRegistry.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String contentType = TextFormat.chooseContentType(req.getHeader("Accept"));
+        resp.setContentType(contentType);
+        resp.setHeader("Cache-Control", "no-store");
+        meterRegistry.scrape(resp.getWriter(), contentType);
+    }
+}
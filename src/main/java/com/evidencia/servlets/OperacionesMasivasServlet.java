@@ -0,0 +1,189 @@
+package com.evidencia.servlets;
+
+import com.evidencia.service.ProductoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bajas y renombrados masivos de productos para tareas de limpieza. El
+ * cuerpo (text/plain) lleva un elemento por línea; las líneas vacías se
+ * ignoran.
+ *
+ * POST /admin/productosMasivo?accion=eliminar-ids       un id por línea
+ * POST /admin/productosMasivo?accion=eliminar-codigos   un código por línea
+ * POST /admin/productosMasivo?accion=eliminar-prefijo&prefijo=TMP[&esperados=N]
+ *                                                       sin cuerpo; con
+ *                                                       esperados no se
+ *                                                       elimina nada si el
+ *                                                       número no coincide
+ * POST /admin/productosMasivo?accion=renombrar          codigo,nombre por
+ *                                                       línea (el nombre
+ *                                                       llega hasta el final)
+ *
+ * Ejemplo:
+ * curl -u admin -X POST --data-binary @obsoletos.txt -H "Content-Type: text/plain" \
+ *      "https://localhost:8443/verificador-codigos/admin/productosMasivo?accion=eliminar-codigos"
+ *
+ * Se aplican en bloques de verificador.masivo.tamano-bloque, cada uno en su
+ * transacción: tras un error (status 500) los bloques anteriores ya están
+ * aplicados y basta con repetir la petición. Devuelve un JSON con las filas
+ * afectadas y la duración.
+ *
+ * Los prefijos de menos de verificador.masivo.longitud-minima-prefijo
+ * caracteres requieren esperados.
+ *
+ * Requiere el rol admin por HTTPS (security-constraint de web.xml).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/admin/productosMasivo")
+public class OperacionesMasivasServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(OperacionesMasivasServlet.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ProductoService productoService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        productoService = context.getBean(ProductoService.class);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        // Con un cuerpo form-urlencoded getParameter() consumiría las líneas
+        String tipo = req.getContentType();
+        if (tipo != null && tipo.startsWith("application/x-www-form-urlencoded")) {
+            resp.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Enviar las líneas como text/plain");
+            return;
+        }
+
+        String accion = req.getParameter("accion");
+        if (accion == null) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "accion debe ser eliminar-ids, eliminar-codigos, eliminar-prefijo o renombrar");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        int afectados;
+        try {
+            switch (accion) {
+                case "eliminar-ids" -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (String linea : leerLineas(req)) {
+                        ids.add(Integer.valueOf(linea));
+                    }
+                    afectados = productoService.eliminarProductos(ids);
+                }
+                case "eliminar-codigos" -> afectados = productoService.eliminarPorCodigos(leerLineas(req));
+                case "eliminar-prefijo" -> afectados = productoService.eliminarPorPrefijo(
+                        req.getParameter("prefijo"), leerEsperados(req));
+                case "renombrar" -> {
+                    Map<String, String> nombres = new LinkedHashMap<>();
+                    for (String linea : leerLineas(req)) {
+                        int coma = linea.indexOf(',');
+                        if (coma < 0) {
+                            throw new IllegalArgumentException("Línea sin nombre: " + linea);
+                        }
+                        nombres.put(linea.substring(0, coma), linea.substring(coma + 1).trim());
+                    }
+                    afectados = productoService.renombrarProductos(nombres);
+                }
+                default -> {
+                    resp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                            "accion debe ser eliminar-ids, eliminar-codigos, eliminar-prefijo o renombrar");
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            escribirResultado(resp, HttpServletResponse.SC_BAD_REQUEST, accion, 0, 0, "Id inválido: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            escribirResultado(resp, HttpServletResponse.SC_BAD_REQUEST, accion, 0, 0, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Error en la operación masiva {}", accion, e);
+            escribirResultado(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, accion, 0, 0,
+                    "Error en la base de datos; repetir la operación para completarla");
+            return;
+        }
+
+        escribirResultado(resp, HttpServletResponse.SC_OK, accion, afectados,
+                (System.nanoTime() - inicio) / 1_000_000, null);
+    }
+
+    private static Integer leerEsperados(HttpServletRequest req) {
+        String esperados = req.getParameter("esperados");
+        if (esperados == null || esperados.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(esperados.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("esperados debe ser un número: " + esperados);
+        }
+    }
+
+    private static List<String> leerLineas(HttpServletRequest req) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader lector = req.getReader()) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                linea = linea.trim();
+                if (!linea.isEmpty()) {
+                    lineas.add(linea);
+                }
+            }
+        }
+        return lineas;
+    }
+
+    private static void escribirResultado(HttpServletResponse resp, int status, String accion, int afectados,
+            long duracionMs, String error) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("ok", error == null);
+            if (error != null) {
+                gen.writeStringField("error", error);
+            }
+            gen.writeStringField("accion", accion);
+            gen.writeNumberField("afectados", afectados);
+            gen.writeNumberField("duracionMs", duracionMs);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.evidencia.servlets;
+
+import com.evidencia.service.SnapshotCodigos;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+
+/**
+ * Administración del snapshot de códigos mapeado en memoria.
+ *
+ * POST /admin/snapshot?accion=regenerar  exporta la tabla productos a un
+ *                                        snapshot nuevo y lo pone en uso
+ * POST /admin/snapshot?accion=recargar   pone en uso el archivo copiado con
+ *                                        el nombre configurado (por ejemplo,
+ *                                        desde otra máquina)
+ * GET  /admin/snapshot                   estado del snapshot en uso
+ *
+ * En ambos casos el cambio es atómico y no requiere reiniciar. Responde 409
+ * si ya hay una regeneración en curso y 404 si el snapshot está
+ * deshabilitado.
+ *
+ * Requiere el rol admin por HTTPS (security-constraint de web.xml).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/admin/snapshot")
+public class SnapshotServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotServlet.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private SnapshotCodigos snapshotCodigos;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        snapshotCodigos = context.getBean(SnapshotCodigos.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        escribirEstado(resp, null);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        if (!snapshotCodigos.isHabilitado()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Snapshot deshabilitado");
+            return;
+        }
+
+        String accion = req.getParameter("accion");
+        try {
+            if (accion == null || accion.equals("regenerar")) {
+                if (!snapshotCodigos.regenerar()) {
+                    resp.sendError(HttpServletResponse.SC_CONFLICT, "Regeneración en curso");
+                    return;
+                }
+            } else if (accion.equals("recargar")) {
+                snapshotCodigos.recargar();
+            } else {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "accion debe ser regenerar o recargar");
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            // El snapshot anterior sigue en uso
+            logger.error("Error al {} el snapshot de códigos", accion == null ? "regenerar" : accion, e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            escribirEstado(resp, e.getMessage());
+            return;
+        }
+        escribirEstado(resp, null);
+    }
+
+    private void escribirEstado(HttpServletResponse resp, String error) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("ok", error == null);
+            if (error != null) {
+                gen.writeStringField("error", error);
+            }
+            gen.writeBooleanField("habilitado", snapshotCodigos.isHabilitado());
+            if (snapshotCodigos.isHabilitado()) {
+                gen.writeStringField("archivo", snapshotCodigos.getArchivo().toString());
+            }
+            if (snapshotCodigos.getArchivoEnUso() != null) {
+                gen.writeStringField("archivoEnUso", snapshotCodigos.getArchivoEnUso().toString());
+            }
+            gen.writeBooleanField("cargado", snapshotCodigos.isCargado());
+            gen.writeBooleanField("autoritativo", snapshotCodigos.isAutoritativo());
+            gen.writeNumberField("entradas", snapshotCodigos.getEntradas());
+            gen.writeNumberField("generado", snapshotCodigos.getGenerado());
+            gen.writeEndObject();
+        }
+    }
+}
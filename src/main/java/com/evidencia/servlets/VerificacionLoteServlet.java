@@ -0,0 +1,180 @@
+package com.evidencia.servlets;
+
+import com.evidencia.model.ResultadoVerificacion;
+import com.evidencia.service.ProductoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API JSON para verificar muchos códigos en una sola petición (por ejemplo,
+ * todos los códigos de un pallet leídos por un escáner).
+ *
+ * POST /api/verificarCodigos
+ *
+ * Entrada: un arreglo ["PROD001", "PROD999"] o un objeto {"codigos": [...]}
+ *
+ * Salida:
+ * {"total":2,"encontrados":1,"resultados":[
+ *   {"codigo":"PROD001","encontrado":true,"nombre":"Laptop Dell XPS 15"},
+ *   {"codigo":"PROD999","encontrado":false}]}
+ *
+ * Los resultados mantienen el orden de entrada. El número de códigos por
+ * petición está limitado por verificador.lote.max-codigos (413 si se supera).
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/api/verificarCodigos")
+public class VerificacionLoteServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(VerificacionLoteServlet.class);
+
+    /**
+     * JsonFactory es thread-safe y costosa de crear: una sola por servlet.
+     */
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private ProductoService productoService;
+    private int maxCodigos;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        productoService = context.getBean(ProductoService.class);
+        maxCodigos = context.getEnvironment()
+                .getProperty("verificador.lote.max-codigos", Integer.class, 20000);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+
+        List<String> codigos;
+        try (JsonParser parser = JSON.createParser(req.getInputStream())) {
+            codigos = leerCodigos(parser);
+        } catch (JsonParseException e) {
+            escribirError(resp, HttpServletResponse.SC_BAD_REQUEST, "JSON inválido");
+            return;
+        } catch (IllegalArgumentException e) {
+            escribirError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } catch (IllegalStateException e) {
+            escribirError(resp, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        }
+
+        List<ResultadoVerificacion> resultados;
+        try {
+            resultados = productoService.verificarCodigos(codigos);
+        } catch (Exception e) {
+            logger.error("Error al verificar lote de {} códigos", codigos.size(), e);
+            escribirError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    "Error al consultar la base de datos");
+            return;
+        }
+
+        int encontrados = 0;
+        for (ResultadoVerificacion r : resultados) {
+            if (r.encontrado()) {
+                encontrados++;
+            }
+        }
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeNumberField("total", resultados.size());
+            gen.writeNumberField("encontrados", encontrados);
+            gen.writeArrayFieldStart("resultados");
+            for (ResultadoVerificacion r : resultados) {
+                gen.writeStartObject();
+                gen.writeStringField("codigo", r.codigoNormalizado() != null ? r.codigoNormalizado() : r.codigo());
+                gen.writeBooleanField("encontrado", r.encontrado());
+                if (r.encontrado()) {
+                    gen.writeStringField("nombre", r.nombre());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Lee la lista de códigos, ya sea de un arreglo raíz o del campo "codigos".
+     *
+     * @throws IllegalArgumentException si el formato no es el esperado
+     * @throws IllegalStateException si se supera el máximo de códigos
+     */
+    private List<String> leerCodigos(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                token = parser.nextToken();
+                if ("codigos".equals(campo)) {
+                    return leerArreglo(parser, token);
+                }
+                parser.skipChildren();
+            }
+            throw new IllegalArgumentException("Falta el campo 'codigos'");
+        }
+        return leerArreglo(parser, token);
+    }
+
+    private List<String> leerArreglo(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Se esperaba un arreglo de códigos");
+        }
+        List<String> codigos = new ArrayList<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IllegalArgumentException("Arreglo de códigos incompleto");
+            }
+            if (token.isStructStart()) {
+                throw new IllegalArgumentException("Los códigos deben ser textos");
+            }
+            if (codigos.size() >= maxCodigos) {
+                throw new IllegalStateException("Máximo " + maxCodigos + " códigos por petición");
+            }
+            codigos.add(token == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+        }
+        return codigos;
+    }
+
+    private static void escribirError(HttpServletResponse resp, int status, String mensaje) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = JSON.createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("ok", false);
+            gen.writeStringField("error", mensaje);
+            gen.writeEndObject();
+        }
+    }
+}
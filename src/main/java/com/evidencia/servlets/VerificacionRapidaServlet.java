@@ -0,0 +1,143 @@
+package com.evidencia.servlets;
+
+import com.evidencia.model.Producto;
+import com.evidencia.service.ProductoService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Verificación de un código para integraciones máquina a máquina.
+ *
+ * A diferencia de CodigoServlet no hace forward a resultado.jsp ni crea
+ * sesión: responde directamente un cuerpo pequeño con Content-Length.
+ *
+ * GET|POST /api/verificar?codigo=PROD001
+ * → {"codigo":"PROD001","existe":true,"nombre":"Laptop Dell XPS 15"}
+ *
+ * GET|POST /api/verificar?codigo=PROD001&formato=texto
+ * → true | false
+ *
+ * @author Tu Nombre
+ * @version 2.0
+ */
+@WebServlet("/api/verificar")
+public class VerificacionRapidaServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(VerificacionRapidaServlet.class);
+
+    private static final String TIPO_JSON = "application/json;charset=UTF-8";
+    private static final String TIPO_TEXTO = "text/plain;charset=UTF-8";
+
+    // Respuestas fijas codificadas una sola vez
+    private static final byte[] TEXTO_SI = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TEXTO_NO = "false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_CODIGO_VACIO =
+            "{\"ok\":false,\"error\":\"El código no puede estar vacío\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_ERROR =
+            "{\"ok\":false,\"error\":\"Error al consultar la base de datos\"}".getBytes(StandardCharsets.UTF_8);
+
+    private ProductoService productoService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+
+        WebApplicationContext context = WebApplicationContextUtils
+                .getWebApplicationContext(getServletContext());
+        if (context == null) {
+            throw new ServletException("No se pudo obtener el contexto de Spring. Verifica la configuración.");
+        }
+        productoService = context.getBean(ProductoService.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        verificar(req, resp);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        verificar(req, resp);
+    }
+
+    private void verificar(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        boolean texto = "texto".equals(req.getParameter("formato"));
+        String codigo = req.getParameter("codigo");
+
+        resp.setHeader("Cache-Control", "no-store");
+
+        if (codigo == null || codigo.isBlank()) {
+            escribir(resp, HttpServletResponse.SC_BAD_REQUEST, texto ? TIPO_TEXTO : TIPO_JSON,
+                    texto ? TEXTO_NO : JSON_CODIGO_VACIO);
+            return;
+        }
+
+        Optional<Producto> producto;
+        try {
+            producto = productoService.verificarCodigo(codigo);
+        } catch (Exception e) {
+            logger.error("Error al verificar código: {}", codigo, e);
+            escribir(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, TIPO_JSON, JSON_ERROR);
+            return;
+        }
+
+        if (texto) {
+            escribir(resp, HttpServletResponse.SC_OK, TIPO_TEXTO, producto.isPresent() ? TEXTO_SI : TEXTO_NO);
+            return;
+        }
+
+        String codigoNormalizado = codigo.trim().toUpperCase();
+        String nombre = producto.map(Producto::getNombre).orElse(null);
+
+        StringBuilder json = new StringBuilder(48 + codigoNormalizado.length() + (nombre == null ? 0 : nombre.length()));
+        json.append("{\"codigo\":\"");
+        escaparJson(json, codigoNormalizado);
+        if (nombre != null) {
+            json.append("\",\"existe\":true,\"nombre\":\"");
+            escaparJson(json, nombre);
+            json.append("\"}");
+        } else {
+            json.append("\",\"existe\":false}");
+        }
+        escribir(resp, HttpServletResponse.SC_OK, TIPO_JSON, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void escribir(HttpServletResponse resp, int status, String tipo, byte[] cuerpo) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType(tipo);
+        resp.setContentLength(cuerpo.length);
+        ServletOutputStream out = resp.getOutputStream();
+        out.write(cuerpo);
+    }
+
+    /**
+     * Escapa comillas, barras y caracteres de control para JSON.
+     */
+    private static void escaparJson(StringBuilder sb, String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
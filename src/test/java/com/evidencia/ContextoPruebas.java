@@ -0,0 +1,146 @@
+package com.evidencia;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.evidencia.config.AppConfig;
+import com.evidencia.config.ReplicasLectura;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Contexto de Spring para las pruebas: el de AppConfig sobre bases H2 en
+ * memoria en modo MySQL. Con verificador.h2.replica=true hay una segunda
+ * base como réplica de lectura, con el mismo enrutamiento que AppConfig.
+ *
+ * No hay replicación: lo que se escribe después de iniciar() solo llega a la
+ * primaria, es decir, la réplica se comporta como una réplica retrasada.
+ */
+@Configuration
+@ComponentScan(basePackages = {
+    "com.evidencia.service",
+    "com.evidencia.repository"
+})
+@EnableTransactionManagement
+@PropertySource("classpath:verificador.properties")
+public class ContextoPruebas {
+
+    /** Sufijo de los nombres de base de datos, distinto en cada contexto. */
+    private static final AtomicInteger CONTEXTOS = new AtomicInteger();
+
+    private final int numero = CONTEXTOS.incrementAndGet();
+
+    @Value("${verificador.cache-segundo-nivel.habilitada:false}")
+    private boolean cacheSegundoNivel;
+
+    @Value("${verificador.h2.replica:false}")
+    private boolean replica;
+
+    /**
+     * Crea el contexto con la tabla productos vacía en la primaria y, si la
+     * hay, en la réplica (creada antes de que el índice y el filtro se
+     * carguen al arrancar).
+     *
+     * @param propiedades Opciones que sustituyen a las de
+     * verificador.properties
+     * @return Contexto iniciado (cerrarlo al terminar)
+     */
+    public static AnnotationConfigApplicationContext iniciar(Map<String, Object> propiedades) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("pruebas", propiedades));
+        context.register(ContextoPruebas.class);
+        context.refresh();
+        return context;
+    }
+
+    @Bean
+    public HikariDataSource dataSourcePrimaria() {
+        return pool("primaria" + numero, "HikariPool-Pruebas");
+    }
+
+    @Bean
+    public ReplicasLectura replicasLectura() {
+        List<HikariDataSource> replicas = List.of();
+        if (replica) {
+            HikariDataSource pool = pool("replica" + numero, "HikariPool-Pruebas-Replica");
+            new JdbcTemplate(pool).execute("CREATE TABLE productos ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                    + " codigo VARCHAR(50) NOT NULL UNIQUE,"
+                    + " nombre VARCHAR(100) NOT NULL,"
+                    + " fecha_registro TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            replicas = List.of(pool);
+        }
+        return new ReplicasLectura(replicas, dataSourcePrimaria(), ReplicasLectura.Estrategia.ROUND_ROBIN, 5000);
+    }
+
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource(ReplicasLectura replicasLectura) {
+        if (!replicasLectura.isHabilitada()) {
+            return dataSourcePrimaria();
+        }
+        return AppConfig.enrutarLecturas(dataSourcePrimaria(), replicasLectura);
+    }
+
+    /**
+     * Pool sobre una base H2 en memoria que existe mientras el pool tenga
+     * conexiones abiertas.
+     */
+    public static HikariDataSource pool(String baseDeDatos, String nombre) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + baseDeDatos + ";MODE=MySQL");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(1000);
+        config.setPoolName(nombre);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.evidencia.model");
+        em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.show_sql", "false");
+        properties.putAll(AppConfig.propiedadesCacheSegundoNivel(cacheSegundoNivel));
+        em.setJpaProperties(properties);
+        return em;
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
@@ -0,0 +1,211 @@
+package com.evidencia.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.evidencia.ContextoPruebas;
+import com.evidencia.model.Producto;
+import com.evidencia.model.ResultadoImportacion;
+import com.evidencia.repository.ProductoRepository;
+import com.evidencia.service.FiltroBloomCodigos;
+import com.evidencia.service.ImportacionProductosService;
+import com.evidencia.service.ProductoService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Enrutamiento de lecturas a réplicas con dos bases H2, una como primaria y
+ * otra como réplica retrasada (nunca recibe lo que se escribe en la
+ * primaria), y reparto y recuperación de ReplicasLectura.
+ */
+class ReplicasLecturaTest {
+
+    private AnnotationConfigApplicationContext context;
+    private HikariDataSource primaria;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+
+    @AfterEach
+    void cerrar() {
+        if (context != null) {
+            context.close();
+        }
+        for (HikariDataSource pool : new HikariDataSource[]{primaria, replica1, replica2}) {
+            if (pool != null) {
+                pool.close();
+            }
+        }
+    }
+
+    private void iniciarContexto(Map<String, Object> propiedades) {
+        context = ContextoPruebas.iniciar(propiedades);
+    }
+
+    @Test
+    void lasTransaccionesDeSoloLecturaVanALaReplica() {
+        iniciarContexto(Map.of("verificador.h2.replica", "true"));
+        ProductoService service = context.getBean(ProductoService.class);
+        ProductoRepository repositorio = context.getBean(ProductoRepository.class);
+
+        service.guardarProducto(new Producto("REP1", "En la primaria"));
+
+        // La réplica no tiene el alta
+        assertTrue(repositorio.findResumenByCodigo("REP1").isEmpty());
+        assertTrue(repositorio.findAll().isEmpty());
+        // La primaria sí
+        assertTrue(repositorio.existsByCodigo("REP1"));
+    }
+
+    @Test
+    void lasLecturasDelCaminoDeEscrituraVanALaPrimaria() {
+        iniciarContexto(Map.of("verificador.h2.replica", "true"));
+        ProductoService service = context.getBean(ProductoService.class);
+        ProductoRepository repositorio = context.getBean(ProductoRepository.class);
+
+        Producto guardado = service.guardarProducto(new Producto("REP2", "Nuevo"));
+
+        assertEquals(1, repositorio.count());
+        List<String> codigos = new ArrayList<>();
+        repositorio.forEachCodigo(100, codigos::add);
+        assertEquals(List.of("REP2"), codigos);
+        List<String> nombres = new ArrayList<>();
+        repositorio.forEachCodigoYNombre(100, (codigo, nombre) -> nombres.add(nombre));
+        assertEquals(List.of("Nuevo"), nombres);
+        assertEquals(1, repositorio.findCodigosYNombresByCodigos(List.of("REP2")).size());
+        assertEquals("REP2", repositorio.findCodigoById(guardado.getId()).orElseThrow());
+
+        // Una reconstrucción tras el alta no pierde el código
+        FiltroBloomCodigos filtro = context.getBean(FiltroBloomCodigos.class);
+        filtro.reconstruir();
+        assertTrue(filtro.puedeExistir("REP2"));
+    }
+
+    @Test
+    void laImportacionDescartaDuplicadosDeBloquesAnteriores() throws Exception {
+        iniciarContexto(Map.of("verificador.h2.replica", "true",
+                "verificador.importacion.tamano-bloque", "2"));
+        ImportacionProductosService importacion = context.getBean(ImportacionProductosService.class);
+
+        String csv = "codigo,nombre\nIMP1,Uno\nIMP2,Dos\nIMP3,Tres\nIMP1,Uno otra vez\n";
+        ResultadoImportacion resultado = importacion.importarCsv(new BufferedReader(new StringReader(csv)), 0);
+
+        assertTrue(resultado.isCompleta(), resultado.getError());
+        assertEquals(3, resultado.getInsertadas());
+        assertEquals(1, resultado.getRechazadas());
+    }
+
+    @Test
+    void actualizarUsaElCodigoActualDeLaPrimaria() {
+        iniciarContexto(Map.of("verificador.h2.replica", "true"));
+        ProductoService service = context.getBean(ProductoService.class);
+
+        Producto guardado = service.guardarProducto(new Producto("ANT1", "Antes"));
+        Producto cambio = new Producto("NUE1", "Después");
+        cambio.setId(guardado.getId());
+        service.actualizarProducto(cambio);
+
+        // El código anterior sale del índice aunque la réplica no tenga la fila
+        assertTrue(service.verificarCodigo("ANT1").isEmpty());
+        assertEquals("Después", service.verificarCodigo("NUE1").orElseThrow().getNombre());
+    }
+
+    private static String base(Connection conexion) throws SQLException {
+        String url = conexion.getMetaData().getURL();
+        return url.substring(url.lastIndexOf(':') + 1);
+    }
+
+    private void crearPools() {
+        primaria = ContextoPruebas.pool("rl_primaria", "Pruebas-Primaria");
+        replica1 = ContextoPruebas.pool("rl_replica1", "Pruebas-Replica1");
+        replica2 = ContextoPruebas.pool("rl_replica2", "Pruebas-Replica2");
+    }
+
+    @Test
+    void roundRobinAlternaLasReplicas() throws SQLException {
+        crearPools();
+        ReplicasLectura replicas = new ReplicasLectura(List.of(replica1, replica2), primaria,
+                ReplicasLectura.Estrategia.ROUND_ROBIN, 60_000);
+
+        for (int i = 0; i < 4; i++) {
+            try (Connection conexion = replicas.getConnection()) {
+                assertEquals(i % 2 == 0 ? "rl_replica1" : "rl_replica2", base(conexion));
+            }
+        }
+        assertEquals(0, replicas.getDesviadasAPrimaria());
+    }
+
+    @Test
+    void menosOcupadaEligeLaReplicaConMenosConexionesActivas() throws SQLException {
+        crearPools();
+        ReplicasLectura replicas = new ReplicasLectura(List.of(replica1, replica2), primaria,
+                ReplicasLectura.Estrategia.MENOS_OCUPADA, 60_000);
+
+        try (Connection ocupada = replica1.getConnection();
+                Connection conexion = replicas.getConnection()) {
+            assertEquals("rl_replica2", base(conexion));
+        }
+    }
+
+    @Test
+    void unaReplicaCaidaSaleDelRepartoYSinReplicasSeLeeDeLaPrimaria() throws SQLException {
+        crearPools();
+        ReplicasLectura replicas = new ReplicasLectura(List.of(replica1, replica2), primaria,
+                ReplicasLectura.Estrategia.ROUND_ROBIN, 60_000);
+
+        replica1.close();
+        for (int i = 0; i < 3; i++) {
+            try (Connection conexion = replicas.getConnection()) {
+                assertEquals("rl_replica2", base(conexion));
+            }
+        }
+        assertEquals(1, replicas.getReplicasCaidas());
+
+        replica2.close();
+        try (Connection conexion = replicas.getConnection()) {
+            assertEquals("rl_primaria", base(conexion));
+        }
+        assertEquals(2, replicas.getReplicasCaidas());
+        assertEquals(1, replicas.getDesviadasAPrimaria());
+    }
+
+    @Test
+    void unaReplicaSinConexionesVuelveAlRepartoTrasElReintento() throws Exception {
+        crearPools();
+        ReplicasLectura replicas = new ReplicasLectura(List.of(replica1), primaria,
+                ReplicasLectura.Estrategia.ROUND_ROBIN, 500);
+
+        // Pool agotado: getConnection falla tras el timeout de conexión
+        List<Connection> ocupadas = new ArrayList<>();
+        for (int i = 0; i < replica1.getMaximumPoolSize(); i++) {
+            ocupadas.add(replica1.getConnection());
+        }
+        try (Connection conexion = replicas.getConnection()) {
+            assertEquals("rl_primaria", base(conexion));
+        }
+        assertEquals(1, replicas.getReplicasCaidas());
+
+        for (Connection conexion : ocupadas) {
+            conexion.close();
+        }
+        // Dentro del tiempo de reintento sigue fuera del reparto
+        try (Connection conexion = replicas.getConnection()) {
+            assertEquals("rl_primaria", base(conexion));
+        }
+        Thread.sleep(600);
+        try (Connection conexion = replicas.getConnection()) {
+            assertEquals("rl_replica1", base(conexion));
+        }
+        assertEquals(0, replicas.getReplicasCaidas());
+    }
+}
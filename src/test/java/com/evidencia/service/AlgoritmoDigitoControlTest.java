@@ -0,0 +1,63 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Vectores publicados de cada algoritmo (ejemplos de ISO 7064, ORCID, GS1 y
+ * Luhn) y variaciones de un carácter que deben rechazarse.
+ */
+class AlgoritmoDigitoControlTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"79927398713", "4539578763621486", "4111111111111111", "0000000000"})
+    void luhnAceptaVectoresConocidos(String codigo) {
+        assertTrue(AlgoritmoDigitoControl.LUHN.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"79927398710", "79927398731", "4111111111111112", "7", "7992739871A", ""})
+    void luhnRechazaCodigosAlterados(String codigo) {
+        assertFalse(AlgoritmoDigitoControl.LUHN.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"079X", "079x", "0000000218250097", "000000021694233X"})
+    void mod11_2AceptaVectoresConocidos(String codigo) {
+        assertTrue(AlgoritmoDigitoControl.MOD11_2.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0790", "0000000218250098", "0000000216942330", "00000002169423X3", "X"})
+    void mod11_2RechazaCodigosAlterados(String codigo) {
+        assertFalse(AlgoritmoDigitoControl.MOD11_2.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"G123498654321H", "g123498654321h", "G123489654321Y"})
+    void mod37_2AceptaVectoresConocidos(String codigo) {
+        assertTrue(AlgoritmoDigitoControl.MOD37_2.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"G123498654321Y", "G123489654321H", "G12349865432-H", "H"})
+    void mod37_2RechazaCodigosAlterados(String codigo) {
+        assertFalse(AlgoritmoDigitoControl.MOD37_2.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"4006381333931", "036000291452", "73513537", "10012345678902"})
+    void gs1AceptaEan13UpcAEan8YGtin14(String codigo) {
+        assertTrue(AlgoritmoDigitoControl.GS1.esValido(codigo));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"4006381333932", "036000291453", "73513535", "10012345678900",
+        "79927398713", "400638133393A"})
+    void gs1RechazaCodigosAlteradosYOtrasLongitudes(String codigo) {
+        assertFalse(AlgoritmoDigitoControl.GS1.esValido(codigo));
+    }
+}
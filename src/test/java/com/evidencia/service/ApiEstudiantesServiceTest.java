@@ -0,0 +1,175 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.evidencia.model.RespuestaApi;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Caché de ApiEstudiantesService (TTL, stale-while-revalidate y errores)
+ * contra un servidor HTTP local que responde {"n":N}, con N el número de
+ * llamadas recibidas. Los TTL son de 1 segundo, el mínimo configurable.
+ */
+class ApiEstudiantesServiceTest {
+
+    private HttpServer servidor;
+    private final AtomicInteger llamadas = new AtomicInteger();
+    private volatile int status = 200;
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/api.php", this::responder);
+        servidor.start();
+    }
+
+    @AfterEach
+    void cerrar() {
+        if (context != null) {
+            context.close();
+        }
+        servidor.stop(0);
+    }
+
+    private void responder(HttpExchange intercambio) throws IOException {
+        byte[] cuerpo = ("{\"n\":" + llamadas.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(status, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+
+    private ApiEstudiantesService servicio(long obsoletaSegundos) {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("verificador.proxy.url-publica",
+                "http://127.0.0.1:" + servidor.getAddress().getPort() + "/api.php");
+        propiedades.put("verificador.proxy.cache.ttl-segundos", "1");
+        propiedades.put("verificador.proxy.cache.ttl-error-segundos", "1");
+        propiedades.put("verificador.proxy.cache.obsoleta-segundos", String.valueOf(obsoletaSegundos));
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("pruebas", propiedades));
+        context.register(ApiEstudiantesService.class);
+        context.refresh();
+        return context.getBean(ApiEstudiantesService.class);
+    }
+
+    private void esperarLlamadas(int esperadas) throws InterruptedException {
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (llamadas.get() < esperadas && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(esperadas, llamadas.get());
+    }
+
+    @Test
+    void unaRespuestaFrescaNoLlamaALaApi() {
+        ApiEstudiantesService api = servicio(5);
+
+        assertEquals(new RespuestaApi(200, "{\"n\":1}"), api.consultar("public", "7"));
+        assertEquals(new RespuestaApi(200, "{\"n\":1}"), api.consultar("public", " 7 "));
+
+        assertEquals(1, llamadas.get());
+        assertEquals(1, api.getFallos());
+        assertEquals(1, api.getAciertos());
+    }
+
+    @Test
+    void cadaIdTieneSuEntrada() {
+        ApiEstudiantesService api = servicio(5);
+
+        api.consultar("public", "1");
+        api.consultar("public", "2");
+        api.consultar("public", null);
+
+        assertEquals(3, llamadas.get());
+        assertEquals(3, api.getTamanoCache());
+    }
+
+    @Test
+    void unaRespuestaObsoletaSeSirveYSeRefrescaEnSegundoPlano() throws InterruptedException {
+        ApiEstudiantesService api = servicio(5);
+        api.consultar("public", "7");
+        Thread.sleep(1100);
+
+        // Vencida pero dentro de la ventana: se sirve la anterior al instante
+        assertEquals("{\"n\":1}", api.consultar("public", "7").cuerpo());
+        assertEquals(1, api.getAciertosObsoletos());
+
+        esperarLlamadas(2);
+        // El refresco ya está guardado como respuesta fresca
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (!api.consultar("public", "7").cuerpo().equals("{\"n\":2}") && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals("{\"n\":2}", api.consultar("public", "7").cuerpo());
+        assertEquals(2, llamadas.get());
+    }
+
+    @Test
+    void fueraDeLaVentanaSeVuelveAConsultar() throws InterruptedException {
+        ApiEstudiantesService api = servicio(0);
+        api.consultar("public", "7");
+        Thread.sleep(1100);
+
+        assertEquals("{\"n\":2}", api.consultar("public", "7").cuerpo());
+        assertEquals(0, api.getAciertosObsoletos());
+        assertEquals(2, api.getFallos());
+    }
+
+    @Test
+    void unErrorNoReemplazaUnaRespuestaQueAunSePuedeServir() throws InterruptedException {
+        ApiEstudiantesService api = servicio(5);
+        api.consultar("public", "7");
+        status = 500;
+        Thread.sleep(1100);
+
+        assertEquals("{\"n\":1}", api.consultar("public", "7").cuerpo());
+        esperarLlamadas(2);
+
+        // Los 500 de los refrescos no sustituyen a la respuesta obsoleta, que
+        // se sigue sirviendo e intentando refrescar
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (llamadas.get() < 3 && System.nanoTime() < limite) {
+            assertEquals(new RespuestaApi(200, "{\"n\":1}"), api.consultar("public", "7"));
+            Thread.sleep(10);
+        }
+        esperarLlamadas(3);
+        while (api.getEnCurso() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void losErroresSeGuardanConSuPropioTtl() throws InterruptedException {
+        status = 503;
+        ApiEstudiantesService api = servicio(5);
+
+        assertEquals(503, api.consultar("public", "7").status());
+        assertEquals(503, api.consultar("public", "7").status());
+        assertEquals(1, llamadas.get());
+
+        // Sin ventana de obsolescencia: al vencer se consulta de nuevo
+        status = 200;
+        Thread.sleep(1100);
+        assertEquals(new RespuestaApi(200, "{\"n\":2}"), api.consultar("public", "7"));
+        assertEquals(0, api.getAciertosObsoletos());
+    }
+}
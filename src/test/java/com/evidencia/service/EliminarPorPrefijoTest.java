@@ -0,0 +1,71 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.evidencia.ContextoPruebas;
+import com.evidencia.model.Producto;
+import com.evidencia.repository.ProductoRepository;
+
+/**
+ * Salvaguardas de la baja por prefijo: longitud mínima y número esperado.
+ */
+class EliminarPorPrefijoTest {
+
+    private AnnotationConfigApplicationContext context;
+    private ProductoService service;
+    private ProductoRepository repositorio;
+
+    @BeforeEach
+    void iniciar() {
+        context = ContextoPruebas.iniciar(Map.of("verificador.masivo.tamano-bloque", "2"));
+        service = context.getBean(ProductoService.class);
+        repositorio = context.getBean(ProductoRepository.class);
+        for (String codigo : new String[]{"TMP1", "TMP2", "TMP3", "TOR1"}) {
+            service.guardarProducto(new Producto(codigo, "Producto " + codigo));
+        }
+    }
+
+    @AfterEach
+    void cerrar() {
+        context.close();
+    }
+
+    @Test
+    void unPrefijoCortoSinEsperadosSeRechaza() {
+        assertThrows(IllegalArgumentException.class, () -> service.eliminarPorPrefijo("T", null));
+        assertThrows(IllegalArgumentException.class, () -> service.eliminarPorPrefijo("tm", null));
+        assertEquals(4, repositorio.count());
+    }
+
+    @Test
+    void unPrefijoLargoSeEliminaEnBloques() {
+        assertEquals(3, service.eliminarPorPrefijo("tmp", null));
+
+        assertEquals(1, repositorio.count());
+        assertTrue(service.verificarCodigo("TMP2").isEmpty());
+    }
+
+    @Test
+    void conEsperadosDistintosNoSeEliminaNada() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.eliminarPorPrefijo("T", 3));
+
+        assertEquals("Hay 4 productos con el prefijo T, no 3; no se eliminó ninguno", e.getMessage());
+        assertEquals(4, repositorio.count());
+    }
+
+    @Test
+    void conEsperadosIgualesSeAceptaUnPrefijoCorto() {
+        assertEquals(4, service.eliminarPorPrefijo("T", 4));
+        assertEquals(0, repositorio.count());
+    }
+}
@@ -0,0 +1,82 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.evidencia.ContextoPruebas;
+import com.evidencia.model.Producto;
+import com.evidencia.repository.ProductoRepository;
+
+/**
+ * Alta o cambio de nombre con ProductoRepository.upsert: distingue el alta
+ * de una fila existente aunque el nombre no cambie.
+ */
+class GuardarOActualizarProductoTest {
+
+    private AnnotationConfigApplicationContext context;
+    private ProductoService service;
+    private ProductoRepository repositorio;
+
+    @BeforeEach
+    void iniciar() {
+        context = ContextoPruebas.iniciar(Map.of("verificador.cache-segundo-nivel.habilitada", "true"));
+        service = context.getBean(ProductoService.class);
+        repositorio = context.getBean(ProductoRepository.class);
+    }
+
+    @AfterEach
+    void cerrar() {
+        context.close();
+    }
+
+    @Test
+    void unCodigoNuevoSeInserta() {
+        Producto producto = new Producto("UPS1", "Nuevo");
+
+        assertTrue(service.guardarOActualizarProducto(producto));
+
+        assertNotNull(producto.getId());
+        assertNotNull(producto.getFechaRegistro());
+        assertEquals("Nuevo", repositorio.findById(producto.getId()).orElseThrow().getNombre());
+    }
+
+    @Test
+    void elMismoNombreSeInformaComoActualizadoSinTocarLaFecha() {
+        Producto original = new Producto("UPS2", "Igual");
+        original.setFechaRegistro(LocalDateTime.of(2020, 1, 1, 0, 0));
+        service.guardarOActualizarProducto(original);
+
+        Producto repetido = new Producto("UPS2", "Igual");
+
+        assertFalse(service.guardarOActualizarProducto(repetido));
+        assertEquals(original.getId(), repetido.getId());
+        assertNull(repetido.getFechaRegistro());
+        assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0),
+                repositorio.findById(original.getId()).orElseThrow().getFechaRegistro());
+        assertEquals(1, repositorio.count());
+    }
+
+    @Test
+    void unNombreDistintoSeActualizaYSeDesalojaDeLaCache() {
+        Producto original = new Producto("UPS3", "Antes");
+        service.guardarOActualizarProducto(original);
+        // Queda en la caché de segundo nivel
+        assertEquals("Antes", repositorio.findById(original.getId()).orElseThrow().getNombre());
+
+        assertFalse(service.guardarOActualizarProducto(new Producto("UPS3", "Después")));
+
+        assertEquals("Después", repositorio.findById(original.getId()).orElseThrow().getNombre());
+        assertEquals("Después", service.verificarCodigo("UPS3").orElseThrow().getNombre());
+    }
+}
@@ -0,0 +1,109 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.evidencia.ContextoPruebas;
+import com.evidencia.model.ResultadoImportacion;
+
+/**
+ * Validación por bloques y reanudación de la importación CSV.
+ */
+class ImportacionProductosServiceTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    @AfterEach
+    void cerrar() {
+        context.close();
+    }
+
+    @Test
+    void rechazaDigitoDeControlYDuplicadosPorBloque() throws Exception {
+        context = ContextoPruebas.iniciar(Map.of(
+                "verificador.digito-control.reglas", "*=LUHN",
+                "verificador.importacion.tamano-bloque", "3"));
+        ImportacionProductosService importacion = context.getBean(ImportacionProductosService.class);
+        ProductoService service = context.getBean(ProductoService.class);
+
+        String csv = "codigo,nombre\n"
+                + "79927398713,Válido\n"         // línea 2
+                + "79927398710,Dígito mal\n"     // línea 3
+                + "79927398713,Repetido\n"       // línea 4
+                + "4539578763621486,Otro\n"      // línea 5
+                + "CON-GUION,Formato\n"          // línea 6
+                + "4539578763621480,Dígito mal\n"; // línea 7
+        ResultadoImportacion resultado = importacion.importarCsv(new BufferedReader(new StringReader(csv)), 0);
+
+        assertTrue(resultado.isCompleta(), resultado.getError());
+        assertEquals(6, resultado.getLeidas());
+        assertEquals(2, resultado.getInsertadas());
+        assertEquals(4, resultado.getRechazadas());
+        assertEquals(7, resultado.getUltimaLineaConfirmada());
+        Map<Long, String> motivos = new TreeMap<>();
+        for (ResultadoImportacion.Rechazo rechazo : resultado.getRechazos()) {
+            motivos.put(rechazo.linea(), rechazo.motivo());
+        }
+        assertEquals(Map.of(
+                3L, "El dígito de control del código no es válido",
+                4L, "Código duplicado en el archivo: 79927398713",
+                6L, "El código solo puede contener letras y números",
+                7L, "El dígito de control del código no es válido"), motivos);
+        assertEquals("Válido", service.verificarCodigo("79927398713").orElseThrow().getNombre());
+        assertEquals("Otro", service.verificarCodigo("4539578763621486").orElseThrow().getNombre());
+    }
+
+    @Test
+    void unaReanudacionNoVuelveAContarLasFilasSinConfirmar() throws Exception {
+        context = ContextoPruebas.iniciar(Map.of("verificador.importacion.tamano-bloque", "2"));
+        ImportacionProductosService importacion = context.getBean(ImportacionProductosService.class);
+
+        String csv = "codigo,nombre\n"
+                + "IMP1,Uno\n"           // línea 2
+                + "CON-GUION,Formato\n"  // línea 3
+                + "IMP2,Dos\n"           // línea 4: cierra el primer bloque
+                + "OTRO-GUION,Formato\n" // línea 5
+                + "IMP3,Tres\n";         // línea 6
+        // Falla al leer la línea 7, con la 5 rechazada y la 6 sin guardar
+        BufferedReader cortado = new BufferedReader(new StringReader(csv)) {
+            private int lineas;
+
+            @Override
+            public String readLine() throws IOException {
+                if (++lineas > 6) {
+                    throw new IOException("Conexión cerrada");
+                }
+                return super.readLine();
+            }
+        };
+
+        ResultadoImportacion primero = importacion.importarCsv(cortado, 0);
+
+        assertFalse(primero.isCompleta());
+        assertEquals(4, primero.getUltimaLineaConfirmada());
+        assertEquals(3, primero.getLeidas());
+        assertEquals(2, primero.getInsertadas());
+        assertEquals(1, primero.getRechazadas());
+        assertEquals(1, primero.getRechazos().size());
+
+        ResultadoImportacion segundo = importacion.importarCsv(
+                new BufferedReader(new StringReader(csv)), primero.getUltimaLineaConfirmada());
+
+        assertTrue(segundo.isCompleta(), segundo.getError());
+        assertEquals(2, segundo.getLeidas());
+        assertEquals(1, segundo.getInsertadas());
+        assertEquals(1, segundo.getRechazadas());
+        assertEquals(5, segundo.getRechazos().get(0).linea());
+    }
+}
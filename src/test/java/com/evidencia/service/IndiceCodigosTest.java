@@ -0,0 +1,76 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.evidencia.repository.ProductoRepository;
+
+/**
+ * Altas y bajas registradas mientras IndiceCodigos.recargar() recorre la
+ * base de datos, con el mapa y con la tabla compacta.
+ */
+class IndiceCodigosTest {
+
+    /**
+     * Repository cuyo cursor devuelve A1 y C3, y a mitad del recorrido
+     * registra B2 y da de baja A1 en el índice, como haría otra petición.
+     */
+    private static final class RepositorioConEscrituras extends ProductoRepository {
+
+        IndiceCodigos indice;
+
+        @Override
+        public long count() {
+            return 2;
+        }
+
+        @Override
+        public long forEachCodigoYNombre(int fetchSize, BiConsumer<String, String> consumidor) {
+            consumidor.accept("A1", "Uno");
+            indice.registrar("b2", "Dos");
+            indice.eliminar("A1");
+            consumidor.accept("C3", "Tres");
+            return 2;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void lasEscriturasDuranteLaCargaLleganAlIndiceNuevo(boolean compacto) {
+        RepositorioConEscrituras repositorio = new RepositorioConEscrituras();
+        IndiceCodigos indice = new IndiceCodigos(repositorio, true, compacto);
+        repositorio.indice = indice;
+
+        indice.recargar();
+
+        assertNull(indice.buscarNombre("A1"));
+        assertEquals("Dos", indice.buscarNombre("B2"));
+        assertEquals("Tres", indice.buscarNombre("C3"));
+        assertEquals(2, indice.getTamano());
+        assertEquals(1, indice.getRecargas());
+        assertEquals(2, indice.getActualizaciones());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void lasEscriturasFueraDeLaCargaSeAplicanAlIndiceEnUso(boolean compacto) {
+        RepositorioConEscrituras repositorio = new RepositorioConEscrituras();
+        IndiceCodigos indice = new IndiceCodigos(repositorio, true, compacto);
+        repositorio.indice = indice;
+        indice.recargar();
+
+        indice.registrar("D4", "Cuatro");
+        indice.eliminar("C3");
+
+        assertEquals("Cuatro", indice.buscarNombre("D4"));
+        assertNull(indice.buscarNombre("C3"));
+        assertEquals(2, indice.getTamano());
+        assertEquals(1, indice.getRecargas());
+        assertEquals(4, indice.getActualizaciones());
+    }
+}
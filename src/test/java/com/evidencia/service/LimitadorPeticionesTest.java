@@ -0,0 +1,107 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ráfaga, relleno y desalojo del limitador GCRA. Con 5 peticiones por
+ * segundo cada ficha tarda 200 ms, margen de sobra para que las llamadas
+ * seguidas de una prueba ocurran "a la vez".
+ */
+class LimitadorPeticionesTest {
+
+    private static final long INTERVALO_NANOS = 200_000_000L;
+
+    private static LimitadorPeticiones limitador(int rafaga) {
+        return new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP, 5, rafaga, 100_000);
+    }
+
+    @Test
+    void admiteLaRafagaCompletaYRechazaLaSiguiente() {
+        LimitadorPeticiones limitador = limitador(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limitador.intentar("10.0.0.1"), "petición " + i);
+        }
+        long espera = limitador.intentar("10.0.0.1");
+
+        // Falta una ficha: como mucho un intervalo
+        assertTrue(espera > 0 && espera <= INTERVALO_NANOS, "espera " + espera);
+        assertEquals(3, limitador.getAdmitidas());
+        assertEquals(1, limitador.getRechazadas());
+    }
+
+    @Test
+    void rellenaUnaFichaPorIntervaloHastaLaRafaga() throws InterruptedException {
+        LimitadorPeticiones limitador = limitador(3);
+        for (int i = 0; i < 3; i++) {
+            limitador.intentar("cliente");
+        }
+
+        long espera = limitador.intentar("cliente");
+        Thread.sleep(espera / 1_000_000 + 20);
+
+        // Una sola ficha nueva
+        assertEquals(0, limitador.intentar("cliente"));
+        assertTrue(limitador.intentar("cliente") > 0);
+
+        // Tras la ráfaga completa en intervalos vuelve a haber 3, no más
+        Thread.sleep(3 * INTERVALO_NANOS / 1_000_000 + 20);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limitador.intentar("cliente"), "petición " + i);
+        }
+        assertTrue(limitador.intentar("cliente") > 0);
+    }
+
+    @Test
+    void cadaClienteTieneSuCubeta() {
+        LimitadorPeticiones limitador = limitador(2);
+
+        limitador.intentar("a");
+        limitador.intentar("a");
+        assertTrue(limitador.intentar("a") > 0);
+
+        assertEquals(0, limitador.intentar("b"));
+        assertEquals(0, limitador.intentar("b"));
+        assertEquals(2, limitador.getClientes());
+    }
+
+    @Test
+    void lasClavesLargasSeRecortan() {
+        LimitadorPeticiones limitador = limitador(1);
+        String base = "k".repeat(64);
+
+        assertEquals(0, limitador.intentar(base + "-uno"));
+        assertTrue(limitador.intentar(base + "-dos") > 0);
+        assertEquals(1, limitador.getClientes());
+    }
+
+    @Test
+    void laTablaDeClientesNoSuperaElMaximo() {
+        // Tasa altísima: cada cubeta vuelve a estar llena (inactiva) enseguida
+        LimitadorPeticiones limitador = new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP,
+                1e9, 1, 640);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, limitador.intentar("cliente-" + i));
+        }
+
+        assertTrue(limitador.getClientes() <= limitador.getMaxClientes(),
+                limitador.getClientes() + " clientes");
+        assertTrue(limitador.getDesalojados() >= 10_000 - limitador.getMaxClientes());
+        assertEquals(10_000, limitador.getAdmitidas());
+    }
+
+    @Test
+    void rechazaConfiguracionesNoPositivas() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP, 0, 10, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP, 10, 0, 100));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LimitadorPeticiones(true, LimitadorPeticiones.Cliente.IP, 10, 10, 0));
+    }
+}
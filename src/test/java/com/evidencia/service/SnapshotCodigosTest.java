@@ -0,0 +1,191 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.evidencia.repository.ProductoRepository;
+
+/**
+ * Escritura en streaming del snapshot, validación del archivo al mapearlo y
+ * versiones al regenerar y recargar.
+ */
+class SnapshotCodigosTest {
+
+    @TempDir
+    Path directorio;
+
+    private static int escribir(List<String[]> filas, Path destino) throws IOException {
+        return SnapshotCodigos.escribir(consumidor -> {
+            for (String[] fila : filas) {
+                consumidor.accept(fila[0], fila[1]);
+            }
+        }, filas.size(), destino);
+    }
+
+    private SnapshotCodigos cargar(Path archivo) throws IOException {
+        SnapshotCodigos snapshot = new SnapshotCodigos(null, archivo.toString(), false);
+        snapshot.recargar();
+        return snapshot;
+    }
+
+    @Test
+    void escribeOrdenadoSinDuplicadosNiCodigosInvalidos() throws IOException {
+        List<String[]> filas = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            filas.add(new String[]{"C" + i, "Nombre " + i});
+        }
+        Collections.shuffle(filas, new Random(42));
+        filas.add(new String[]{" c7 ", "Duplicado en minúsculas"});
+        filas.add(new String[]{"CÓDIGO", "No ASCII"});
+        filas.add(new String[]{"  ", "Vacío"});
+        Path archivo = directorio.resolve("codigos.snap");
+
+        assertEquals(5000, escribir(filas, archivo));
+
+        SnapshotCodigos snapshot = cargar(archivo);
+        assertEquals(5000, snapshot.getEntradas());
+        for (int i = 0; i < 5000; i++) {
+            String nombre = snapshot.buscarNombre("C" + i);
+            assertTrue(nombre.equals("Nombre " + i) || i == 7 && nombre.equals("Duplicado en minúsculas"), nombre);
+        }
+        assertNull(snapshot.buscarNombre("C5000"));
+        assertNull(snapshot.buscarNombre("CÓDIGO"));
+        assertNull(snapshot.buscarNombre(""));
+    }
+
+    @Test
+    void sinFilasEscribeUnSnapshotVacio() throws IOException {
+        Path archivo = directorio.resolve("vacio.snap");
+
+        assertEquals(0, escribir(List.of(), archivo));
+
+        SnapshotCodigos snapshot = cargar(archivo);
+        assertTrue(snapshot.isCargado());
+        assertNull(snapshot.buscarNombre("X"));
+    }
+
+    @Test
+    void unArchivoTruncadoNoSustituyeAlSnapshotEnUso() throws IOException {
+        Path archivo = directorio.resolve("codigos.snap");
+        escribir(List.of(new String[]{"A1", "Uno"}, new String[]{"B2", "Dos"}), archivo);
+        byte[] contenido = Files.readAllBytes(archivo);
+        SnapshotCodigos snapshot = cargar(archivo);
+
+        reemplazar(archivo, Arrays.copyOf(contenido, contenido.length - 2));
+
+        assertThrows(IOException.class, snapshot::recargar);
+        assertEquals("Uno", snapshot.buscarNombre("A1"));
+        assertEquals("Dos", snapshot.buscarNombre("B2"));
+        // El archivo inválido conserva su nombre y no pasa a ser una versión
+        assertTrue(Files.exists(archivo));
+        assertEquals(directorio.resolve("codigos.snap.1"), snapshot.getArchivoEnUso());
+        assertFalse(Files.exists(directorio.resolve("codigos.snap.2")));
+    }
+
+    @Test
+    void unaPosicionFueraDelArchivoNoSustituyeAlSnapshotEnUso() throws IOException {
+        Path archivo = directorio.resolve("codigos.snap");
+        escribir(List.of(new String[]{"A1", "Uno"}, new String[]{"B2", "Dos"}), archivo);
+        byte[] contenido = Files.readAllBytes(archivo);
+        SnapshotCodigos snapshot = cargar(archivo);
+
+        // Segunda posición de la tabla (tras la cabecera de 20 bytes)
+        ByteBuffer.wrap(contenido).putInt(24, contenido.length + 100);
+        reemplazar(archivo, contenido);
+
+        assertThrows(IOException.class, snapshot::recargar);
+        assertEquals("Dos", snapshot.buscarNombre("B2"));
+    }
+
+    @Test
+    void recargarConvierteElArchivoCopiadoEnLaSiguienteVersion() throws IOException {
+        Path archivo = directorio.resolve("codigos.snap");
+        escribir(List.<String[]>of(new String[]{"A1", "Uno"}), archivo);
+        SnapshotCodigos snapshot = cargar(archivo);
+
+        assertEquals(directorio.resolve("codigos.snap.1"), snapshot.getArchivoEnUso());
+        assertFalse(Files.exists(archivo));
+
+        Path copia = directorio.resolve("copia.tmp");
+        escribir(List.<String[]>of(new String[]{"B2", "Dos"}), copia);
+        Files.move(copia, archivo, StandardCopyOption.ATOMIC_MOVE);
+        snapshot.recargar();
+
+        assertEquals(directorio.resolve("codigos.snap.2"), snapshot.getArchivoEnUso());
+        assertEquals("Dos", snapshot.buscarNombre("B2"));
+        assertNull(snapshot.buscarNombre("A1"));
+        assertFalse(Files.exists(directorio.resolve("codigos.snap.1")));
+
+        // Sin archivo copiado, recargar vuelve a mapear la última versión
+        snapshot.recargar();
+        assertEquals(directorio.resolve("codigos.snap.2"), snapshot.getArchivoEnUso());
+        assertEquals(3, snapshot.getCargas());
+    }
+
+    @Test
+    void regenerarEscribeUnaVersionNuevaSinTocarLaMapeada() throws IOException {
+        List<String[]> filas = new ArrayList<>();
+        filas.add(new String[]{"A1", "Uno"});
+        ProductoRepository repositorio = new ProductoRepository() {
+            @Override
+            public long count() {
+                return filas.size();
+            }
+
+            @Override
+            public long forEachCodigoYNombre(int fetchSize, BiConsumer<String, String> consumidor) {
+                for (String[] fila : filas) {
+                    consumidor.accept(fila[0], fila[1]);
+                }
+                return filas.size();
+            }
+        };
+        SnapshotCodigos snapshot = new SnapshotCodigos(repositorio,
+                directorio.resolve("codigos.snap").toString(), false);
+
+        snapshot.alIniciar();
+        assertEquals(directorio.resolve("codigos.snap.1"), snapshot.getArchivoEnUso());
+
+        filas.add(new String[]{"B2", "Dos"});
+        assertTrue(snapshot.regenerar());
+
+        assertEquals(directorio.resolve("codigos.snap.2"), snapshot.getArchivoEnUso());
+        assertEquals("Dos", snapshot.buscarNombre("B2"));
+        assertFalse(Files.exists(directorio.resolve("codigos.snap.1")));
+
+        // Al arrancar de nuevo se usa la última versión
+        SnapshotCodigos reiniciado = new SnapshotCodigos(repositorio,
+                directorio.resolve("codigos.snap").toString(), false);
+        reiniciado.alIniciar();
+        assertEquals(directorio.resolve("codigos.snap.2"), reiniciado.getArchivoEnUso());
+        assertEquals(2, reiniciado.getEntradas());
+    }
+
+    /**
+     * Sustituye el archivo con un renombrado, sin escribir sobre el que está
+     * mapeado.
+     */
+    private void reemplazar(Path archivo, byte[] contenido) throws IOException {
+        Path nuevo = directorio.resolve("nuevo.tmp");
+        Files.write(nuevo, contenido);
+        Files.move(nuevo, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,128 @@
+package com.evidencia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Altas, cambios, bajas, redimensionado y carga completa de
+ * TablaCodigosCompacta.
+ */
+class TablaCodigosCompactaTest {
+
+    @Test
+    void agregarYBuscarSinDistinguirMayusculas() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+
+        assertTrue(tabla.agregar("abc123", "Tornillo"));
+
+        assertEquals("Tornillo", tabla.buscarNombre("ABC123"));
+        assertEquals("Tornillo", tabla.buscarNombre("abc123"));
+        assertTrue(tabla.contiene("Abc123"));
+        assertNull(tabla.buscarNombre("ABC124"));
+        assertNull(tabla.buscarNombre("ABC12"));
+        assertEquals(1, tabla.getTamano());
+    }
+
+    @Test
+    void agregarUnCodigoExistenteReemplazaElNombre() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+
+        tabla.agregar("X1", "Antes");
+        tabla.agregar("x1", "Después, con acentos y ñ");
+
+        assertEquals("Después, con acentos y ñ", tabla.buscarNombre("X1"));
+        assertEquals(1, tabla.getTamano());
+    }
+
+    @Test
+    void losCodigosNoGuardablesSeRechazan() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+
+        assertFalse(tabla.agregar("", "Vacío"));
+        assertFalse(tabla.agregar("ABC-1", "Con guion"));
+        assertFalse(tabla.agregar("A".repeat(TablaCodigosCompacta.LONGITUD_MAXIMA + 1), "Largo"));
+        assertTrue(tabla.agregar("A".repeat(TablaCodigosCompacta.LONGITUD_MAXIMA), "Justo"));
+
+        assertNull(tabla.buscarNombre("ABC-1"));
+        assertEquals("Justo", tabla.buscarNombre("A".repeat(TablaCodigosCompacta.LONGITUD_MAXIMA)));
+        assertEquals(1, tabla.getTamano());
+    }
+
+    @Test
+    void eliminarQuitaSoloEseCodigo() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+        for (int i = 0; i < 100; i++) {
+            tabla.agregar("COD" + i, "Nombre " + i);
+        }
+
+        assertTrue(tabla.eliminar("cod50"));
+        assertFalse(tabla.eliminar("COD50"));
+        assertFalse(tabla.eliminar("NOEXISTE"));
+
+        assertNull(tabla.buscarNombre("COD50"));
+        assertEquals(99, tabla.getTamano());
+        for (int i = 0; i < 100; i++) {
+            if (i != 50) {
+                assertEquals("Nombre " + i, tabla.buscarNombre("COD" + i));
+            }
+        }
+
+        // Se puede volver a agregar tras la baja
+        tabla.agregar("COD50", "De nuevo");
+        assertEquals("De nuevo", tabla.buscarNombre("COD50"));
+    }
+
+    @Test
+    void redimensionarConservaLasEntradasVivas() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+        long bytesIniciales = tabla.getBytes();
+
+        for (int i = 0; i < 50_000; i++) {
+            tabla.agregar("P" + i, "Producto " + i);
+        }
+        for (int i = 0; i < 50_000; i += 2) {
+            tabla.eliminar("P" + i);
+        }
+        for (int i = 50_000; i < 60_000; i++) {
+            tabla.agregar("P" + i, "Producto " + i);
+        }
+
+        assertTrue(tabla.getBytes() > bytesIniciales);
+        assertEquals(35_000, tabla.getTamano());
+        for (int i = 0; i < 60_000; i++) {
+            String nombre = tabla.buscarNombre("P" + i);
+            if (i < 50_000 && i % 2 == 0) {
+                assertNull(nombre, "P" + i);
+            } else {
+                assertEquals("Producto " + i, nombre);
+            }
+        }
+    }
+
+    @Test
+    void unaCargaSoloSeVeAlPublicarla() {
+        TablaCodigosCompacta tabla = new TablaCodigosCompacta(0);
+        tabla.agregar("VIEJO", "Anterior");
+
+        // Menos previstos que los que llegan: la carga redimensiona
+        TablaCodigosCompacta.Carga carga = tabla.iniciarCarga(10);
+        for (int i = 0; i < 1000; i++) {
+            carga.agregar("N" + i, "Nuevo " + i);
+        }
+        assertFalse(carga.agregar("NO VALIDO", "Con espacio"));
+
+        assertEquals("Anterior", tabla.buscarNombre("VIEJO"));
+        assertNull(tabla.buscarNombre("N1"));
+
+        carga.publicar();
+
+        assertNull(tabla.buscarNombre("VIEJO"));
+        assertEquals("Nuevo 999", tabla.buscarNombre("N999"));
+        assertEquals(1000, tabla.getTamano());
+        assertEquals(1, carga.getOmitidos());
+    }
+}